@@ -0,0 +1,77 @@
+package sandeep.webcrawler.bench;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sandeep.webcrawler.extract.PageSummary;
+import sandeep.webcrawler.extract.StreamingLinkExtractor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and link extraction on the HTML fixtures: a ~50 KB news article
+ * and a ~430 KB product listing. Run with {@code -prof gc} for allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ExtractionBenchmark {
+
+    @Param({"article", "listing"})
+    public String page;
+
+    private byte[] html;
+    private String baseUrl;
+    private final StreamingLinkExtractor streaming = new StreamingLinkExtractor();
+
+    @Setup
+    public void setup() {
+        html = Fixtures.load(page + ".html");
+        baseUrl = page.equals("article") ? Fixtures.ARTICLE_URL : Fixtures.LISTING_URL;
+    }
+
+    @Benchmark
+    public Document jsoupParse() throws IOException {
+        return Jsoup.parse(new ByteArrayInputStream(html), "UTF-8", baseUrl);
+    }
+
+    // What ConcurrentWebCrawler does in DOM mode
+    @Benchmark
+    public List<String> jsoupLinks() throws IOException {
+        Document document = Jsoup.parse(new ByteArrayInputStream(html), "UTF-8", baseUrl);
+        List<String> links = new ArrayList<>();
+        for (Element link : document.select("a[href]")) {
+            links.add(link.absUrl("href"));
+        }
+        return links;
+    }
+
+    // What DataExtractionCrawler does in DOM mode
+    @Benchmark
+    public PageSummary jsoupSummary() throws IOException {
+        return PageSummary.of(Jsoup.parse(new ByteArrayInputStream(html), "UTF-8", baseUrl));
+    }
+
+    @Benchmark
+    public PageSummary streamingSummary() {
+        return streaming.extract(html, "UTF-8", baseUrl);
+    }
+}
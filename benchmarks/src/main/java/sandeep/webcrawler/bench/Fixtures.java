@@ -0,0 +1,57 @@
+package sandeep.webcrawler.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Loads the HTML and robots.txt fixtures under /fixtures and generates
+ * deterministic URL sets, so every run measures the same input.
+ */
+final class Fixtures {
+
+    static final String ARTICLE_URL = "https://news.example.com/science/2024/05/crawler-latency-study";
+    static final String LISTING_URL = "https://shop.example.com/products/all";
+
+    private Fixtures() {
+    }
+
+    static byte[] load(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A mix of the URLs a crawler sees: same-site pages with queries,
+     * other hosts, binary downloads, fragments and non-http schemes.
+     */
+    static List<String> urls(int count, long seed) {
+        String[] hosts = {"example.com", "www.example.com", "news.example.com", "cdn.example.net", "other.org"};
+        String[] suffixes = {"", "/", "/index.html", "?page=2", "?utm_source=x&id=7", ".pdf", ".jpg", "#top"};
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> urls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(20);
+            if (kind == 0) {
+                urls.add("mailto:user" + i + "@example.com");
+            } else if (kind == 1) {
+                urls.add("javascript:void(" + i + ")");
+            } else {
+                String scheme = random.nextBoolean() ? "https://" : "http://";
+                String host = hosts[random.nextInt(hosts.length)];
+                urls.add(scheme + host + "/section" + random.nextInt(50) + "/item-" + i
+                        + suffixes[random.nextInt(suffixes.length)]);
+            }
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,97 @@
+package sandeep.webcrawler.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import sandeep.webcrawler.frontier.CrawlTask;
+import sandeep.webcrawler.frontier.FifoFrontier;
+import sandeep.webcrawler.frontier.Frontier;
+import sandeep.webcrawler.frontier.PolitenessFrontier;
+import sandeep.webcrawler.frontier.SpillingFrontier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enqueue/dequeue cost of each frontier with 4 threads doing what a crawl
+ * worker does per page: poll a task, offer a few links, complete the task.
+ * The politeness delay is zero so only the data structure is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class FrontierBenchmark {
+
+    static final int LINKS_PER_PAGE = 4;
+
+    @Param({"fifo", "politeness", "spilling"})
+    public String kind;
+
+    @Param({"16", "1024"})
+    public int hosts;
+
+    private Frontier frontier;
+    private CrawlTask[] tasks;
+    private Path spillDir;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        PolitenessFrontier politeness = new PolitenessFrontier(0, host -> 0);
+        politeness.setMaxInFlightPerHost(Integer.MAX_VALUE);
+        frontier = switch (kind) {
+            case "fifo" -> new FifoFrontier();
+            case "politeness" -> politeness;
+            case "spilling" -> {
+                spillDir = Files.createTempDirectory("frontier-bench");
+                yield new SpillingFrontier(politeness, spillDir, 10_000);
+            }
+            default -> throw new IllegalArgumentException(kind);
+        };
+        tasks = new CrawlTask[8192];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new CrawlTask("https://host" + (i % hosts) + ".example.com/page/" + i, 1);
+            tasks[i].getHost();
+        }
+        // Steady state: enough queued that polls never wait
+        for (int i = 0; i < 50_000; i++) {
+            frontier.offer(tasks[i % tasks.length]);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (frontier instanceof SpillingFrontier spilling) {
+            spilling.close();
+        }
+    }
+
+    @Benchmark
+    public CrawlTask pollOfferComplete() throws InterruptedException {
+        CrawlTask task = frontier.poll(1, TimeUnit.MILLISECONDS);
+        if (task != null) {
+            int base = (int) (System.nanoTime() & 0x7fff);
+            for (int i = 0; i < LINKS_PER_PAGE; i++) {
+                frontier.offer(tasks[(base + i) % tasks.length]);
+            }
+            frontier.complete(task);
+        }
+        return task;
+    }
+}
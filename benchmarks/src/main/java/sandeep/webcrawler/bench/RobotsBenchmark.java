@@ -0,0 +1,80 @@
+package sandeep.webcrawler.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sandeep.webcrawler.fetch.FetchResponse;
+import sandeep.webcrawler.robots.RobotsParser;
+import sandeep.webcrawler.robots.RobotsRules;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * robots.txt compilation and per-URL checks against a large site's file
+ * (~150 rules with wildcards and anchors). Check scores are per batch of
+ * {@link UrlFilterBenchmark#BATCH} URLs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RobotsBenchmark {
+
+    private String robotsTxt;
+    private RobotsRules rules;
+    private RobotsParser cached;
+    private String[] urls;
+    private String[] paths;
+
+    @Setup
+    public void setup() {
+        robotsTxt = new String(Fixtures.load("robots.txt"), StandardCharsets.UTF_8);
+        rules = RobotsRules.parse(robotsTxt, RobotsParser.DEFAULT_AGENT);
+        byte[] body = Fixtures.load("robots.txt");
+        cached = new RobotsParser((url, headers) -> new FetchResponse(url, 200, Map.of(), body),
+                "otherbot", TimeUnit.HOURS.toMillis(1), 100);
+
+        List<String> generated = Fixtures.urls(UrlFilterBenchmark.BATCH, 7);
+        urls = generated.stream().filter(u -> u.startsWith("http")).toArray(String[]::new);
+        paths = new String[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            URI uri = URI.create(urls[i].replace("#top", ""));
+            paths[i] = uri.getRawPath() + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        }
+    }
+
+    @Benchmark
+    public RobotsRules parse() {
+        return RobotsRules.parse(robotsTxt, RobotsParser.DEFAULT_AGENT);
+    }
+
+    // Compiled rules only
+    @Benchmark
+    public void rulesIsAllowed(Blackhole bh) {
+        for (String path : paths) {
+            bh.consume(rules.isAllowed(path));
+        }
+    }
+
+    // Full lookup as the crawler does it: URL parsing, cache hit, rule check
+    @Benchmark
+    public void cachedIsAllowed(Blackhole bh) {
+        for (String url : urls) {
+            bh.consume(cached.isAllowed(url));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package sandeep.webcrawler.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import sandeep.webcrawler.seen.SeenSet;
+import sandeep.webcrawler.seen.SeenSetMode;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seen-set insert and lookup with 8 threads hitting one shared set, as
+ * crawl workers do. Each thread inserts its own URL stream, and lookups
+ * hit a pre-filled set half the time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class SeenSetBenchmark {
+
+    static final int PREFILLED = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        @Param({"EXACT", "BLOOM"})
+        public SeenSetMode mode;
+
+        SeenSet set;
+        final AtomicInteger threadIds = new AtomicInteger();
+
+        // Re-created per iteration so inserts keep finding new URLs at a realistic load factor
+        @Setup(Level.Iteration)
+        public void setup() {
+            set = mode.create(10_000_000);
+            for (int i = 0; i < PREFILLED; i++) {
+                set.addIfAbsent("https://example.com/page/" + i);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        String prefix;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setup(Shared shared) {
+            prefix = "https://example.com/t" + shared.threadIds.incrementAndGet() + "/";
+            next = 0;
+        }
+    }
+
+    @Benchmark
+    public boolean addIfAbsent(Shared shared, Cursor cursor) {
+        return shared.set.addIfAbsent(cursor.prefix + cursor.next++);
+    }
+
+    @Benchmark
+    public boolean contains(Shared shared, Cursor cursor) {
+        // Even: present, odd: absent
+        int i = cursor.next++;
+        return shared.set.contains("https://example.com/page/" + ((i & 1) == 0 ? i % PREFILLED : PREFILLED + i));
+    }
+}
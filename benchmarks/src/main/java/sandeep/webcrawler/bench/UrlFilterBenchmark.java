@@ -0,0 +1,107 @@
+package sandeep.webcrawler.bench;
+
+import org.jsoup.internal.StringUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sandeep.webcrawler.url.UrlFilter;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-link work done after extraction: resolving relative hrefs,
+ * canonicalizing, and the validity and same-domain checks. Scores are per
+ * batch of {@link #BATCH} URLs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UrlFilterBenchmark {
+
+    static final int BATCH = 1024;
+
+    private String[] urls;
+    private String[] relative;
+    private URL base;
+    private UrlFilter filter;
+
+    @Setup
+    public void setup() throws MalformedURLException {
+        List<String> generated = Fixtures.urls(BATCH, 42);
+        urls = generated.toArray(new String[0]);
+        relative = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            relative[i] = switch (i % 4) {
+                case 0 -> "../section" + i + "/page.html";
+                case 1 -> "/abs/path/" + i + "?q=" + i;
+                case 2 -> "page-" + i + ".html#frag";
+                default -> "./a/./b/../c/" + i;
+            };
+        }
+        base = URI.create("https://example.com/dir/sub/index.html").toURL();
+        filter = new UrlFilter("https://example.com/");
+    }
+
+    @Benchmark
+    public void isValidUrl(Blackhole bh) {
+        for (String url : urls) {
+            bh.consume(filter.isValidUrl(url));
+        }
+    }
+
+    @Benchmark
+    public void isSameDomain(Blackhole bh) {
+        for (String url : urls) {
+            bh.consume(filter.isSameDomain(url));
+        }
+    }
+
+    @Benchmark
+    public void accept(Blackhole bh) {
+        for (String url : urls) {
+            bh.consume(filter.accept(url));
+        }
+    }
+
+    // Canonical form of every accepted link, as the crawler queues them
+    @Benchmark
+    public void canonicalize(Blackhole bh) {
+        for (String url : urls) {
+            bh.consume(filter.canonicalize(url));
+        }
+    }
+
+    // What both extractors do to turn an href into an absolute URL
+    @Benchmark
+    public void resolveRelative(Blackhole bh) throws MalformedURLException {
+        for (String href : relative) {
+            bh.consume(StringUtil.resolve(base, href));
+        }
+    }
+
+    @Benchmark
+    public void uriNormalize(Blackhole bh) {
+        for (String url : urls) {
+            try {
+                bh.consume(new URI(url).normalize().toString());
+            } catch (Exception e) {
+                bh.consume(e);
+            }
+        }
+    }
+}
@@ -6,10 +6,19 @@ function App() {
   const [maxPages, setMaxPages] = useState(50);
   const [numThreads, setNumThreads] = useState(4);
   const [maxDepth, setMaxDepth] = useState(2);
+  const [executionMode, setExecutionMode] = useState('PLATFORM');
+  const [resume, setResume] = useState(false);
+  const [conditionalRecrawl, setConditionalRecrawl] = useState(false);
   const [status, setStatus] = useState('Idle');
   const [results, setResults] = useState([]); // Array to store crawled URLs or data
+  const [jobId, setJobId] = useState(null);
 
   const pollingRef = useRef();
+  const jobRef = useRef();         // Job whose results are being shown
+  const sourceRef = useRef();
+  const pendingRef = useRef([]);   // URLs received since the last render
+  const receivedRef = useRef(0);   // Number of results received so far, used as the next offset
+  const flushRef = useRef();
 
   const startCrawl = async () => {
     if (!url) {
@@ -19,33 +28,98 @@ function App() {
 
     setStatus('Starting crawl...');
     setResults([]);  // Clear previous results if any
+    pendingRef.current = [];
+    receivedRef.current = 0;
 
     try {
-      await fetch('http://localhost:8080/api/crawl/start', {
+      const response = await fetch('http://localhost:8080/api/crawl/start', {
         method: 'POST',
         headers: { 'Content-Type': 'application/json' },
-        body: JSON.stringify({ url, maxPages, numThreads, maxDepth }),
+        body: JSON.stringify({ url, maxPages, numThreads, maxDepth, executionMode, resume, conditionalRecrawl }),
       });
-      pollStatus();
+      const data = await response.json();
+      if (!data.jobId) {
+        setStatus(data.message);
+        return;
+      }
+      jobRef.current = data.jobId;
+      setJobId(data.jobId);
+      streamResults();
     } catch (error) {
       setStatus('Error starting crawl: ' + error.message);
     }
   };
 
-  // Poll backend for crawl status and results
+  const stopCrawl = async () => {
+    if (!jobRef.current) return;
+    try {
+      await fetch(`http://localhost:8080/api/crawl/jobs/${jobRef.current}/stop`, { method: 'POST' });
+    } catch (error) {
+      setStatus('Error stopping crawl: ' + error.message);
+    }
+  };
+
+  const stopUpdates = () => {
+    if (sourceRef.current) sourceRef.current.close();
+    clearInterval(pollingRef.current);
+    clearInterval(flushRef.current);
+    flushResults();
+  };
+
+  // Append buffered URLs in one render instead of one render per event
+  const flushResults = () => {
+    if (pendingRef.current.length === 0) return;
+    const batch = pendingRef.current;
+    pendingRef.current = [];
+    setResults(prev => prev.concat(batch));
+  };
+
+  const isFinished = (s) => s === 'Completed' || s === 'Stopped';
+
+  // Receive each crawled URL as the backend publishes it
+  const streamResults = () => {
+    stopUpdates();
+    flushRef.current = setInterval(flushResults, 250);
+
+    const source = new EventSource(
+      `http://localhost:8080/api/crawl/jobs/${jobRef.current}/stream?offset=${receivedRef.current}`);
+    sourceRef.current = source;
+
+    source.addEventListener('page', e => {
+      // Event ids are result indexes; skip anything already received
+      if (Number(e.lastEventId) < receivedRef.current) return;
+      receivedRef.current = Number(e.lastEventId) + 1;
+      pendingRef.current.push(e.data);
+    });
+    source.addEventListener('status', e => {
+      setStatus(e.data);
+      if (isFinished(e.data)) stopUpdates();
+    });
+    source.onerror = () => {
+      // EventSource retries on its own; only fall back once it has given up
+      if (source.readyState === EventSource.CLOSED) pollStatus();
+    };
+  };
+
+  // Fallback: poll backend for the results added since the last poll
   const pollStatus = () => {
-    if (pollingRef.current) clearInterval(pollingRef.current);
+    stopUpdates();
 
     pollingRef.current = setInterval(async () => {
       try {
-        const response = await fetch('http://localhost:8080/api/crawl/status');
+        const response = await fetch(
+          `http://localhost:8080/api/crawl/jobs/${jobRef.current}/status?offset=${receivedRef.current}`);
         const data = await response.json();
 
         setStatus(data.status);
-        if (data.results) setResults(data.results);
+        if (data.results && data.results.length > 0) {
+          pendingRef.current.push(...data.results);
+          flushResults();
+        }
+        receivedRef.current = data.total;
 
         // Stop polling when crawl completes or idle
-        if (data.status === 'Completed' || data.status === 'Idle') {
+        if (isFinished(data.status)) {
           clearInterval(pollingRef.current);
         }
       } catch (error) {
@@ -55,9 +129,9 @@ function App() {
     }, 2000);
   };
 
-  // Clean up polling on component unmount
+  // Clean up the stream and polling on component unmount
   useEffect(() => {
-    return () => clearInterval(pollingRef.current);
+    return () => stopUpdates();
   }, []);
 
   return (
@@ -92,6 +166,13 @@ function App() {
         style={{ width: '100px' }}
       /><br /><br />
 
+      <label>Execution Mode:</label><br />
+      <select value={executionMode} onChange={e => setExecutionMode(e.target.value)}>
+        <option value="PLATFORM">Platform threads</option>
+        <option value="VIRTUAL">Virtual threads</option>
+        <option value="PIPELINED">Pipelined fetch/parse</option>
+      </select><br /><br />
+
       <label>Max Depth:</label><br />
       <input
         type="number"
@@ -101,13 +182,27 @@ function App() {
         style={{ width: '100px' }}
       /><br /><br />
 
+      <label>
+        <input type="checkbox" checked={resume} onChange={e => setResume(e.target.checked)} />
+        {' '}Resume previous crawl of this URL
+      </label><br />
+      <label>
+        <input type="checkbox" checked={conditionalRecrawl} onChange={e => setConditionalRecrawl(e.target.checked)} />
+        {' '}Skip pages unchanged since the last crawl
+      </label><br /><br />
+
       <button onClick={startCrawl} style={{ padding: '10px 20px', cursor: 'pointer' }}>
         Start Crawl
       </button>
+      {' '}
+      <button onClick={stopCrawl} disabled={!jobId} style={{ padding: '10px 20px', cursor: 'pointer' }}>
+        Stop Crawl
+      </button>
 
       {/* Status display */}
       <div style={{ marginTop: '20px', whiteSpace: 'pre-wrap' }}>
         <strong>Status:</strong><br />{status}
+        {jobId && <><br /><small>Job {jobId}</small></>}
       </div>
 
       {/* Results display */}
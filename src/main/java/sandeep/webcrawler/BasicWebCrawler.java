@@ -1,44 +1,64 @@
 package sandeep.webcrawler;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import sandeep.webcrawler.export.PageSink;
+import sandeep.webcrawler.extract.PageSummary;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.fetch.HttpClientFetcher;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Preset of {@link ConcurrentWebCrawler}: fetches a single page and prints
+ * the links on it without following them.
+ */
 public class BasicWebCrawler {
     
     private Set<String> visitedUrls = new HashSet<>();
+    private final Fetcher fetcher;
+    
+    public BasicWebCrawler() {
+        this(new HttpClientFetcher(5000));
+    }
+    
+    public BasicWebCrawler(Fetcher fetcher) {
+        this.fetcher = fetcher;
+    }
     
     public void crawl(String url) {
-        if (visitedUrls.contains(url)) {
+        if (!visitedUrls.add(url)) {
             return;
         }
+        System.out.println("Crawling: " + url);
         
         try {
-            visitedUrls.add(url);
-            System.out.println("Crawling: " + url);
-            
-            Document document = Jsoup.connect(url)
-                .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                .timeout(5000)
-                .get();
-            
-            Elements links = document.select("a[href]");
-            System.out.println("Found " + links.size() + " links");
-            
-            for (Element link : links) {
-                String absoluteUrl = link.absUrl("href");
-                System.out.println("  - " + absoluteUrl);
-            }
-            
+            ConcurrentWebCrawler.builder(url)
+                    .fetcher(fetcher)
+                    .maxPages(1)
+                    .threads(1)
+                    .maxDepth(0)
+                    .sink(new LinkPrinter())
+                    .build()
+                    .crawl(url);
         } catch (IOException e) {
             System.err.println("Error: " + e.getMessage());
         }
     }
     
+    private static class LinkPrinter implements PageSink {
+        @Override
+        public void write(String url, PageSummary page) {
+            System.out.println("Found " + page.getLinks().size() + " links");
+            for (String link : page.getLinks()) {
+                System.out.println("  - " + link);
+            }
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+    
     public static void main(String[] args) {
         BasicWebCrawler crawler = new BasicWebCrawler();
         crawler.crawl("https://example.com");
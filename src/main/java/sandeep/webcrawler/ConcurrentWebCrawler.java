@@ -1,32 +1,135 @@
 package sandeep.webcrawler;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sandeep.webcrawler.cache.PageMetadata;
+import sandeep.webcrawler.cache.PageMetadataStore;
+import sandeep.webcrawler.checkpoint.CrawlCheckpoint;
+import sandeep.webcrawler.cluster.ClusterNode;
+import sandeep.webcrawler.dedup.NearDuplicateDetector;
+import sandeep.webcrawler.dedup.SimHash;
+import sandeep.webcrawler.dns.DnsCache;
+import sandeep.webcrawler.export.PageSink;
+import sandeep.webcrawler.extract.ExtractionMode;
+import sandeep.webcrawler.extract.PageSummary;
+import sandeep.webcrawler.extract.StreamingLinkExtractor;
+import sandeep.webcrawler.fetch.FetchResponse;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.fetch.HttpClientFetcher;
+import sandeep.webcrawler.frontier.CrawlTask;
+import sandeep.webcrawler.frontier.Frontier;
+import sandeep.webcrawler.frontier.FrontierOrder;
+import sandeep.webcrawler.frontier.HostRateController;
+import sandeep.webcrawler.frontier.PolitenessFrontier;
+import sandeep.webcrawler.frontier.RetryQueue;
+import sandeep.webcrawler.frontier.SpillingFrontier;
+import sandeep.webcrawler.metrics.CrawlMetrics;
+import sandeep.webcrawler.metrics.RateLimitedLogger;
+import sandeep.webcrawler.robots.RobotsParser;
+import sandeep.webcrawler.schedule.FairWorkerPool;
+import sandeep.webcrawler.schedule.OutstandingWork;
+import sandeep.webcrawler.scoring.PatternScorer;
+import sandeep.webcrawler.scoring.UrlScorer;
+import sandeep.webcrawler.scoring.WeightedScorer;
+import sandeep.webcrawler.seen.SeenSet;
+import sandeep.webcrawler.seen.SeenSetMode;
+import sandeep.webcrawler.url.UrlCanonicalizer;
+import sandeep.webcrawler.url.UrlFilter;
 
+import java.io.Closeable;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+/**
+ * The crawl engine behind the REST jobs and the preset crawlers. Fetcher,
+ * frontier order, seen-set, link filters, extraction and sinks are all
+ * configurable, either through the setters before crawl() or through
+ * {@link #builder(String)}.
+ */
 public class ConcurrentWebCrawler {
 
+    private static final Logger log = LoggerFactory.getLogger(ConcurrentWebCrawler.class);
+    // Per-page lines beyond this rate are counted instead of printed
+    private static final int PAGE_LOG_LINES_PER_SECOND = 20;
+    private static final RateLimitedLogger pageLog = new RateLimitedLogger(log, PAGE_LOG_LINES_PER_SECOND);
+
     private final int maxDepth;
     private final int numThreads;
     private final int maxPages;
+    // Starting gap for hosts whose robots.txt has no Crawl-delay; healthy hosts earn shorter gaps
     private static final int CRAWL_DELAY_MS = 500;
+    private static final int MIN_CRAWL_DELAY_MS = 100;
+    // Fetches that fail with 429, 502-504 or a timeout are tried this many more times
+    private static final int MAX_RETRIES = 3;
+    private static final long RETRY_BASE_DELAY_MS = 1_000;
+    private static final long RETRY_MAX_DELAY_MS = 60_000;
     private static final int CONNECTION_TIMEOUT_MS = 10000;
+    private static final int DEFAULT_MAX_CONCURRENCY = 256;
+    private static final int DISK_FRONTIER_HEAD_CAPACITY = 10_000;
+    private static final long CHECKPOINT_INTERVAL_MS = 10_000;
+    // Fetched pages that may wait per parse thread before fetchers block
+    private static final int PARSE_QUEUE_PER_THREAD = 16;
+    private static final int PARSE_BATCH = 8;
+    private static final int DUPLICATE_PATTERNS_LOGGED = 5;
+    // BEST_FIRST queues up to this many times maxPages URLs and fetches the best maxPages of them
+    private static final int BEST_FIRST_DISCOVERY_FACTOR = 4;
 
-    private final Set<String> visitedUrls = Collections.synchronizedSet(new HashSet<>());
-    private final Queue<CrawlTask> taskQueue = new ConcurrentLinkedQueue<>();
-    private final ExecutorService executorService;
+    private SeenSet visitedUrls;
+    private SeenSetMode seenSetMode = SeenSetMode.EXACT;
+    // URLs that may be queued; maxPages except in BEST_FIRST order
+    private int discoveryLimit;
+    // First attempts fetched so far, counted against maxPages in BEST_FIRST order
+    private final AtomicInteger pagesFetched = new AtomicInteger();
+    private RobotsParser robotsParser = new RobotsParser();
+    private final HostRateController rateController =
+            new HostRateController(CRAWL_DELAY_MS, host -> robotsParser.getCrawlDelay(host));
+    private final PolitenessFrontier politenessFrontier =
+            new PolitenessFrontier(CRAWL_DELAY_MS, host -> robotsParser.getCrawlDelay(host));
+    private Frontier frontier = politenessFrontier;
+    private RetryQueue retries;
+    private volatile ExecutorService executorService;
+    private volatile ExecutorService parseExecutorService;
+    private int parseThreads = Runtime.getRuntime().availableProcessors();
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private Fetcher fetcher = new HttpClientFetcher(CONNECTION_TIMEOUT_MS);
+    private final String seedUrl;
     private final String seedDomain;
-    private final AtomicInteger processingCount = new AtomicInteger(0);
+    private final UrlFilter urlFilter;
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+    private CrawlCheckpoint checkpoint;
+    private boolean resume;
+    private PageMetadataStore pageCache;
+    private boolean ownsPageCache;
+    private FairWorkerPool workerPool;
+    private CrawlMetrics metrics;
+    private ExtractionMode extractionMode = ExtractionMode.DOM;
+    private final StreamingLinkExtractor streamingExtractor = new StreamingLinkExtractor();
+    // Queued plus in-flight tasks; reaching zero shuts the frontier down and ends the crawl
+    private final OutstandingWork outstanding = new OutstandingWork(() -> frontier.shutdown());
     private volatile boolean shouldStop = false;
+    private ClusterNode cluster;
+    private NearDuplicateDetector duplicateDetector;
+    private FrontierOrder frontierOrder = FrontierOrder.FIFO;
+    private UrlScorer urlScorer;
+    private PatternScorer urlPatterns;
+    // Set once crawl() has queued its seed; until then a cluster member must not look idle
+    private volatile boolean seeded = false;
+
+    private boolean sameDomainOnly = true;
+    private Predicate<String> linkFilter;
+    private PageSink sink;
+    private DnsCache dnsCache;
 
     // Listener to report crawled URLs externally
     private Consumer<String> resultListener;
@@ -35,198 +138,1087 @@ public class ConcurrentWebCrawler {
         this.maxDepth = maxDepth;
         this.numThreads = numThreads;
         this.maxPages = maxPages;
-        this.executorService = Executors.newFixedThreadPool(numThreads);
-        this.seedDomain = extractDomain(seedUrl);
+        this.seedUrl = seedUrl;
+        this.urlFilter = new UrlFilter(seedUrl);
+        this.seedDomain = urlFilter.getSeedDomain();
+        this.visitedUrls = SeenSetMode.EXACT.create(maxPages);
+        this.discoveryLimit = maxPages;
+        rateController.setMinDelayMs(MIN_CRAWL_DELAY_MS);
+        politenessFrontier.setRateController(rateController);
     }
 
     public void setResultListener(Consumer<String> listener) {
         this.resultListener = listener;
     }
 
+    public void setFetcher(Fetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    // With false, links to any host are followed, still subject to the link filter and robots.txt
+    public void setSameDomainOnly(boolean sameDomainOnly) {
+        this.sameDomainOnly = sameDomainOnly;
+    }
+
+    // Extra test on the canonical form of each link; links it rejects are not followed
+    public void setLinkFilter(Predicate<String> linkFilter) {
+        this.linkFilter = linkFilter;
+    }
+
+    /**
+     * Resolves each host when its first URL is queued, so workers do not
+     * block on DNS, and fails fetches to hosts that do not resolve without
+     * trying to connect. Resolution time is recorded apart from fetch
+     * latency. Off by default; may be shared between crawls. Must be called
+     * before crawl().
+     */
+    public void setDnsCache(DnsCache dnsCache) {
+        this.dnsCache = dnsCache;
+    }
+
+    /**
+     * Receives the title, description, headings and links of every parsed
+     * page, near duplicates included. Pages reused unchanged from the page
+     * cache are not written. The caller opens and closes the sink.
+     */
+    public void setSink(PageSink sink) {
+        this.sink = sink;
+    }
+
+    // Defaults to CrawlMetrics.global(); must be called before crawl()
+    public void setMetrics(CrawlMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Lets several crawls share one robots.txt cache; must be called before crawl()
+    public void setRobotsParser(RobotsParser robotsParser) {
+        this.robotsParser = robotsParser;
+    }
+
+    // Must be called before crawl(); BLOOM bounds memory for multi-million URL crawls
+    public void setSeenSetMode(SeenSetMode mode) {
+        this.seenSetMode = mode != null ? mode : SeenSetMode.EXACT;
+        this.visitedUrls = seenSetMode.create(maxPages);
+    }
+
+    public void setExtractionMode(ExtractionMode extractionMode) {
+        this.extractionMode = extractionMode != null ? extractionMode : ExtractionMode.DOM;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode != null ? executionMode : ExecutionMode.PLATFORM;
+    }
+
+    // Global limit on in-flight fetches in VIRTUAL mode
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency > 0 ? maxConcurrency : DEFAULT_MAX_CONCURRENCY;
+    }
+
+    // Size of the parse pool in PIPELINED mode; numThreads sizes the fetch pool
+    public void setParseThreads(int parseThreads) {
+        this.parseThreads = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Compares each page's text against the pages crawled so far and does
+     * not follow the links of near duplicates; see the detector for the
+     * per-path-pattern duplicate rates. Off by default. Must be called
+     * before crawl().
+     */
+    public void setNearDuplicateDetector(NearDuplicateDetector duplicateDetector) {
+        this.duplicateDetector = duplicateDetector;
+    }
+
+    /**
+     * FIFO crawls breadth-first. BEST_FIRST takes the highest-scoring URL
+     * first and spends maxPages on pages fetched rather than URLs queued.
+     * Must be called before crawl().
+     */
+    public void setFrontierOrder(FrontierOrder frontierOrder) {
+        this.frontierOrder = frontierOrder != null ? frontierOrder : FrontierOrder.FIFO;
+    }
+
+    /**
+     * Scorer for the BEST_FIRST order. Defaults to a mix of depth, inlinks
+     * seen so far, sitemap priority and the URL patterns, if any. Must be
+     * called before crawl().
+     */
+    public void setUrlScorer(UrlScorer urlScorer) {
+        this.urlScorer = urlScorer;
+    }
+
+    // Pattern rules added to the default BEST_FIRST scorer; ignored with setUrlScorer()
+    public void setUrlPatterns(PatternScorer urlPatterns) {
+        this.urlPatterns = urlPatterns;
+    }
+
+    // Upper bound for each host's adaptive in-flight limit, which starts at one
+    public void setMaxPerHost(int maxPerHost) {
+        politenessFrontier.setMaxInFlightPerHost(maxPerHost);
+        rateController.setMaxConcurrency(maxPerHost);
+    }
+
+    // Starting gap between requests to a host whose robots.txt has no Crawl-delay; must be called before crawl()
+    public void setPolitenessDelay(long delayMs) {
+        politenessFrontier.setDefaultDelayMs(delayMs);
+        rateController.setInitialDelayMs(delayMs);
+    }
+
+    // Shortest gap a consistently fast host is brought down to; equal to the politeness delay keeps the gap fixed
+    public void setMinPolitenessDelay(long delayMs) {
+        rateController.setMinDelayMs(delayMs);
+    }
+
+    /**
+     * Keeps only a bounded head of the frontier on heap and spills the rest
+     * to segment files under the given directory. Must be called before crawl().
+     */
+    public void enableDiskFrontier(Path directory) throws IOException {
+        frontier = new SpillingFrontier(politenessFrontier, directory, DISK_FRONTIER_HEAD_CAPACITY);
+    }
+
+    /**
+     * Journals the frontier and seen-set under the given directory every
+     * few seconds. With {@code resume}, a previous journal for the same seed
+     * URL is replayed instead of starting from the seed. Must be called
+     * before crawl().
+     */
+    public void enableCheckpoints(Path directory, boolean resume) throws IOException {
+        this.checkpoint = new CrawlCheckpoint(directory, seedUrl, CHECKPOINT_INTERVAL_MS);
+        this.resume = resume;
+    }
+
+    /**
+     * Re-crawl mode: pages are fetched with If-None-Match/If-Modified-Since
+     * from the given store, and a 304 or an unchanged body skips parsing
+     * and follows the outlinks recorded last time instead.
+     */
+    public void setPageCache(PageMetadataStore pageCache) {
+        setPageCache(pageCache, true);
+    }
+
+    // Pass closeWhenDone = false when the store is shared with other crawls
+    public void setPageCache(PageMetadataStore pageCache, boolean closeWhenDone) {
+        this.pageCache = pageCache;
+        this.ownsPageCache = closeWhenDone;
+    }
+
+    /**
+     * Runs this crawl's pages on a pool shared with other crawls instead of
+     * its own threads; numThreads caps how many of the pool's workers it
+     * uses at once. Replaces the execution mode. Must be called before crawl().
+     */
+    public void setWorkerPool(FairWorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+
+    /**
+     * Crawls only the hosts the given member owns and forwards links for the
+     * others to their owners. Every member runs crawl() with the same seed
+     * URL; only the seed host's owner queues it, and crawl() returns once
+     * the whole cluster has run out of work. maxPages applies per member.
+     * Starts the member listening for its peers, so must be called before
+     * crawl().
+     */
+    public void joinCluster(ClusterNode cluster) throws IOException {
+        this.cluster = cluster;
+        // Held until the cluster is done, since links can still arrive after this member runs dry
+        outstanding.register();
+        cluster.start(new ClusterListener());
+    }
+
     public void stop() {
         shouldStop = true;
-        executorService.shutdownNow();
+        frontier.shutdown();
+        for (ExecutorService executor : new ExecutorService[] {executorService, parseExecutorService}) {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
     }
 
-    private String extractDomain(String url) {
+    public void crawl(String startUrl) {
+        String mode;
+        if (workerPool != null) {
+            mode = "shared worker pool, up to " + numThreads + " of " + workerPool.getThreadCount() + " workers";
+        } else if (executionMode == ExecutionMode.VIRTUAL) {
+            mode = "virtual threads, max in-flight " + maxConcurrency;
+        } else if (executionMode == ExecutionMode.PIPELINED) {
+            mode = numThreads + " fetch threads, " + parseThreads + " parse threads";
+        } else {
+            mode = numThreads + " threads";
+        }
+        if (cluster != null) {
+            mode += ", cluster member " + cluster.getSelf() + " of " + cluster.size();
+        }
+        if (frontierOrder == FrontierOrder.BEST_FIRST) {
+            mode += ", best-first";
+            if (urlScorer == null) {
+                urlScorer = WeightedScorer.defaults(fetcher, urlPatterns);
+            }
+            politenessFrontier.setUrlScorer(urlScorer);
+            // Room for better URLs found later to overtake the first maxPages discovered
+            discoveryLimit = (int) Math.min(Integer.MAX_VALUE, (long) maxPages * BEST_FIRST_DISCOVERY_FACTOR);
+            visitedUrls = seenSetMode.create(discoveryLimit);
+        }
+        log.info("Crawl started: {} (domain {}, max pages {}, max depth {}, {})",
+                startUrl, seedDomain, maxPages, maxDepth, mode);
+        if (metrics == null) {
+            metrics = CrawlMetrics.global();
+        }
+
+        // Same spelling as the links that point back at it
+        String canonicalStart = canonicalizer.canonicalize(startUrl);
+        if (canonicalStart != null) {
+            startUrl = canonicalStart;
+        }
+
+        // Held while seeding, so that a crawl with nothing to seed still completes
+        outstanding.register();
+        retries = new RetryQueue(frontier, RETRY_BASE_DELAY_MS, RETRY_MAX_DELAY_MS);
+        List<CrawlTask> resumed = startCheckpoint();
+        if (resumed != null) {
+            log.info("Resuming {} pending URLs from {}", resumed.size(), checkpoint.getFile());
+            outstanding.register(resumed.size());
+            resumed.forEach(frontier::offer);
+        } else if (cluster != null && !cluster.isLocal(UrlCanonicalizer.host(startUrl))) {
+            log.info("Seed host is owned by cluster member {}, waiting for forwarded links",
+                    cluster.owner(UrlCanonicalizer.host(startUrl)));
+        } else if (!isAllowed(startUrl, UrlCanonicalizer.host(startUrl))) {
+            log.warn("✗ {} is disallowed by robots.txt", startUrl);
+        } else {
+            CrawlTask seed = new CrawlTask(startUrl, 0);
+            visitedUrls.addIfAbsent(startUrl);
+            outstanding.register();
+            frontier.offer(seed);
+            if (checkpoint != null) {
+                checkpoint.recordDiscovered(seed);
+            }
+        }
+        seeded = true;
+        outstanding.arrive();
+
+        CrawlMetrics.Watch watch = metrics.watch(frontier, visitedUrls);
         try {
-            String host = new URI(url).getHost();
-            return host != null ? host.toLowerCase() : "";
-        } catch (URISyntaxException e) {
-            return "";
+            if (workerPool != null) {
+                runShared();
+            } else if (executionMode == ExecutionMode.VIRTUAL) {
+                runVirtual();
+            } else if (executionMode == ExecutionMode.PIPELINED) {
+                runPipelined();
+            } else {
+                runPlatform();
+            }
+        } finally {
+            watch.close();
+        }
+
+        printResults();
+        if (retries != null) {
+            retries.close();
         }
+        closeFrontier();
+        closeCheckpoint();
+        closePageCache();
     }
 
-    private boolean isSameDomain(String url) {
+    private void closePageCache() {
+        if (pageCache != null && ownsPageCache) {
+            try {
+                pageCache.close();
+            } catch (IOException e) {
+                log.error("Could not save page cache: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Returns the pending tasks when resuming from a journal, null when starting from the seed
+    private List<CrawlTask> startCheckpoint() {
+        if (checkpoint == null) {
+            return null;
+        }
         try {
-            String domain = extractDomain(url);
-            if (domain.isEmpty() || seedDomain.isEmpty()) {
-                return false;
+            if (resume && checkpoint.exists()) {
+                return checkpoint.resume(visitedUrls);
             }
-            return domain.contains(seedDomain) || seedDomain.contains(domain);
-        } catch (Exception e) {
-            return false;
+            checkpoint.startFresh();
+        } catch (IOException e) {
+            log.error("Checkpointing disabled: {}", e.getMessage());
+            checkpoint = null;
         }
+        return null;
     }
 
-    private boolean isValidUrl(String url) {
-        if (url == null || url.isEmpty()) {
-            return false;
+    private void closeCheckpoint() {
+        if (checkpoint != null) {
+            try {
+                checkpoint.close();
+            } catch (IOException e) {
+                log.error("Could not write final checkpoint: {}", e.getMessage());
+            }
         }
-        url = url.toLowerCase();
-        if (!url.startsWith("http://") && !url.startsWith("https://")) {
-            return false;
+    }
+
+    private void finishTask(CrawlTask task) {
+        frontier.complete(task);
+        taskDone(task);
+    }
+
+    // After the task's links have been queued; the last one ends the crawl
+    private void taskDone(CrawlTask task) {
+        // A task cut short by stop() or waiting for a retry stays pending in the journal
+        if (checkpoint != null && !shouldStop && !task.isRetried()) {
+            checkpoint.recordCompleted(task.getUrl());
         }
-        if (url.contains("#") || url.contains(".pdf") || url.contains(".jpg") ||
-                url.contains(".png") || url.contains(".zip")) {
-            return false;
+        outstanding.arrive();
+    }
+
+    // All at once, since completing them one by one would wait out a host delay for each
+    private void dropUnfetched() {
+        List<CrawlTask> dropped = new ArrayList<>();
+        frontier.drainTo(dropped);
+        for (CrawlTask task : dropped) {
+            if (task.getAttempt() > 0) {
+                // Retries were already counted against the budget on their first attempt
+                frontier.offer(task);
+            } else {
+                taskDone(task);
+            }
         }
-        return true;
     }
 
-    public void crawl(String startUrl) {
-        System.out.println("\n" + "=".repeat(70));
-        System.out.println("WEB CRAWLER STARTED");
-        System.out.println("=".repeat(70));
-        System.out.println("Target URL: " + startUrl);
-        System.out.println("Seed Domain: " + seedDomain);
-        System.out.println("Max Pages: " + maxPages);
-        System.out.println("Max Depth: " + maxDepth);
-        System.out.println("Threads: " + numThreads);
-        System.out.println("=".repeat(70) + "\n");
-
-        taskQueue.offer(new CrawlTask(startUrl, 0));
-        visitedUrls.add(startUrl);
-
-        List<Future<?>> futures = new ArrayList<>();
+    private void closeFrontier() {
+        if (frontier instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                log.warn("Could not clean up frontier: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void runPlatform() {
+        executorService = Executors.newFixedThreadPool(numThreads);
         for (int i = 0; i < numThreads; i++) {
-            futures.add(executorService.submit(this::crawlWorker));
+            executorService.submit(this::crawlWorker);
         }
 
         try {
+            // Workers return once the frontier shuts down, however long the crawl takes
             executorService.shutdown();
-            if (!executorService.awaitTermination(5, TimeUnit.MINUTES)) {
-                System.out.println("\n⚠️  Timeout reached - shutting down...");
-                shouldStop = true;
-                executorService.shutdownNow();
-            }
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
         } catch (InterruptedException e) {
-            System.err.println("Crawler interrupted: " + e.getMessage());
+            log.warn("Crawler interrupted: {}", e.getMessage());
             shouldStop = true;
             executorService.shutdownNow();
         }
+    }
 
-        printResults();
+    /**
+     * Single dispatcher that hands each task to its own virtual thread. The
+     * fetch blocks only that virtual thread, so in-flight requests are capped
+     * by the global semaphore and the frontier's per-host limit rather than by
+     * a platform thread count.
+     */
+    private void runVirtual() {
+        Semaphore permits = new Semaphore(maxConcurrency);
+        executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+        try {
+            while (!shouldStop) {
+                permits.acquire();
+                CrawlTask task = frontier.poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                if (task == null) {
+                    break; // frontier shut down: nothing queued or in flight
+                }
+
+                executorService.submit(() -> {
+                    try {
+                        crawlUrl(task);
+                    } finally {
+                        finishTask(task);
+                        permits.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            log.warn("Crawler interrupted: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException e) {
+            // stop() shut the executor down while we were dispatching
+        }
+
+        shouldStop = true;
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(CONNECTION_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
     }
 
-    private void printResults() {
-        System.out.println("\n" + "=".repeat(70));
-        System.out.println("CRAWLING COMPLETE");
-        System.out.println("=".repeat(70));
-        System.out.println("Total URLs discovered: " + visitedUrls.size());
-        System.out.println("URLs remaining in queue: " + taskQueue.size());
-        System.out.println("=".repeat(70) + "\n");
+    /**
+     * Fetch threads only download: each releases its host slot as soon as the
+     * response is in and hands the page to a bounded queue, blocking when
+     * the parse pool falls behind. Parse threads take pages off the queue in
+     * batches and do the parsing, filtering and enqueueing. A page counts as
+     * outstanding until it has been parsed, so the frontier cannot shut down
+     * while a queued page may still add links.
+     */
+    private void runPipelined() {
+        BlockingQueue<FetchedPage> parseQueue = new ArrayBlockingQueue<>(parseThreads * PARSE_QUEUE_PER_THREAD);
+        executorService = Executors.newFixedThreadPool(numThreads);
+        parseExecutorService = Executors.newFixedThreadPool(parseThreads);
+        for (int i = 0; i < numThreads; i++) {
+            executorService.submit(() -> fetchWorker(parseQueue));
+        }
+        for (int i = 0; i < parseThreads; i++) {
+            parseExecutorService.submit(() -> parseWorker(parseQueue));
+        }
+
+        try {
+            executorService.shutdown();
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            // Fetchers only finish once every page has been parsed, so parse threads are all waiting in take()
+            shouldStop = true;
+            parseExecutorService.shutdownNow();
+            parseExecutorService.awaitTermination(CONNECTION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            log.warn("Crawler interrupted: {}", e.getMessage());
+            shouldStop = true;
+            executorService.shutdownNow();
+            parseExecutorService.shutdownNow();
+        }
     }
 
-    private void crawlWorker() {
-        while (!shouldStop && visitedUrls.size() < maxPages) {
-            if (taskQueue.isEmpty()) {
-                if (processingCount.get() == 0) {
-                    shouldStop = true;
-                    break;
-                }
-                try {
-                    Thread.sleep(200);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+    private void fetchWorker(BlockingQueue<FetchedPage> parseQueue) {
+        while (!shouldStop) {
+            CrawlTask task;
+            try {
+                task = frontier.poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (task == null) {
+                break;
+            }
+
+            FetchedPage page = null;
+            try {
+                page = fetchPage(task);
+            } catch (RuntimeException e) {
+                // Losing this fetch thread would leave its share of the crawl to the others
+                metrics.error(e);
+                pageLog.warn("✗ {} - {}", e.getClass().getSimpleName(), task.getUrl());
+            } finally {
+                // The host slot frees up as soon as the response is in
+                frontier.complete(task);
+                if (page == null) {
+                    taskDone(task);
                 }
+            }
+            if (page == null) {
                 continue;
             }
+            try {
+                parseQueue.put(page);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
 
-            if (visitedUrls.size() >= maxPages) {
-                shouldStop = true;
+    private void parseWorker(BlockingQueue<FetchedPage> parseQueue) {
+        List<FetchedPage> batch = new ArrayList<>(PARSE_BATCH);
+        while (!shouldStop) {
+            try {
+                batch.add(parseQueue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 break;
             }
+            parseQueue.drainTo(batch, PARSE_BATCH - 1);
+
+            for (FetchedPage page : batch) {
+                try {
+                    processPage(page);
+                } catch (RuntimeException e) {
+                    metrics.error(e);
+                    pageLog.warn("✗ {} - {}", e.getClass().getSimpleName(), page.task().getUrl());
+                } finally {
+                    taskDone(page.task());
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void runShared() {
+        try {
+            workerPool.submit(this::step, numThreads).get();
+        } catch (InterruptedException e) {
+            log.warn("Crawler interrupted: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Crawl failed", e.getCause());
+        } catch (CancellationException | RejectedExecutionException e) {
+            log.warn("Worker pool shut down before the crawl finished");
+        }
+        shouldStop = true;
+    }
+
+    // One page for the shared pool; never waits on the frontier
+    private FairWorkerPool.Step step() {
+        if (shouldStop) {
+            return FairWorkerPool.Step.DONE;
+        }
+        CrawlTask task;
+        try {
+            task = frontier.poll(0, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task = null;
+        }
+
+        if (task == null) {
+            return outstanding.isDone() ? FairWorkerPool.Step.DONE : FairWorkerPool.Step.IDLE;
+        }
+
+        try {
+            crawlUrl(task);
+        } catch (RuntimeException e) {
+            // A bad page must not end the whole job on a shared worker
+            metrics.error(e);
+            pageLog.warn("✗ {} - {}", e.getClass().getSimpleName(), task.getUrl());
+        } finally {
+            finishTask(task);
+        }
+        return FairWorkerPool.Step.WORKED;
+    }
 
-            CrawlTask task = taskQueue.poll();
+    private void printResults() {
+        log.info("Crawl complete: {} URLs discovered, {} remaining in queue", visitedUrls.size(), frontier.size());
+        if (duplicateDetector != null && duplicateDetector.getDuplicates() > 0) {
+            log.info("Near duplicates: {} of {} pages", duplicateDetector.getDuplicates(), duplicateDetector.getPages());
+            duplicateDetector.duplicateRates().entrySet().stream()
+                    .limit(DUPLICATE_PATTERNS_LOGGED)
+                    .filter(e -> e.getValue().duplicates() > 0)
+                    .forEach(e -> log.info("  {}: {} of {} pages ({}%)", e.getKey(), e.getValue().duplicates(),
+                            e.getValue().pages(), Math.round(e.getValue().rate() * 100)));
+        }
+    }
 
-            if (task == null) continue;
+    private void crawlWorker() {
+        while (!shouldStop) {
+            CrawlTask task;
+            try {
+                // Blocks until some host's politeness window has expired or the crawl is over
+                task = frontier.poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (task == null) {
+                break;
+            }
 
-            processingCount.incrementAndGet();
             try {
                 crawlUrl(task);
-                try {
-                    Thread.sleep(CRAWL_DELAY_MS);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+            } catch (RuntimeException e) {
+                // Losing this worker would leave its share of the crawl to the others
+                metrics.error(e);
+                pageLog.warn("✗ {} - {}", e.getClass().getSimpleName(), task.getUrl());
             } finally {
-                processingCount.decrementAndGet();
+                finishTask(task);
             }
         }
     }
 
     private void crawlUrl(CrawlTask task) {
-        if (task.depth > maxDepth || visitedUrls.size() >= maxPages) {
-            return;
+        FetchedPage page = fetchPage(task);
+        if (page != null) {
+            processPage(page);
         }
+    }
 
-        String threadName = Thread.currentThread().getName();
-        System.out.println("[" + threadName + "] Crawling (" + task.depth + "): " + task.url);
+    // A downloaded page waiting to be parsed
+    private record FetchedPage(CrawlTask task, FetchResponse response, PageMetadata previous) {}
+
+    // Network half of a page; null if the task is too deep, the fetch failed or it will be retried
+    private FetchedPage fetchPage(CrawlTask task) {
+        if (task.getDepth() > maxDepth) {
+            return null;
+        }
+        // The lower-scoring URLs left once the budget is spent are dropped without fetching
+        if (discoveryLimit > maxPages && task.getAttempt() == 0 && pagesFetched.incrementAndGet() > maxPages) {
+            dropUnfetched();
+            return null;
+        }
 
         try {
-            Document document = Jsoup.connect(task.url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                    .timeout(CONNECTION_TIMEOUT_MS)
-                    .followRedirects(true)
-                    .ignoreHttpErrors(true)
-                    .get();
-
-            String title = document.title();
+            PageMetadata previous = pageCache != null ? pageCache.get(task.getUrl()) : null;
+            if (dnsCache != null) {
+                long dnsStart = System.nanoTime();
+                dnsCache.resolve(task.getHost());
+                metrics.recordDns(System.nanoTime() - dnsStart);
+            }
+            long fetchStart = System.nanoTime();
+            FetchResponse response = fetcher.fetch(task.getUrl(), conditionalHeaders(previous));
+            long fetchNanos = System.nanoTime() - fetchStart;
+            int status = response.getStatusCode();
+            metrics.recordFetch(task.getHost(), status, fetchNanos, response.getBody().length);
+
+            long retryAfterMs = HostRateController.parseRetryAfter(response.header("retry-after"),
+                    System.currentTimeMillis());
+            rateController.onResponse(task.getHost(), status, fetchNanos, retryAfterMs);
+            if (isRetryable(status) && scheduleRetry(task, retryAfterMs)) {
+                pageLog.warn("↻ {} {} - retry {} of {}", status, task.getUrl(), task.getAttempt() + 1, MAX_RETRIES);
+                return null;
+            }
+            return new FetchedPage(task, response, previous);
+        } catch (IOException e) {
+            metrics.error(e);
+            if (e instanceof HttpTimeoutException || e instanceof SocketTimeoutException || e instanceof ConnectException) {
+                rateController.onFailure(task.getHost());
+                if (scheduleRetry(task, -1)) {
+                    pageLog.warn("↻ {} - {} - retry {} of {}", e.getClass().getSimpleName(), task.getUrl(),
+                            task.getAttempt() + 1, MAX_RETRIES);
+                    return null;
+                }
+            }
+            pageLog.warn("✗ {} - {}", e.getClass().getSimpleName(), task.getUrl());
+            return null;
+        }
+    }
+
+    // Throttling and gateway errors pass; a plain 500 usually means the page itself is broken
+    private static boolean isRetryable(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+    // Hands the next attempt to the retry queue, which offers it back to the frontier once due
+    private boolean scheduleRetry(CrawlTask task, long retryAfterMs) {
+        if (task.getAttempt() >= MAX_RETRIES || shouldStop) {
+            return false;
+        }
+        CrawlTask next = task.retry();
+        // Registered before the failed attempt arrives, so the crawl cannot end while a retry waits
+        outstanding.register();
+        retries.schedule(next, retryAfterMs);
+        metrics.retryScheduled();
+        return true;
+    }
+
+    // CPU half of a page: parse, report, and queue its links
+    private void processPage(FetchedPage page) {
+        CrawlTask task = page.task();
+        FetchResponse response = page.response();
+        PageMetadata previous = page.previous();
+
+        try {
+            if (previous != null && (response.getStatusCode() == 304 ||
+                    previous.getContentHash() == PageMetadata.hash(response.getBody()))) {
+                metrics.pageCrawled("unchanged");
+                if (resultListener != null) {
+                    resultListener.accept(task.getUrl());
+                }
+                int newLinksAdded = 0;
+                if (task.getDepth() < maxDepth && visitedUrls.size() < discoveryLimit) {
+                    newLinksAdded = enqueueLinks(task, previous.getLinks());
+                }
+                pageLog.info("✓ ({}) {} unchanged since last crawl, reused {} cached links, added {} to queue",
+                        task.getDepth(), task.getUrl(), previous.getLinks().size(), newLinksAdded);
+                return;
+            }
+
+            // Error pages are still parsed for links, as with ignoreHttpErrors(true) before
+            long parseStart = System.nanoTime();
+            String title;
+            List<String> rawLinks = new ArrayList<>();
+            SimHash.Builder text = duplicateDetector != null ? new SimHash.Builder() : null;
+            PageSummary summary = null;
+            if (extractionMode == ExtractionMode.STREAMING) {
+                summary = streamingExtractor.extract(response.getBody(),
+                        response.getCharsetName(), response.getUrl(), text);
+                title = summary.getTitle();
+                rawLinks = summary.getLinks();
+            } else {
+                Document document = response.parse();
+                if (sink != null) {
+                    summary = PageSummary.of(document);
+                    rawLinks = summary.getLinks();
+                } else {
+                    for (Element link : document.select("a[href]")) {
+                        rawLinks.add(link.absUrl("href"));
+                    }
+                }
+                title = document.title();
+                if (text != null) {
+                    text.append(document.body().text());
+                }
+            }
+            metrics.recordParse(extractionMode.name(), System.nanoTime() - parseStart);
+            // Recorded like any other page, but its links are most likely the ones already queued
+            boolean duplicate = text != null && duplicateDetector.isNearDuplicate(task.getUrl(), text);
+            metrics.pageCrawled(duplicate ? "duplicate" : "fetched");
+            if (sink != null) {
+                sink.write(task.getUrl(), summary);
+            }
+
             if (title.isEmpty()) {
                 title = "[No Title]";
             }
-            System.out.println("  ✓ Title: " + title);
 
             // Report this URL externally if listener is set
             if (resultListener != null) {
-                resultListener.accept(task.url);
+                resultListener.accept(task.getUrl());
             }
 
-            if (task.depth < maxDepth && visitedUrls.size() < maxPages) {
-                Elements links = document.select("a[href]");
-                int newLinksAdded = 0;
+            List<String> pageLinks = new ArrayList<>();
+            for (String absoluteUrl : rawLinks) {
+                String canonical = sameDomainOnly ? urlFilter.canonicalize(absoluteUrl)
+                        : urlFilter.canonicalizeAnyHost(absoluteUrl);
+                if (canonical != null && (linkFilter == null || linkFilter.test(canonical))) {
+                    pageLinks.add(canonical);
+                }
+            }
 
-                for (Element link : links) {
-                    String absoluteUrl = link.absUrl("href");
+            if (pageCache != null && response.isSuccess()) {
+                pageCache.put(task.getUrl(), new PageMetadata(response.header("etag"),
+                        response.header("last-modified"), PageMetadata.hash(response.getBody()), pageLinks));
+            }
 
-                    if (isValidUrl(absoluteUrl) &&
-                            !visitedUrls.contains(absoluteUrl) &&
-                            isSameDomain(absoluteUrl) &&
-                            visitedUrls.size() < maxPages) {
+            if (duplicate) {
+                pageLog.info("≈ ({}) {} \"{}\" is a near duplicate, not following its {} links",
+                        task.getDepth(), task.getUrl(), title, rawLinks.size());
+                return;
+            }
 
-                        visitedUrls.add(absoluteUrl);
-                        taskQueue.offer(new CrawlTask(absoluteUrl, task.depth + 1));
-                        newLinksAdded++;
-                    }
+            int newLinksAdded = 0;
+            if (task.getDepth() < maxDepth && visitedUrls.size() < discoveryLimit) {
+                newLinksAdded = enqueueLinks(task, pageLinks);
+            }
+            pageLog.info("✓ ({}) {} \"{}\", found {} links, added {} to queue",
+                    task.getDepth(), task.getUrl(), title, rawLinks.size(), newLinksAdded);
+        } catch (IOException e) {
+            metrics.error(e);
+            pageLog.warn("✗ {} - {}", e.getClass().getSimpleName(), task.getUrl());
+        }
+    }
+
+    // Links must already be canonical and accepted by the filters
+    private int enqueueLinks(CrawlTask parent, List<String> links) {
+        int added = 0;
+        UrlScorer scorer = frontierOrder == FrontierOrder.BEST_FIRST ? urlScorer : null;
+        for (String url : links) {
+            if (scorer != null) {
+                scorer.onLink(url);
+            }
+            CrawlTask next = new CrawlTask(url, parent.getDepth() + 1);
+            if (cluster != null && !cluster.isLocal(next.getHost())) {
+                // The owner checks robots.txt and its own seen-set
+                if (cluster.forward(next)) {
+                    added++;
                 }
+            } else if (enqueue(next)) {
+                added++;
+            }
+        }
+        return added;
+    }
 
-                System.out.println("  ✓ Found " + links.size() + " links, added " + newLinksAdded + " to queue");
+    // Queues a task for a host this crawler owns, unless it is disallowed or already seen
+    private boolean enqueue(CrawlTask task) {
+        // Checked before the seen-set so disallowed URLs don't use up maxPages
+        if (visitedUrls.size() >= discoveryLimit || !isAllowed(task.getUrl(), task.getHost())) {
+            return false;
+        }
+        // Again, since the robots.txt check may have waited on a fetch
+        if (visitedUrls.size() >= discoveryLimit || !visitedUrls.addIfAbsent(task.getUrl())) {
+            return false;
+        }
+        // Registered while the parent still holds its own, so the count cannot touch zero in between
+        outstanding.register();
+        try {
+            frontier.offer(task);
+        } catch (RuntimeException e) {
+            outstanding.arrive();
+            throw e;
+        }
+        if (checkpoint != null) {
+            checkpoint.recordDiscovered(task);
+        }
+        return true;
+    }
+
+    // The DNS lookup starts first: for a new host the robots.txt fetch blocks this thread and needs the address too
+    private boolean isAllowed(String url, String host) {
+        if (dnsCache != null) {
+            dnsCache.prefetch(host);
+        }
+        return robotsParser.isAllowed(url);
+    }
+
+    // Cluster side of this crawl: links forwarded by other members, and the cluster-wide end
+    private final class ClusterListener implements ClusterNode.Listener {
+        @Override
+        public void accept(List<CrawlTask> tasks) {
+            for (CrawlTask task : tasks) {
+                if (!shouldStop) {
+                    enqueue(task);
+                }
             }
-        } catch (IOException e) {
-            System.err.println("  ✗ Error: " + e.getClass().getSimpleName() + " - " + task.url);
         }
+
+        @Override
+        public boolean isIdle() {
+            // Only the cluster hold is left
+            return seeded && outstanding.pending() == 1;
+        }
+
+        @Override
+        public void onClusterDone() {
+            outstanding.arrive();
+        }
+    }
+
+    private static Map<String, String> conditionalHeaders(PageMetadata previous) {
+        if (previous == null) {
+            return Map.of();
+        }
+        Map<String, String> headers = new HashMap<>();
+        if (previous.getEtag() != null) {
+            headers.put("If-None-Match", previous.getEtag());
+        }
+        if (previous.getLastModified() != null) {
+            headers.put("If-Modified-Since", previous.getLastModified());
+        }
+        return headers;
     }
 
-    private static class CrawlTask {
-        String url;
-        int depth;
+    public static Builder builder(String seedUrl) {
+        return new Builder(seedUrl);
+    }
+
+    /**
+     * Collects a crawler's configuration; build() applies it through the
+     * setters above. Anything not set keeps the crawler's default.
+     */
+    public static class Builder {
+        private final String seedUrl;
+        private int maxPages = 100;
+        private int numThreads = 4;
+        private int maxDepth = 3;
+        private Fetcher fetcher;
+        private RobotsParser robotsParser;
+        private CrawlMetrics metrics;
+        private ExecutionMode executionMode;
+        private int maxConcurrency;
+        private int maxPerHost;
+        private FairWorkerPool workerPool;
+        private long politenessDelayMs = -1;
+        private FrontierOrder frontierOrder;
+        private UrlScorer urlScorer;
+        private PatternScorer urlPatterns;
+        private Path diskFrontier;
+        private SeenSetMode seenSetMode;
+        private boolean sameDomainOnly = true;
+        private Predicate<String> linkFilter;
+        private ExtractionMode extractionMode;
+        private NearDuplicateDetector duplicateDetector;
+        private PageSink sink;
+        private DnsCache dnsCache;
+        private Consumer<String> resultListener;
+        private Path checkpointDir;
+        private boolean resume;
+        private PageMetadataStore pageCache;
+        private boolean closePageCache;
+
+        private Builder(String seedUrl) {
+            this.seedUrl = seedUrl;
+        }
+
+        public Builder maxPages(int maxPages) {
+            this.maxPages = maxPages;
+            return this;
+        }
+
+        public Builder threads(int numThreads) {
+            this.numThreads = numThreads;
+            return this;
+        }
+
+        // Links are followed from pages shallower than this; the seed is depth 0
+        public Builder maxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        // robots.txt is fetched through the same fetcher unless a robots parser is given
+        public Builder fetcher(Fetcher fetcher) {
+            this.fetcher = fetcher;
+            return this;
+        }
+
+        public Builder robotsParser(RobotsParser robotsParser) {
+            this.robotsParser = robotsParser;
+            return this;
+        }
+
+        public Builder metrics(CrawlMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public Builder executionMode(ExecutionMode executionMode) {
+            this.executionMode = executionMode;
+            return this;
+        }
+
+        public Builder maxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        public Builder maxPerHost(int maxPerHost) {
+            this.maxPerHost = maxPerHost;
+            return this;
+        }
+
+        public Builder workerPool(FairWorkerPool workerPool) {
+            this.workerPool = workerPool;
+            return this;
+        }
+
+        // Fixed gap between requests to a host without a Crawl-delay, instead of the adaptive one
+        public Builder politenessDelay(long delayMs) {
+            this.politenessDelayMs = delayMs;
+            return this;
+        }
+
+        public Builder frontierOrder(FrontierOrder frontierOrder) {
+            this.frontierOrder = frontierOrder;
+            return this;
+        }
+
+        public Builder urlScorer(UrlScorer urlScorer) {
+            this.urlScorer = urlScorer;
+            return this;
+        }
+
+        public Builder urlPatterns(PatternScorer urlPatterns) {
+            this.urlPatterns = urlPatterns;
+            return this;
+        }
+
+        public Builder diskFrontier(Path directory) {
+            this.diskFrontier = directory;
+            return this;
+        }
+
+        public Builder seenSet(SeenSetMode seenSetMode) {
+            this.seenSetMode = seenSetMode;
+            return this;
+        }
+
+        public Builder sameDomainOnly(boolean sameDomainOnly) {
+            this.sameDomainOnly = sameDomainOnly;
+            return this;
+        }
+
+        public Builder linkFilter(Predicate<String> linkFilter) {
+            this.linkFilter = linkFilter;
+            return this;
+        }
+
+        public Builder extraction(ExtractionMode extractionMode) {
+            this.extractionMode = extractionMode;
+            return this;
+        }
 
-        CrawlTask(String url, int depth) {
-            this.url = url;
-            this.depth = depth;
+        public Builder nearDuplicates(NearDuplicateDetector duplicateDetector) {
+            this.duplicateDetector = duplicateDetector;
+            return this;
+        }
+
+        public Builder sink(PageSink sink) {
+            this.sink = sink;
+            return this;
+        }
+
+        public Builder dnsCache(DnsCache dnsCache) {
+            this.dnsCache = dnsCache;
+            return this;
+        }
+
+        public Builder resultListener(Consumer<String> resultListener) {
+            this.resultListener = resultListener;
+            return this;
+        }
+
+        public Builder checkpoints(Path directory, boolean resume) {
+            this.checkpointDir = directory;
+            this.resume = resume;
+            return this;
+        }
+
+        public Builder pageCache(PageMetadataStore pageCache, boolean closeWhenDone) {
+            this.pageCache = pageCache;
+            this.closePageCache = closeWhenDone;
+            return this;
+        }
+
+        /**
+         * @throws IOException if the disk frontier or checkpoint directory
+         *                     could not be prepared
+         */
+        public ConcurrentWebCrawler build() throws IOException {
+            ConcurrentWebCrawler crawler = new ConcurrentWebCrawler(seedUrl, maxPages, numThreads, maxDepth);
+            if (fetcher != null) {
+                crawler.setFetcher(fetcher);
+            }
+            if (robotsParser != null) {
+                crawler.setRobotsParser(robotsParser);
+            } else if (fetcher != null) {
+                crawler.setRobotsParser(new RobotsParser(fetcher));
+            }
+            crawler.setMetrics(metrics);
+            crawler.setExecutionMode(executionMode);
+            crawler.setMaxConcurrency(maxConcurrency);
+            if (maxPerHost > 0) {
+                crawler.setMaxPerHost(maxPerHost);
+            }
+            crawler.setWorkerPool(workerPool);
+            if (politenessDelayMs >= 0) {
+                crawler.setPolitenessDelay(politenessDelayMs);
+                crawler.setMinPolitenessDelay(politenessDelayMs);
+            }
+            crawler.setFrontierOrder(frontierOrder);
+            crawler.setUrlScorer(urlScorer);
+            crawler.setUrlPatterns(urlPatterns);
+            crawler.setSeenSetMode(seenSetMode);
+            crawler.setSameDomainOnly(sameDomainOnly);
+            crawler.setLinkFilter(linkFilter);
+            crawler.setExtractionMode(extractionMode);
+            crawler.setNearDuplicateDetector(duplicateDetector);
+            crawler.setSink(sink);
+            crawler.setDnsCache(dnsCache);
+            crawler.setResultListener(resultListener);
+            if (pageCache != null) {
+                crawler.setPageCache(pageCache, closePageCache);
+            }
+            if (diskFrontier != null) {
+                crawler.enableDiskFrontier(diskFrontier);
+            }
+            if (checkpointDir != null) {
+                crawler.enableCheckpoints(checkpointDir, resume);
+            }
+            return crawler;
         }
     }
 }
@@ -0,0 +1,144 @@
+package sandeep.webcrawler;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Crawl results as an append-only log that clients read incrementally,
+ * either by offset or as Server-Sent Events.
+ *
+ * Sends for one stream run one at a time, in the order they were queued,
+ * and both the per-URL publish and a subscriber's backlog replay are queued
+ * while holding this object's lock, so each subscriber sees every index
+ * exactly once and in order. Crawler threads only pay for an append and a
+ * queue offer, never for a slow client. Queued sends are drained on a
+ * virtual thread, so an idle stream holds no thread at all.
+ */
+public class CrawlEventStream {
+
+    static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final List<String> results = new ArrayList<>();
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private static final Executor SENDERS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+    private boolean draining;
+    private String finalStatus; // set by finish(); later subscribers get a closed stream
+
+    public synchronized void add(String url) {
+        int index = results.size();
+        results.add(url);
+        enqueue(() -> {
+            for (SseEmitter emitter : emitters) {
+                send(emitter, page(index, url));
+            }
+        });
+    }
+
+    // Results from offset onwards; empty when the offset is at or past the end
+    public synchronized List<String> since(int offset) {
+        int from = Math.max(0, Math.min(offset, results.size()));
+        return new ArrayList<>(results.subList(from, results.size()));
+    }
+
+    public synchronized CrawlStatusResponse status(String status, int offset) {
+        int from = Math.max(0, Math.min(offset, results.size()));
+        return new CrawlStatusResponse(status, since(from), from, results.size());
+    }
+
+    /**
+     * Opens a stream that first replays results from offset, then the
+     * current status, then follows new results as they are added. Once
+     * finish() has been called the stream ends after the final status.
+     */
+    public synchronized SseEmitter subscribe(int offset, String status) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+
+        boolean running = finalStatus == null;
+        String current = running ? status : finalStatus;
+        List<String> backlog = since(offset);
+        int start = results.size() - backlog.size();
+        enqueue(() -> {
+            for (int i = 0; i < backlog.size(); i++) {
+                if (!send(emitter, page(start + i, backlog.get(i)))) {
+                    return;
+                }
+            }
+            if (!send(emitter, status(current))) {
+                return;
+            }
+            if (running) {
+                emitters.add(emitter);
+            } else {
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    // Sends the final status to every open stream and closes them
+    public synchronized void finish(String status) {
+        finalStatus = status;
+        enqueue(() -> {
+            for (SseEmitter emitter : emitters) {
+                if (send(emitter, status(status))) {
+                    emitter.complete();
+                }
+            }
+            emitters.clear();
+        });
+    }
+
+    // Caller holds this object's lock
+    private void enqueue(Runnable send) {
+        pending.addLast(send);
+        if (!draining) {
+            draining = true;
+            SENDERS.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable send;
+            synchronized (this) {
+                send = pending.pollFirst();
+                if (send == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            send.run();
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder page(int index, String url) {
+        return SseEmitter.event().id(Integer.toString(index)).name("page").data(url);
+    }
+
+    private static SseEmitter.SseEventBuilder status(String status) {
+        return SseEmitter.event().name("status").data(status);
+    }
+
+    private boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the container reports it through onError too
+            emitters.remove(emitter);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package sandeep.webcrawler;
+
+/**
+ * One crawl started through the API: its crawler, its own result stream and
+ * status. Jobs never share results or status with each other.
+ */
+public class CrawlJob {
+
+    public static final String CRAWLING = "Crawling";
+    public static final String COMPLETED = "Completed";
+    public static final String STOPPED = "Stopped";
+
+    private final String id;
+    private final String url;
+    private final ConcurrentWebCrawler crawler;
+    private final CrawlEventStream results = new CrawlEventStream();
+    private final long startedAt = System.currentTimeMillis();
+    private volatile String status = CRAWLING;
+    private volatile long finishedAt;
+
+    public CrawlJob(String id, String url, ConcurrentWebCrawler crawler) {
+        this.id = id;
+        this.url = url;
+        this.crawler = crawler;
+        crawler.setResultListener(results::add);
+    }
+
+    // Blocks until the crawl finishes or is stopped
+    void run() {
+        try {
+            crawler.crawl(url);
+        } finally {
+            synchronized (this) {
+                if (CRAWLING.equals(status)) {
+                    status = COMPLETED;
+                }
+            }
+            finishedAt = System.currentTimeMillis();
+            results.finish(status);
+        }
+    }
+
+    // Returns false if the job had already finished
+    public synchronized boolean stop() {
+        if (!CRAWLING.equals(status)) {
+            return false;
+        }
+        status = STOPPED;
+        crawler.stop();
+        results.finish(status);
+        return true;
+    }
+
+    public String getId() { return id; }
+
+    public String getUrl() { return url; }
+
+    public String getStatus() { return status; }
+
+    public boolean isRunning() { return CRAWLING.equals(status); }
+
+    // False until crawl() has returned, which for a stopped job is after its checkpoint is written
+    public boolean isFinished() { return finishedAt != 0; }
+
+    public long getStartedAt() { return startedAt; }
+
+    // 0 while the crawl has not returned yet
+    public long getFinishedAt() { return finishedAt; }
+
+    public CrawlEventStream getResults() { return results; }
+
+    public CrawlStatusResponse statusFrom(int offset) {
+        CrawlStatusResponse response = results.status(status, offset);
+        response.setJobId(id);
+        response.setUrl(url);
+        return response;
+    }
+}
@@ -0,0 +1,195 @@
+package sandeep.webcrawler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import sandeep.webcrawler.cache.PageMetadataStore;
+import sandeep.webcrawler.dns.DnsCache;
+import sandeep.webcrawler.frontier.FrontierOrder;
+import sandeep.webcrawler.metrics.CrawlMetrics;
+import sandeep.webcrawler.robots.RobotsParser;
+import sandeep.webcrawler.schedule.FairWorkerPool;
+import sandeep.webcrawler.scoring.PatternScorer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Registry of crawl jobs. Jobs in PLATFORM mode run their pages on one
+ * bounded {@link FairWorkerPool}, taking turns so a large crawl cannot
+ * starve a small one; VIRTUAL jobs keep their own virtual threads, bounded by
+ * their max concurrency, and PIPELINED jobs their own fetch and parse pools.
+ * Finished jobs are kept for their results until more than
+ * {@code crawler.max-retained-jobs} have finished.
+ */
+@Service
+public class CrawlJobManager {
+
+    private static final Logger log = LoggerFactory.getLogger(CrawlJobManager.class);
+
+    private final FairWorkerPool workerPool;
+    private final int maxRetainedJobs;
+    private final Path checkpointDir;
+    private final Path pageCacheFile;
+    private final CrawlMetrics metrics;
+
+    private final Map<String, CrawlJob> jobs = new ConcurrentHashMap<>();
+    // Runs each job's crawl(), which mostly waits on the worker pool
+    private final ExecutorService launcher = Executors.newVirtualThreadPerTaskExecutor();
+    private PageMetadataStore pageCache;
+    // Shared so jobs on the same site fetch robots.txt once
+    private final RobotsParser robotsParser = new RobotsParser();
+    // Shared too, so hosts found by one job are already resolved for the next
+    private final DnsCache dnsCache = new DnsCache();
+
+    public CrawlJobManager(@Value("${crawler.worker-threads:16}") int workerThreads,
+                           @Value("${crawler.max-retained-jobs:20}") int maxRetainedJobs,
+                           @Value("${crawler.checkpoint-dir:checkpoints}") String checkpointDir,
+                           @Value("${crawler.page-cache-file:page-cache/pages.bin}") String pageCacheFile,
+                           MeterRegistry meterRegistry) {
+        this.workerPool = new FairWorkerPool(workerThreads);
+        this.metrics = new CrawlMetrics(meterRegistry);
+        this.maxRetainedJobs = maxRetainedJobs;
+        this.checkpointDir = Path.of(checkpointDir);
+        this.pageCacheFile = Path.of(pageCacheFile);
+    }
+
+    /**
+     * Creates and starts a job.
+     *
+     * @throws IllegalStateException if a job for the same seed URL is still
+     *                               running; both would write the same checkpoint
+     * @throws IOException           if crawl storage could not be prepared
+     * @throws java.util.regex.PatternSyntaxException if a URL pattern is not a valid regex
+     */
+    public synchronized CrawlJob start(CrawlRequest request) throws IOException {
+        for (CrawlJob job : jobs.values()) {
+            if (!job.isFinished() && job.getUrl().equals(request.getUrl())) {
+                throw new IllegalStateException("A crawl of " + request.getUrl() + " is already running as job " + job.getId());
+            }
+        }
+
+        ConcurrentWebCrawler.Builder builder = ConcurrentWebCrawler.builder(request.getUrl())
+                .maxPages(request.getMaxPages())
+                .threads(request.getNumThreads())
+                .maxDepth(request.getMaxDepth())
+                .executionMode(request.getExecutionMode())
+                .maxConcurrency(request.getMaxConcurrency())
+                .maxPerHost(request.getMaxPerHost())
+                .seenSet(request.getSeenSetMode())
+                .extraction(request.getExtractionMode())
+                .frontierOrder(request.getFrontierOrder())
+                .robotsParser(robotsParser)
+                .dnsCache(dnsCache)
+                .metrics(metrics)
+                .checkpoints(checkpointDir, request.isResume());
+        if (request.getFrontierOrder() == FrontierOrder.BEST_FIRST && request.getUrlPatternScores() != null) {
+            builder.urlPatterns(PatternScorer.of(request.getUrlPatternScores()));
+        }
+        if (request.getExecutionMode() == null || request.getExecutionMode() == ExecutionMode.PLATFORM) {
+            builder.workerPool(workerPool);
+        }
+        // Per job, and removed once the job's crawl has returned
+        Path spillDir = request.isDiskFrontier() ? Files.createTempDirectory("crawl-frontier") : null;
+        ConcurrentWebCrawler crawler;
+        try {
+            if (spillDir != null) {
+                builder.diskFrontier(spillDir);
+            }
+            if (request.isConditionalRecrawl()) {
+                builder.pageCache(sharedPageCache(), false);
+            }
+            crawler = builder.build();
+        } catch (IOException | RuntimeException e) {
+            deleteSpillDir(spillDir);
+            throw e;
+        }
+
+        CrawlJob job = new CrawlJob(UUID.randomUUID().toString(), request.getUrl(), crawler);
+        jobs.put(job.getId(), job);
+        evictFinishedJobs();
+        launcher.execute(() -> {
+            try {
+                job.run();
+            } finally {
+                deleteSpillDir(spillDir);
+            }
+        });
+        return job;
+    }
+
+    // null if there is no such job or it has been evicted
+    public CrawlJob get(String id) {
+        return jobs.get(id);
+    }
+
+    // Newest first
+    public List<CrawlJob> list() {
+        List<CrawlJob> all = new ArrayList<>(jobs.values());
+        all.sort(Comparator.comparingLong(CrawlJob::getStartedAt).reversed());
+        return all;
+    }
+
+    // One store for every job, so concurrent re-crawls don't each rewrite the file
+    private PageMetadataStore sharedPageCache() throws IOException {
+        if (pageCache == null) {
+            pageCache = PageMetadataStore.open(pageCacheFile);
+        }
+        return pageCache;
+    }
+
+    // The frontier removes its segments on close; this also sweeps any it left behind
+    private static void deleteSpillDir(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete disk frontier {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void evictFinishedJobs() {
+        List<CrawlJob> finished = new ArrayList<>();
+        for (CrawlJob job : jobs.values()) {
+            if (job.isFinished()) {
+                finished.add(job);
+            }
+        }
+        finished.sort(Comparator.comparingLong(CrawlJob::getFinishedAt));
+        for (int i = 0; i < finished.size() - maxRetainedJobs; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        jobs.values().forEach(CrawlJob::stop);
+        // Waits for stopped crawls to write their checkpoints
+        launcher.close();
+        workerPool.close();
+        if (pageCache != null) {
+            try {
+                pageCache.close();
+            } catch (IOException e) {
+                log.warn("Could not save page cache: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -1,10 +1,27 @@
 package sandeep.webcrawler;
 
+import sandeep.webcrawler.extract.ExtractionMode;
+import sandeep.webcrawler.frontier.FrontierOrder;
+import sandeep.webcrawler.seen.SeenSetMode;
+
+import java.util.Map;
+
 public class CrawlRequest {
     private String url;
     private int maxPages;
     private int numThreads;
     private int maxDepth;
+    private ExecutionMode executionMode;
+    private int maxConcurrency;
+    private int maxPerHost;
+    private SeenSetMode seenSetMode;
+    private boolean diskFrontier;
+    private boolean resume;
+    private boolean conditionalRecrawl;
+    private ExtractionMode extractionMode;
+    private FrontierOrder frontierOrder;
+    // URL regex -> score in [0, 1], tried in order; only used with BEST_FIRST
+    private Map<String, Double> urlPatternScores;
 
     // Getters and setters
     public String getUrl() { return url; }
@@ -18,4 +35,34 @@ public class CrawlRequest {
 
     public int getMaxDepth() { return maxDepth; }
     public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+
+    public ExecutionMode getExecutionMode() { return executionMode; }
+    public void setExecutionMode(ExecutionMode executionMode) { this.executionMode = executionMode; }
+
+    public int getMaxConcurrency() { return maxConcurrency; }
+    public void setMaxConcurrency(int maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+
+    public int getMaxPerHost() { return maxPerHost; }
+    public void setMaxPerHost(int maxPerHost) { this.maxPerHost = maxPerHost; }
+
+    public SeenSetMode getSeenSetMode() { return seenSetMode; }
+    public void setSeenSetMode(SeenSetMode seenSetMode) { this.seenSetMode = seenSetMode; }
+
+    public boolean isDiskFrontier() { return diskFrontier; }
+    public void setDiskFrontier(boolean diskFrontier) { this.diskFrontier = diskFrontier; }
+
+    public boolean isResume() { return resume; }
+    public void setResume(boolean resume) { this.resume = resume; }
+
+    public boolean isConditionalRecrawl() { return conditionalRecrawl; }
+    public void setConditionalRecrawl(boolean conditionalRecrawl) { this.conditionalRecrawl = conditionalRecrawl; }
+
+    public ExtractionMode getExtractionMode() { return extractionMode; }
+    public void setExtractionMode(ExtractionMode extractionMode) { this.extractionMode = extractionMode; }
+
+    public FrontierOrder getFrontierOrder() { return frontierOrder; }
+    public void setFrontierOrder(FrontierOrder frontierOrder) { this.frontierOrder = frontierOrder; }
+
+    public Map<String, Double> getUrlPatternScores() { return urlPatternScores; }
+    public void setUrlPatternScores(Map<String, Double> urlPatternScores) { this.urlPatternScores = urlPatternScores; }
 }
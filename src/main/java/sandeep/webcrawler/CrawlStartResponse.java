@@ -0,0 +1,30 @@
+package sandeep.webcrawler;
+
+public class CrawlStartResponse {
+    private String jobId;   // null when the crawl was not started
+    private String message;
+
+    // No-argument constructor for frameworks like Jackson
+    public CrawlStartResponse() {}
+
+    public CrawlStartResponse(String jobId, String message) {
+        this.jobId = jobId;
+        this.message = message;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -3,16 +3,42 @@ package sandeep.webcrawler;
 import java.util.List;
 
 public class CrawlStatusResponse {
-    private String status;        // Possible values: "Crawling", "Completed", "Idle"
-    private List<String> results; // List of URLs crawled so far
+    private String jobId;
+    private String url;           // Seed URL of the job
+    private String status;        // Possible values: "Crawling", "Completed", "Stopped"
+    private List<String> results; // URLs crawled so far, starting at offset
+    private int offset;           // Index of the first entry in results
+    private int total;            // Number of URLs crawled so far; pass as the next offset
 
     // No-argument constructor for frameworks like Jackson
     public CrawlStatusResponse() {}
 
     // Parameterized constructor
     public CrawlStatusResponse(String status, List<String> results) {
+        this(status, results, 0, results.size());
+    }
+
+    public CrawlStatusResponse(String status, List<String> results, int offset, int total) {
         this.status = status;
         this.results = results;
+        this.offset = offset;
+        this.total = total;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
     }
 
     // Getter for status
@@ -34,4 +60,20 @@ public class CrawlStatusResponse {
     public void setResults(List<String> results) {
         this.results = results;
     }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public void setOffset(int offset) {
+        this.offset = offset;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
 }
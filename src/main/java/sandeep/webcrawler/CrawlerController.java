@@ -1,66 +1,90 @@
 package sandeep.webcrawler;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.ArrayList;
-import java.util.Collections;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
 import java.util.List;
+import java.util.regex.PatternSyntaxException;
 
 @RestController
 @RequestMapping("/api/crawl")
 @CrossOrigin(origins = "http://localhost:3000") // allow React dev server
 public class CrawlerController {
 
-    private ConcurrentWebCrawler crawler;
-    private ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final CrawlJobManager jobManager;
 
-    // Thread-safe status and result tracking
-    private volatile String currentStatus = "Idle";
-    private final List<String> crawledUrls = Collections.synchronizedList(new ArrayList<>());
+    public CrawlerController(CrawlJobManager jobManager) {
+        this.jobManager = jobManager;
+    }
 
     @PostMapping("/start")
-    public String startCrawl(@RequestBody CrawlRequest request) {
-        if (crawler != null) {
-            return "Crawler already running!";
+    public ResponseEntity<CrawlStartResponse> startCrawl(@RequestBody CrawlRequest request) {
+        try {
+            CrawlJob job = jobManager.start(request);
+            return ResponseEntity.ok(new CrawlStartResponse(job.getId(), "Crawling started for " + request.getUrl()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new CrawlStartResponse(null, e.getMessage()));
+        } catch (PatternSyntaxException e) {
+            return ResponseEntity.badRequest().body(new CrawlStartResponse(null, "Invalid URL pattern: " + e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError()
+                    .body(new CrawlStartResponse(null, "Could not prepare crawl storage: " + e.getMessage()));
         }
+    }
 
-        currentStatus = "Crawling";
-        crawledUrls.clear();
-
-        // Pass parameters to crawler - you must modify ConcurrentWebCrawler to accept them
-        crawler = new ConcurrentWebCrawler(request.getUrl(), request.getMaxPages(), request.getNumThreads(), request.getMaxDepth());
-
-        executor.submit(() -> {
-            // Example: You need to update your ConcurrentWebCrawler to publish results back here
-            crawler.setResultListener(url -> {
-                crawledUrls.add(url);
-            });
+    // Every retained job, newest first, without results
+    @GetMapping("/jobs")
+    public List<CrawlStatusResponse> listJobs() {
+        return jobManager.list().stream()
+                .map(job -> job.statusFrom(Integer.MAX_VALUE))
+                .toList();
+    }
 
-            crawler.crawl(request.getUrl());
+    @PostMapping("/jobs/{jobId}/stop")
+    public String stopCrawl(@PathVariable String jobId) {
+        if (!job(jobId).stop()) {
+            return "Crawl already finished.";
+        }
+        return "Crawler stopped.";
+    }
 
-            currentStatus = "Completed";
-            crawler = null;
-        });
+    // Results from offset onwards, so pollers only fetch what they have not seen
+    @GetMapping("/jobs/{jobId}/status")
+    public CrawlStatusResponse getStatus(@PathVariable String jobId, @RequestParam(defaultValue = "0") int offset) {
+        return job(jobId).statusFrom(offset);
+    }
 
-        return "Crawling started for " + request.getUrl();
+    @GetMapping("/jobs/{jobId}/results")
+    public List<String> getResults(@PathVariable String jobId, @RequestParam(defaultValue = "0") int offset) {
+        return job(jobId).getResults().since(offset);
     }
 
-    @PostMapping("/stop")
-    public String stopCrawl() {
-        if (crawler == null) {
-            return "No crawler running!";
+    // Pushes each crawled URL as a "page" event (id = result index) and status changes as "status" events.
+    // A reconnecting EventSource sends Last-Event-ID, which takes precedence over the offset parameter.
+    @GetMapping(path = "/jobs/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamResults(@PathVariable String jobId,
+                                    @RequestParam(defaultValue = "0") int offset,
+                                    @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        CrawlJob job = job(jobId);
+        if (lastEventId != null) {
+            try {
+                offset = Integer.parseInt(lastEventId.trim()) + 1;
+            } catch (NumberFormatException ignored) {
+                // Not one of ours; fall back to the offset parameter
+            }
         }
-        // Implement a stop mechanism in your crawler and call here
-        crawler.stop();  // example; implement stop() in ConcurrentWebCrawler
-        crawler = null;
-        currentStatus = "Idle";
-        return "Crawler stopped.";
+        return job.getResults().subscribe(offset, job.getStatus());
     }
 
-    @GetMapping("/status")
-    public CrawlStatusResponse getStatus() {
-        // Return current crawl status and cloned result list
-        return new CrawlStatusResponse(currentStatus, new ArrayList<>(crawledUrls));
+    private CrawlJob job(String jobId) {
+        CrawlJob job = jobManager.get(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No crawl job " + jobId);
+        }
+        return job;
     }
 }
@@ -1,135 +1,95 @@
 package sandeep.webcrawler;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import sandeep.webcrawler.dedup.NearDuplicateDetector;
+import sandeep.webcrawler.export.PageSink;
+import sandeep.webcrawler.extract.ExtractionMode;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.fetch.HttpClientFetcher;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.*;
-import java.util.concurrent.*;
+import java.nio.file.Path;
 
+/**
+ * Preset of {@link ConcurrentWebCrawler}: crawls the seed's domain with
+ * {@code numThreads} workers and writes every page's title, description,
+ * headings and links to a {@link PageSink}.
+ */
 public class DataExtractionCrawler {
     
-    private Set<String> visitedUrls = Collections.synchronizedSet(new HashSet<>());
-    private List<PageData> extractedData = Collections.synchronizedList(new ArrayList<>());
-    private ExecutorService executorService;
-    private String seedDomain;
-    private static final int MAX_PAGES = 50;
+    static final int DEFAULT_MAX_PAGES = 50;
+    // Extraction follows links however deep they go; only maxPages bounds the crawl
+    private static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
     
-    public DataExtractionCrawler(String seedUrl, int numThreads) {
-        this.executorService = Executors.newFixedThreadPool(numThreads);
-        try {
-            this.seedDomain = new java.net.URI(seedUrl).getHost();
-        } catch (Exception e) {
-            this.seedDomain = "";
-        }
-    }
+    private final String seedUrl;
+    private final int numThreads;
+    private final Fetcher fetcher;
+    private int maxPages = DEFAULT_MAX_PAGES;
+    private PageSink sink;
+    private ExtractionMode extractionMode = ExtractionMode.DOM;
+    private NearDuplicateDetector duplicateDetector;
+    private Path diskFrontier;
     
-    public void crawl(String startUrl) {
-        Queue<String> urlQueue = new ConcurrentLinkedQueue<>();
-        urlQueue.offer(startUrl);
-        visitedUrls.add(startUrl);
-        
-        List<Future<?>> futures = new ArrayList<>();
-        for (int i = 0; i < 4; i++) {
-            futures.add(executorService.submit(() -> processUrls(urlQueue)));
-        }
-        
-        try {
-            executorService.shutdown();
-            executorService.awaitTermination(10, TimeUnit.MINUTES);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+    public DataExtractionCrawler(String seedUrl, int numThreads) {
+        this(seedUrl, numThreads, new HttpClientFetcher("Mozilla/5.0", 5000));
     }
     
-    private void processUrls(Queue<String> urlQueue) {
-        while (visitedUrls.size() < MAX_PAGES) {
-            String url = urlQueue.poll();
-            if (url == null) break;
-            
-            try {
-                Document document = Jsoup.connect(url)
-                        .userAgent("Mozilla/5.0")
-                        .timeout(5000)
-                        .get();
-                
-                PageData data = new PageData();
-                data.url = url;
-                data.title = document.title();
-                data.description = extractMetaDescription(document);
-                data.headings = extractHeadings(document);
-                data.links = extractLinks(document);
-                
-                extractedData.add(data);
-                System.out.println("Extracted: " + url);
-                
-                Elements allLinks = document.select("a[href]");
-                for (Element link : allLinks) {
-                    String absUrl = link.absUrl("href");
-                    if (!visitedUrls.contains(absUrl) && visitedUrls.size() < MAX_PAGES) {
-                        visitedUrls.add(absUrl);
-                        urlQueue.offer(absUrl);
-                    }
-                }
-                
-            } catch (IOException e) {
-                System.err.println("Error: " + e.getMessage());
-            }
-        }
+    public DataExtractionCrawler(String seedUrl, int numThreads, Fetcher fetcher) {
+        this.seedUrl = seedUrl;
+        this.numThreads = numThreads;
+        this.fetcher = fetcher;
     }
     
-    private String extractMetaDescription(Document doc) {
-        Element metaDesc = doc.selectFirst("meta[name=description]");
-        return metaDesc != null ? metaDesc.attr("content") : "N/A";
+    public void setMaxPages(int maxPages) {
+        this.maxPages = maxPages;
     }
     
-    private List<String> extractHeadings(Document doc) {
-        List<String> headings = new ArrayList<>();
-        doc.select("h1, h2, h3").forEach(h -> headings.add(h.text()));
-        return headings;
+    // Extract title, description, headings and links in one pass over the bytes instead of a Jsoup DOM
+    public void setStreamingExtraction(boolean streaming) {
+        this.extractionMode = streaming ? ExtractionMode.STREAMING : ExtractionMode.DOM;
     }
     
-    private List<String> extractLinks(Document doc) {
-        List<String> links = new ArrayList<>();
-        doc.select("a[href]").forEach(link -> links.add(link.absUrl("href")));
-        return links;
+    // Near duplicates are still written to the sink, but their links are not followed
+    public void setNearDuplicateDetector(NearDuplicateDetector duplicateDetector) {
+        this.duplicateDetector = duplicateDetector;
     }
     
-    public void exportToCSV(String filename) throws IOException {
-        try (FileWriter writer = new FileWriter(filename)) {
-            writer.write("URL,Title,Description,Headings\n");
-            
-            for (PageData data : extractedData) {
-                String headingsStr = String.join("|", data.headings);
-                String row = String.format("\"%s\",\"%s\",\"%s\",\"%s\"\n",
-                        escape(data.url),
-                        escape(data.title),
-                        escape(data.description),
-                        escape(headingsStr));
-                writer.write(row);
-            }
-        }
-        System.out.println("Data exported to " + filename);
+    // Pages are written here as they are extracted; the caller opens and closes it
+    public void setSink(PageSink sink) {
+        this.sink = sink;
     }
     
-    private String escape(String str) {
-        return str.replace("\"", "\\\"").replace("\n", "\\n");
+    // Spill the URL queue to segment files under the given directory
+    public void enableDiskFrontier(Path directory) {
+        this.diskFrontier = directory;
     }
     
-    private static class PageData {
-        String url;
-        String title;
-        String description;
-        List<String> headings;
-        List<String> links;
+    public void crawl(String startUrl) {
+        try {
+            ConcurrentWebCrawler.builder(seedUrl)
+                    .fetcher(fetcher)
+                    .maxPages(maxPages)
+                    .threads(numThreads)
+                    .maxDepth(UNLIMITED_DEPTH)
+                    .extraction(extractionMode)
+                    .nearDuplicates(duplicateDetector)
+                    .diskFrontier(diskFrontier)
+                    .sink(sink)
+                    .resultListener(url -> System.out.println("Extracted: " + url))
+                    .build()
+                    .crawl(startUrl);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
     }
     
+    // Output format follows the file extension: .csv, .jsonl or .pgc
     public static void main(String[] args) throws IOException {
+        Path output = Path.of(args.length > 0 ? args[0] : "crawled_data.csv");
         DataExtractionCrawler crawler = new DataExtractionCrawler("https://example.com", 4);
-        crawler.crawl("https://example.com");
-        crawler.exportToCSV("crawled_data.csv");
+        try (PageSink sink = PageSink.open(output)) {
+            crawler.setSink(sink);
+            crawler.crawl("https://example.com");
+        }
+        System.out.println("Data exported to " + output);
     }
 }
@@ -1,45 +1,63 @@
 package sandeep.webcrawler;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import sandeep.webcrawler.export.PageSink;
+import sandeep.webcrawler.extract.PageSummary;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.fetch.HttpClientFetcher;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
 
+/**
+ * Preset of {@link ConcurrentWebCrawler}: follows links on any host up to
+ * {@code MAX_DEPTH} levels from the start page and prints each page's title.
+ * The crawl also stops once {@code MAX_PAGES} URLs have been queued, since
+ * the engine caps discovery at its page budget; depth alone no longer
+ * bounds it.
+ */
 public class DepthControlledCrawler {
     
     private static final int MAX_DEPTH = 2;
-    private Set<String> visitedUrls = new HashSet<>();
+    private static final int MAX_PAGES = 1000;
+    private final Fetcher fetcher;
     
+    public DepthControlledCrawler() {
+        this(new HttpClientFetcher(5000));
+    }
+    
+    public DepthControlledCrawler(Fetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+    
+    // The start page counts as the given depth
     public void crawl(String url, int depth) {
-        if (depth > MAX_DEPTH || visitedUrls.contains(url)) {
+        if (depth > MAX_DEPTH) {
             return;
         }
         
         try {
-            visitedUrls.add(url);
-            System.out.println("[Depth: " + depth + "] " + url);
-            
-            Document document = Jsoup.connect(url)
-                .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                .timeout(5000)
-                .get();
-            
-            System.out.println("  Title: " + document.title());
-            
-            Elements links = document.select("a[href]");
-            for (Element link : links) {
-                String nextUrl = link.absUrl("href");
-                crawl(nextUrl, depth + 1);
-            }
-            
+            ConcurrentWebCrawler.builder(url)
+                    .fetcher(fetcher)
+                    .maxPages(MAX_PAGES)
+                    .maxDepth(MAX_DEPTH - depth)
+                    .sameDomainOnly(false)
+                    .sink(new TitlePrinter())
+                    .build()
+                    .crawl(url);
         } catch (IOException e) {
             System.err.println("Error: " + e.getMessage());
         }
     }
     
+    private static class TitlePrinter implements PageSink {
+        @Override
+        public void write(String url, PageSummary page) {
+            System.out.println(url + "\n  Title: " + page.getTitle());
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+    
     public static void main(String[] args) {
         DepthControlledCrawler crawler = new DepthControlledCrawler();
         crawler.crawl("https://example.com", 0);
@@ -1,61 +1,55 @@
 package sandeep.webcrawler;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.fetch.HttpClientFetcher;
+import sandeep.webcrawler.url.UrlFilter;
 
 import java.io.IOException;
-import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashSet;
-import java.util.Set;
 
+/**
+ * Preset of {@link ConcurrentWebCrawler}: follows links on the seed's
+ * domain and its subdomains up to {@code MAX_DEPTH} levels from the start
+ * page and prints each URL. The crawl also stops once {@code MAX_PAGES}
+ * URLs have been queued, since the engine caps discovery at its page
+ * budget; depth alone no longer bounds it.
+ */
 public class DomainRestrictedCrawler {
     
     private static final int MAX_DEPTH = 2;
-    private Set<String> visitedUrls = new HashSet<>();
-    private String seedDomain;
+    private static final int MAX_PAGES = 1000;
+    private final String seedUrl;
+    private final Fetcher fetcher;
     
     public DomainRestrictedCrawler(String seedUrl) throws URISyntaxException {
-        this.seedDomain = extractDomain(seedUrl);
+        this(seedUrl, new HttpClientFetcher(5000));
     }
     
-    private String extractDomain(String url) throws URISyntaxException {
-        URI uri = new URI(url);
-        String host = uri.getHost();
-        return host.startsWith("www.") ? host.substring(4) : host;
-    }
-    
-    private boolean isSameDomain(String url) {
-        try {
-            String domain = extractDomain(url);
-            return domain.contains(seedDomain) || seedDomain.contains(domain);
-        } catch (URISyntaxException e) {
-            return false;
+    /**
+     * @throws URISyntaxException if the seed URL has no host
+     */
+    public DomainRestrictedCrawler(String seedUrl, Fetcher fetcher) throws URISyntaxException {
+        if (UrlFilter.extractDomain(seedUrl).isEmpty()) {
+            throw new URISyntaxException(seedUrl, "No host in seed URL");
         }
+        this.seedUrl = seedUrl;
+        this.fetcher = fetcher;
     }
     
+    // The start page counts as the given depth; it must be on the seed's domain
     public void crawl(String url, int depth) {
-        if (depth > MAX_DEPTH || visitedUrls.contains(url) || !isSameDomain(url)) {
+        if (depth > MAX_DEPTH || !new UrlFilter(seedUrl).isSameDomain(url)) {
             return;
         }
         
         try {
-            visitedUrls.add(url);
-            System.out.println("[Depth: " + depth + "] " + url);
-            
-            Document document = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                    .timeout(5000)
-                    .get();
-            
-            Elements links = document.select("a[href]");
-            for (Element link : links) {
-                String absoluteUrl = link.absUrl("href");
-                crawl(absoluteUrl, depth + 1);
-            }
-            
+            ConcurrentWebCrawler.builder(seedUrl)
+                    .fetcher(fetcher)
+                    .maxPages(MAX_PAGES)
+                    .maxDepth(MAX_DEPTH - depth)
+                    .resultListener(System.out::println)
+                    .build()
+                    .crawl(url);
         } catch (IOException e) {
             System.err.println("Error: " + e.getMessage());
         }
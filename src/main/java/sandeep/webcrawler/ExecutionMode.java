@@ -0,0 +1,10 @@
+package sandeep.webcrawler;
+
+public enum ExecutionMode {
+    // Fixed pool of numThreads platform threads, each looping over the frontier
+    PLATFORM,
+    // One virtual thread per fetch, bounded by global and per-host permits
+    VIRTUAL,
+    // numThreads fetch threads hand downloaded pages to a separate parse pool sized to the cores
+    PIPELINED
+}
@@ -0,0 +1,50 @@
+package sandeep.webcrawler.cache;
+
+import java.util.List;
+
+/**
+ * What the crawler remembers about a page between runs: the validators for
+ * a conditional GET, a hash of the last body, and the outlinks it yielded so
+ * an unchanged page can be expanded without parsing it again.
+ */
+public class PageMetadata {
+    private final String etag;
+    private final String lastModified;
+    private final long contentHash;
+    private final List<String> links;
+
+    public PageMetadata(String etag, String lastModified, long contentHash, List<String> links) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash;
+        this.links = links != null ? List.copyOf(links) : List.of();
+    }
+
+    public String getEtag() { return etag; }
+
+    public String getLastModified() { return lastModified; }
+
+    public long getContentHash() { return contentHash; }
+
+    public List<String> getLinks() { return links; }
+
+    /**
+     * 64-bit body hash (FNV-1a with a MurmurHash3 finalizer). Only ever
+     * compared against the previous hash of the same URL.
+     */
+    public static long hash(byte[] body) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : body) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= body.length;
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
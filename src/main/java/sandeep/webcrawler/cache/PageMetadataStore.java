@@ -0,0 +1,178 @@
+package sandeep.webcrawler.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent URL -> {@link PageMetadata} map. Lookups are served from memory;
+ * every update is appended to a binary log that is replayed on open and
+ * rewritten compacted (latest entry per URL) on close. A record torn by a
+ * crash is cut off on open, so new records are appended after the last good
+ * one.
+ */
+public class PageMetadataStore implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(PageMetadataStore.class);
+    private static final int MAGIC = 0x50474d44; // "PGMD"
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final Map<String, PageMetadata> pages = new ConcurrentHashMap<>();
+    private DataOutputStream out;
+
+    private PageMetadataStore(Path file) {
+        this.file = file;
+    }
+
+    public static PageMetadataStore open(Path file) throws IOException {
+        PageMetadataStore store = new PageMetadataStore(file);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        if (Files.exists(file)) {
+            long valid = store.load();
+            if (valid < Files.size(file)) {
+                log.warn("Dropping {} bytes of torn records at the end of {}", Files.size(file) - valid, file);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                }
+            }
+        }
+        store.out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024));
+        if (Files.size(file) == 0) {
+            store.out.writeInt(MAGIC);
+            store.out.writeInt(VERSION);
+        }
+        return store;
+    }
+
+    public PageMetadata get(String url) {
+        return pages.get(url);
+    }
+
+    public void put(String url, PageMetadata metadata) {
+        pages.put(url, metadata);
+        synchronized (this) {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.write(encode(url, metadata));
+            } catch (UTFDataFormatException e) {
+                // URL or header longer than 64K: keep it in memory only
+            } catch (IOException e) {
+                log.warn("Page cache write failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    public int size() {
+        return pages.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (out == null) {
+            return;
+        }
+        out.close();
+        out = null;
+
+        Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream tmp = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(compacted)))) {
+            tmp.writeInt(MAGIC);
+            tmp.writeInt(VERSION);
+            for (Map.Entry<String, PageMetadata> entry : pages.entrySet()) {
+                try {
+                    tmp.write(encode(entry.getKey(), entry.getValue()));
+                } catch (UTFDataFormatException e) {
+                    // skipped, as in put()
+                }
+            }
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Replays the log and returns the length of its valid prefix
+    private long load() throws IOException {
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a page metadata store: " + file);
+            }
+            valid = 8;
+            while (true) {
+                try {
+                    String url = in.readUTF();
+                    String etag = readNullable(in);
+                    String lastModified = readNullable(in);
+                    long hash = in.readLong();
+                    int linkCount = in.readInt();
+                    if (linkCount < 0) {
+                        break;
+                    }
+                    List<String> links = new ArrayList<>(Math.min(linkCount, 1024));
+                    for (int i = 0; i < linkCount; i++) {
+                        links.add(in.readUTF());
+                    }
+                    PageMetadata metadata = new PageMetadata(etag, lastModified, hash, links);
+                    pages.put(url, metadata);
+                    // Records are written by encode(), so re-encoding gives the bytes just read
+                    valid += encode(url, metadata).length;
+                } catch (EOFException | UTFDataFormatException e) {
+                    // End of log, or a torn final record
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            // Empty or headerless file; open() rewrites the header
+        }
+        return valid;
+    }
+
+    // Encoded up front so an over-long string cannot leave half a record in the log
+    private static byte[] encode(String url, PageMetadata metadata) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(url);
+        writeNullable(out, metadata.getEtag());
+        writeNullable(out, metadata.getLastModified());
+        out.writeLong(metadata.getContentHash());
+        out.writeInt(metadata.getLinks().size());
+        for (String link : metadata.getLinks()) {
+            out.writeUTF(link);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,232 @@
+package sandeep.webcrawler.checkpoint;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sandeep.webcrawler.frontier.CrawlTask;
+import sandeep.webcrawler.metrics.RateLimitedLogger;
+import sandeep.webcrawler.seen.SeenSet;
+import sandeep.webcrawler.seen.UrlFingerprint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of a crawl's frontier and seen-set, so a stopped or
+ * restarted crawl can pick up where it left off.
+ *
+ * <p>Every URL the crawler accepts is journalled as a {@code D} record
+ * (depth + URL) and every finished URL as a {@code C} record (8-byte
+ * fingerprint). Both go through one buffered stream, so any flushed prefix
+ * is consistent: a page is never marked complete without the links it
+ * discovered. The stream is flushed and fsynced every flush interval.
+ * Resuming replays the journal, then rewrites it compacted: finished URLs
+ * shrink to {@code S} records holding only their fingerprint.
+ */
+public class CrawlCheckpoint implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(CrawlCheckpoint.class);
+    // Journal writes happen per page, so a failing disk would otherwise log once per page
+    private static final RateLimitedLogger writeLog = new RateLimitedLogger(log, 1);
+    private static final int MAGIC = 0x43524b50; // "CRKP"
+    private static final int VERSION = 1;
+    private static final byte DISCOVERED = 'D';
+    private static final byte COMPLETED = 'C';
+    private static final byte SEEN = 'S';
+
+    private final Path file;
+    private final long flushIntervalMs;
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+    private ScheduledExecutorService flusher;
+
+    /**
+     * @param directory root checkpoint directory; each seed URL gets its own journal in it
+     */
+    public CrawlCheckpoint(Path directory, String seedUrl, long flushIntervalMs) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(String.format("%016x.ckpt", UrlFingerprint.of(seedUrl)));
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public boolean exists() {
+        return Files.exists(file);
+    }
+
+    /**
+     * Discards any previous journal and starts a new one.
+     */
+    public void startFresh() throws IOException {
+        open(false);
+    }
+
+    /**
+     * Replays the journal into {@code seen} and returns the tasks that were
+     * discovered but never finished, in discovery order. Falls back to an
+     * empty journal when there is nothing to resume.
+     */
+    public List<CrawlTask> resume(SeenSet seen) throws IOException {
+        if (!exists()) {
+            startFresh();
+            return new ArrayList<>();
+        }
+
+        Map<Long, CrawlTask> pending = new LinkedHashMap<>();
+        long[] finished = new long[1024];
+        int finishedCount = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a crawl checkpoint: " + file);
+            }
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    if (type == DISCOVERED) {
+                        int depth = in.readInt();
+                        byte[] url = new byte[in.readInt()];
+                        in.readFully(url);
+                        CrawlTask task = new CrawlTask(new String(url, StandardCharsets.UTF_8), depth);
+                        long fingerprint = UrlFingerprint.of(task.getUrl());
+                        seen.addFingerprintIfAbsent(fingerprint);
+                        pending.put(fingerprint, task);
+                    } else if (type == COMPLETED || type == SEEN) {
+                        long fingerprint = in.readLong();
+                        seen.addFingerprintIfAbsent(fingerprint);
+                        if (type == SEEN || pending.remove(fingerprint) != null) {
+                            if (finishedCount == finished.length) {
+                                finished = Arrays.copyOf(finished, finishedCount * 2);
+                            }
+                            finished[finishedCount++] = fingerprint;
+                        }
+                    } else {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    // Torn final record from a crash mid-write; everything before it is intact
+                    break;
+                }
+            }
+        }
+
+        Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream tmp = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(compacted)))) {
+            tmp.writeInt(MAGIC);
+            tmp.writeInt(VERSION);
+            for (int i = 0; i < finishedCount; i++) {
+                tmp.writeByte(SEEN);
+                tmp.writeLong(finished[i]);
+            }
+            for (CrawlTask task : pending.values()) {
+                writeDiscovered(tmp, task);
+            }
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        open(true);
+        return new ArrayList<>(pending.values());
+    }
+
+    public synchronized void recordDiscovered(CrawlTask task) {
+        if (out == null) {
+            return;
+        }
+        try {
+            writeDiscovered(out, task);
+        } catch (IOException e) {
+            writeLog.warn("Checkpoint write failed: {}", e.getMessage());
+        }
+    }
+
+    public synchronized void recordCompleted(String url) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeByte(COMPLETED);
+            out.writeLong(UrlFingerprint.of(url));
+        } catch (IOException e) {
+            writeLog.warn("Checkpoint write failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Makes everything journalled so far durable.
+     */
+    public synchronized void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+            fileOut.getChannel().force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        synchronized (this) {
+            if (out != null) {
+                flush();
+                out.close();
+                out = null;
+            }
+        }
+    }
+
+    private synchronized void open(boolean append) throws IOException {
+        fileOut = new FileOutputStream(file.toFile(), append);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut, 64 * 1024));
+        if (!append) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "checkpoint-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (IOException e) {
+                log.warn("Checkpoint flush failed: {}", e.getMessage());
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static void writeDiscovered(DataOutputStream out, CrawlTask task) throws IOException {
+        byte[] url = task.getUrl().getBytes(StandardCharsets.UTF_8);
+        out.writeByte(DISCOVERED);
+        out.writeInt(task.getDepth());
+        out.writeInt(url.length);
+        out.write(url);
+    }
+}
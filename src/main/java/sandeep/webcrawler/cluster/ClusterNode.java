@@ -0,0 +1,508 @@
+package sandeep.webcrawler.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sandeep.webcrawler.ConcurrentWebCrawler;
+import sandeep.webcrawler.frontier.CrawlTask;
+import sandeep.webcrawler.seen.UrlFingerprint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * One member of a crawl cluster. Hosts are partitioned over the members by
+ * a {@link HashRing}; each member crawls only the hosts it owns, with its
+ * own frontier, politeness and seen-set, and forwards links to other hosts
+ * to their owner in batches over a plain TCP connection.
+ *
+ * <p>Node 0 also detects the end of the crawl. Every member counts the
+ * links it has forwarded and received; node 0 polls all members, and once
+ * two consecutive rounds find every member idle with identical counts and
+ * as many links received as sent, no link can still be in transit and it
+ * tells everyone to finish.
+ *
+ * <p>Delivery is exactly-once: each batch carries its sender and a
+ * per-sender sequence number, and is resent until the owner acknowledges
+ * it. The owner skips a sequence number it has already accepted, so a batch
+ * resent after a broken connection is neither queued nor counted twice.
+ * Links recently forwarded are not forwarded again, so a popular link to
+ * another member's host crosses the wire about once.
+ *
+ * <p>Wire format, per frame: {@code 'B' int sender, long seq, int count,
+ * count x (int depth, int length, utf8 url)} for a batch (answered with
+ * {@code long seq}), {@code 'S'} for a status request (answered with
+ * {@code boolean idle, long sent, long received}) and {@code 'D'} for done.
+ * A member that dies loses its hosts' work; the others then never see the
+ * counts balance and keep waiting.
+ */
+public class ClusterNode implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterNode.class);
+
+    // A peer's buffer is sent once it holds this many links, or after the flush interval
+    static final int BATCH_SIZE = 512;
+    static final long FLUSH_INTERVAL_MS = 20;
+    private static final long PROBE_INTERVAL_MS = 50;
+    private static final long RECONNECT_DELAY_MS = 100;
+    private static final int CONNECT_TIMEOUT_MS = 5_000;
+    // Slots in the direct-mapped cache of recently forwarded URLs
+    static final int FORWARDED_CACHE_SIZE = 1 << 16;
+
+    private static final byte BATCH = 'B';
+    private static final byte STATUS = 'S';
+    private static final byte DONE = 'D';
+
+    /**
+     * The crawl running on this member.
+     */
+    public interface Listener {
+        // Links forwarded by other members, all for hosts this member owns
+        void accept(List<CrawlTask> tasks);
+
+        // True when nothing is queued or in flight locally
+        boolean isIdle();
+
+        // Called once, when the whole cluster has run out of work
+        void onClusterDone();
+    }
+
+    private final List<InetSocketAddress> members;
+    private final int self;
+    private final HashRing ring;
+    private final Peer[] peers;
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicBoolean done = new AtomicBoolean();
+    // Fingerprint per slot; a newer URL overwrites the slot, so a repeat is at worst forwarded again
+    private final AtomicLongArray forwarded = new AtomicLongArray(FORWARDED_CACHE_SIZE);
+    // Per sender: highest batch sequence number accepted, guarded by the sender's lock
+    private final long[] accepted;
+    private final Object[] senderLocks;
+    private volatile Listener listener;
+    private volatile boolean closed = false;
+    private ServerSocket server;
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * @param members every member's listen address, in the same order on every member
+     * @param self    this member's index in {@code members}
+     */
+    public ClusterNode(List<InetSocketAddress> members, int self) {
+        if (self < 0 || self >= members.size()) {
+            throw new IllegalArgumentException("Member index " + self + " out of range");
+        }
+        this.members = List.copyOf(members);
+        this.self = self;
+        this.ring = new HashRing(members.size());
+        this.peers = new Peer[members.size()];
+        this.accepted = new long[members.size()];
+        this.senderLocks = new Object[members.size()];
+        for (int i = 0; i < peers.length; i++) {
+            if (i != self) {
+                peers[i] = new Peer(members.get(i));
+            }
+            senderLocks[i] = new Object();
+        }
+    }
+
+    // "host:port,host:port,..."
+    public static List<InetSocketAddress> parseMembers(String spec) {
+        List<InetSocketAddress> members = new ArrayList<>();
+        for (String member : spec.split(",")) {
+            int colon = member.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Expected host:port, got " + member);
+            }
+            members.add(new InetSocketAddress(member.substring(0, colon).trim(),
+                    Integer.parseInt(member.substring(colon + 1).trim())));
+        }
+        return members;
+    }
+
+    public int getSelf() {
+        return self;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    public int owner(String host) {
+        return ring.owner(host);
+    }
+
+    public boolean isLocal(String host) {
+        return ring.owner(host) == self;
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    /**
+     * Starts listening for peers and, on node 0, watching for the end of the
+     * crawl. Peers that are not up yet are retried until they are.
+     */
+    public synchronized void start(Listener listener) throws IOException {
+        if (this.listener != null) {
+            throw new IllegalStateException("Cluster node already started");
+        }
+        this.listener = listener;
+        server = new ServerSocket();
+        server.bind(members.get(self));
+        threads.add(Thread.ofVirtual().name("cluster-accept").start(this::acceptLoop));
+        threads.add(Thread.ofPlatform().name("cluster-flush").daemon().start(this::flushLoop));
+        if (self == 0) {
+            threads.add(Thread.ofPlatform().name("cluster-probe").daemon().start(this::probeLoop));
+        }
+    }
+
+    /**
+     * Queues a link for the member that owns its host, unless it was
+     * forwarded recently. Blocks while sending when the member's batch is
+     * full.
+     *
+     * @return false if the link was skipped as a recent repeat
+     */
+    public boolean forward(CrawlTask task) {
+        Peer peer = peers[ring.owner(task.getHost())];
+        if (peer == null) {
+            throw new IllegalArgumentException(task.getHost() + " is owned by this member");
+        }
+        long fingerprint = UrlFingerprint.of(task.getUrl());
+        fingerprint = fingerprint == 0 ? 1 : fingerprint; // 0 marks an empty slot
+        int slot = (int) (fingerprint >>> 48) & (FORWARDED_CACHE_SIZE - 1);
+        if (forwarded.getAndSet(slot, fingerprint) == fingerprint) {
+            return false;
+        }
+        // Counted before it can reach the owner, so the totals cannot balance while it is on its way
+        sent.incrementAndGet();
+        peer.add(task);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        threads.forEach(Thread::interrupt);
+        try {
+            if (server != null) {
+                server.close();
+            }
+        } catch (IOException e) {
+            // closing anyway
+        }
+        for (Peer peer : peers) {
+            if (peer != null) {
+                peer.disconnect();
+            }
+        }
+    }
+
+    // Runs one member: <seed url> <member index> <host:port,host:port,...> [max pages] [threads] [max depth]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: ClusterNode <seed url> <member index> <host:port,...> [max pages] [threads] [max depth]");
+            System.exit(2);
+        }
+        int maxPages = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : 8;
+        int maxDepth = args.length > 5 ? Integer.parseInt(args[5]) : 3;
+        ConcurrentWebCrawler crawler = new ConcurrentWebCrawler(args[0], maxPages, threads, maxDepth);
+        try (ClusterNode node = new ClusterNode(parseMembers(args[2]), Integer.parseInt(args[1]))) {
+            crawler.joinCluster(node);
+            crawler.crawl(args[0]);
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                Thread.ofVirtual().name("cluster-conn").start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("Cluster accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (!closed) {
+                byte type = in.readByte();
+                if (type == BATCH) {
+                    int sender = in.readInt();
+                    long seq = in.readLong();
+                    List<CrawlTask> tasks = readBatch(in);
+                    if (sender < 0 || sender >= members.size() || sender == self) {
+                        throw new IOException("Batch from unknown member " + sender);
+                    }
+                    accept(sender, seq, tasks);
+                    out.writeLong(seq);
+                    out.flush();
+                } else if (type == STATUS) {
+                    out.writeBoolean(listener.isIdle());
+                    out.writeLong(sent.get());
+                    out.writeLong(received.get());
+                    out.flush();
+                } else if (type == DONE) {
+                    finish();
+                } else {
+                    throw new IOException("Unknown frame type " + type);
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // peer went away
+        } catch (IOException e) {
+            log.warn("Cluster connection failed: {}", e.getMessage());
+        }
+    }
+
+    // A resent batch may arrive on a new connection while the first copy is still being queued
+    private void accept(int sender, long seq, List<CrawlTask> tasks) {
+        synchronized (senderLocks[sender]) {
+            if (seq <= accepted[sender]) {
+                return;
+            }
+            listener.accept(tasks);
+            // Only counted once the links are queued here, so "idle" already reflects them
+            received.addAndGet(tasks.size());
+            accepted[sender] = seq;
+        }
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(FLUSH_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (Peer peer : peers) {
+                if (peer != null) {
+                    peer.flush();
+                }
+            }
+        }
+    }
+
+    // Mattern's four-counter method: two identical, balanced, all-idle rounds in a row
+    private void probeLoop() {
+        long[] previous = null;
+        while (!closed && !done.get()) {
+            try {
+                Thread.sleep(PROBE_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long[] round = probe();
+            if (round == null) {
+                previous = null;
+                continue;
+            }
+            long sentTotal = 0;
+            long receivedTotal = 0;
+            for (int i = 0; i < members.size(); i++) {
+                sentTotal += round[2 * i];
+                receivedTotal += round[2 * i + 1];
+            }
+            if (sentTotal == receivedTotal && Arrays.equals(round, previous)) {
+                for (Peer peer : peers) {
+                    if (peer != null) {
+                        peer.sendDone();
+                    }
+                }
+                finish();
+                return;
+            }
+            previous = round;
+        }
+    }
+
+    // sent/received per member, or null if any member is busy or unreachable
+    private long[] probe() {
+        long[] counts = new long[members.size() * 2];
+        for (int i = 0; i < members.size(); i++) {
+            if (i == self) {
+                if (!listener.isIdle()) {
+                    return null;
+                }
+                counts[2 * i] = sent.get();
+                counts[2 * i + 1] = received.get();
+            } else if (!peers[i].status(counts, 2 * i)) {
+                return null;
+            }
+        }
+        return counts;
+    }
+
+    private void finish() {
+        if (done.compareAndSet(false, true)) {
+            log.info("Cluster crawl finished on node {}: forwarded {}, received {}", self, sent.get(), received.get());
+            listener.onClusterDone();
+        }
+    }
+
+    static void writeBatch(DataOutputStream out, int sender, long seq, List<CrawlTask> batch) throws IOException {
+        out.writeByte(BATCH);
+        out.writeInt(sender);
+        out.writeLong(seq);
+        out.writeInt(batch.size());
+        for (CrawlTask task : batch) {
+            byte[] url = task.getUrl().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(task.getDepth());
+            out.writeInt(url.length);
+            out.write(url);
+        }
+    }
+
+    private static List<CrawlTask> readBatch(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<CrawlTask> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int depth = in.readInt();
+            byte[] url = new byte[in.readInt()];
+            in.readFully(url);
+            tasks.add(new CrawlTask(new String(url, StandardCharsets.UTF_8), depth));
+        }
+        return tasks;
+    }
+
+    // Outbound side of the connection to one other member
+    private final class Peer {
+        private final InetSocketAddress address;
+        private List<CrawlTask> buffer = new ArrayList<>();
+        private long lastSeq = 0;
+        private Socket socket;
+        private DataOutputStream out;
+        private DataInputStream in;
+
+        Peer(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        synchronized void add(CrawlTask task) {
+            buffer.add(task);
+            if (buffer.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        // Sends the buffered links and waits for the ack, resending until acked or this node closes
+        synchronized void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            List<CrawlTask> batch = buffer;
+            buffer = new ArrayList<>();
+            long seq = ++lastSeq;
+            while (!closed) {
+                try {
+                    connect();
+                    writeBatch(out, self, seq, batch);
+                    out.flush();
+                    if (in.readLong() != seq) {
+                        throw new IOException("Unexpected ack from " + address);
+                    }
+                    return;
+                } catch (IOException e) {
+                    disconnect();
+                    log.debug("Forwarding to {} failed, retrying: {}", address, e.getMessage());
+                    if (!pause()) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        // Fills counts[at], counts[at + 1]; false if the peer is busy or unreachable
+        synchronized boolean status(long[] counts, int at) {
+            try {
+                connect();
+                out.writeByte(STATUS);
+                out.flush();
+                boolean idle = in.readBoolean();
+                counts[at] = in.readLong();
+                counts[at + 1] = in.readLong();
+                return idle;
+            } catch (IOException e) {
+                disconnect();
+                return false;
+            }
+        }
+
+        synchronized void sendDone() {
+            try {
+                connect();
+                out.writeByte(DONE);
+                out.flush();
+            } catch (IOException e) {
+                log.warn("Could not tell {} the crawl is done: {}", address, e.getMessage());
+                disconnect();
+            }
+        }
+
+        synchronized void disconnect() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // already broken
+                }
+                socket = null;
+            }
+        }
+
+        private void connect() throws IOException {
+            if (socket != null) {
+                return;
+            }
+            Socket s = new Socket();
+            try {
+                s.setTcpNoDelay(true);
+                s.connect(address, CONNECT_TIMEOUT_MS);
+                out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            } catch (IOException e) {
+                s.close();
+                throw e;
+            }
+            socket = s;
+        }
+
+        private boolean pause() {
+            try {
+                TimeUnit.MILLISECONDS.sleep(RECONNECT_DELAY_MS);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
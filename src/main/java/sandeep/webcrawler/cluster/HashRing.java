@@ -0,0 +1,57 @@
+package sandeep.webcrawler.cluster;
+
+import sandeep.webcrawler.seen.UrlFingerprint;
+
+import java.util.Arrays;
+
+/**
+ * Consistent hash ring mapping hosts to node indexes. Each node is placed at
+ * a number of virtual points so hosts spread evenly, and adding or removing
+ * a node only moves the hosts on its arcs.
+ */
+public class HashRing {
+
+    static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final int nodes;
+    // Sorted ring positions and the node owning each
+    private final long[] points;
+    private final int[] owners;
+
+    public HashRing(int nodes) {
+        this(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public HashRing(int nodes, int virtualNodes) {
+        if (nodes < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("Need at least one node and one point per node");
+        }
+        this.nodes = nodes;
+        long[][] entries = new long[nodes * virtualNodes][];
+        for (int node = 0; node < nodes; node++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                entries[node * virtualNodes + v] = new long[] {UrlFingerprint.of("node-" + node + "#" + v), node};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[entries.length];
+        this.owners = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+    }
+
+    public int size() {
+        return nodes;
+    }
+
+    // First point clockwise from the host's hash, wrapping around
+    public int owner(String host) {
+        int i = Arrays.binarySearch(points, UrlFingerprint.of(host));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+}
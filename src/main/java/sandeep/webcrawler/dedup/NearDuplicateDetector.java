@@ -0,0 +1,185 @@
+package sandeep.webcrawler.dedup;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flags pages whose text is a near duplicate of a page already crawled, so
+ * the crawler can record them without following their links: calendars,
+ * sort orders and tracking parameters otherwise spend the page budget on
+ * the same content again and again. Duplicate rates are kept per path
+ * pattern (see {@link #pathPattern}) to show which parts of a site are
+ * traps.
+ */
+public class NearDuplicateDetector {
+
+    // Fewer words than this give fingerprints too coarse to compare; such pages are never flagged
+    static final int DEFAULT_MIN_WORDS = 20;
+    // Patterns beyond this many share the "other" entry, to bound memory on sites with endless URL shapes
+    static final int MAX_PATTERNS = 500;
+    static final String OTHER_PATTERN = "other";
+
+    public record DuplicateRate(long pages, long duplicates) {
+        public double rate() {
+            return pages == 0 ? 0 : (double) duplicates / pages;
+        }
+    }
+
+    private final SimHashIndex index;
+    private final int minWords;
+    private final ConcurrentHashMap<String, Counts> patterns = new ConcurrentHashMap<>();
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    public NearDuplicateDetector() {
+        this(SimHashIndex.MAX_DISTANCE, DEFAULT_MIN_WORDS);
+    }
+
+    /**
+     * @param maxDistance Hamming distance at or below which two pages are duplicates, at most 3
+     * @param minWords    pages with fewer words are never flagged
+     */
+    public NearDuplicateDetector(int maxDistance, int minWords) {
+        this.index = new SimHashIndex(maxDistance);
+        this.minWords = minWords;
+    }
+
+    /**
+     * Records a crawled page and returns true if its text is within the
+     * distance of a page recorded before.
+     */
+    public boolean isNearDuplicate(String url, SimHash.Builder text) {
+        int words = text.words();
+        long fingerprint = text.build();
+        boolean duplicate = words >= minWords && !index.addIfAbsent(fingerprint);
+        pages.increment();
+        Counts counts = counts(pathPattern(url));
+        counts.pages.increment();
+        if (duplicate) {
+            duplicates.increment();
+            counts.duplicates.increment();
+        }
+        return duplicate;
+    }
+
+    public boolean isNearDuplicate(String url, CharSequence text) {
+        SimHash.Builder builder = new SimHash.Builder();
+        builder.append(text);
+        return isNearDuplicate(url, builder);
+    }
+
+    public long getPages() {
+        return pages.sum();
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    // Distinct pages kept in the index
+    public int getUniquePages() {
+        return index.size();
+    }
+
+    /**
+     * Pages and duplicates per path pattern, patterns with the most
+     * duplicates first.
+     */
+    public Map<String, DuplicateRate> duplicateRates() {
+        Map<String, DuplicateRate> rates = new LinkedHashMap<>();
+        patterns.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), new DuplicateRate(e.getValue().pages.sum(), e.getValue().duplicates.sum())))
+                .sorted(Comparator.comparingLong((Map.Entry<String, DuplicateRate> e) -> e.getValue().duplicates())
+                        .reversed().thenComparing(Map.Entry::getKey))
+                .forEach(e -> rates.put(e.getKey(), e.getValue()));
+        return rates;
+    }
+
+    /**
+     * Groups URLs that differ only in ids: host and path with every segment
+     * that contains a digit replaced by {@code {id}}, plus the sorted query
+     * parameter names. {@code https://a.com/cal/2024/05?view=m&sort=d}
+     * becomes {@code a.com/cal/{id}/{id}?sort&view}.
+     */
+    public static String pathPattern(String url) {
+        int hostStart = url.indexOf("://");
+        hostStart = hostStart < 0 ? 0 : hostStart + 3;
+        int end = url.indexOf('#', hostStart);
+        if (end < 0) {
+            end = url.length();
+        }
+        int query = url.indexOf('?', hostStart);
+        if (query < 0 || query > end) {
+            query = end;
+        }
+        int pathStart = url.indexOf('/', hostStart);
+        if (pathStart < 0 || pathStart > query) {
+            pathStart = query;
+        }
+
+        StringBuilder pattern = new StringBuilder(query - hostStart + 8);
+        pattern.append(url, hostStart, pathStart);
+        int segment = pathStart;
+        while (segment < query) {
+            int next = url.indexOf('/', segment + 1);
+            if (next < 0 || next > query) {
+                next = query;
+            }
+            if (hasDigit(url, segment + 1, next)) {
+                pattern.append("/{id}");
+            } else {
+                pattern.append(url, segment, next);
+            }
+            segment = next;
+        }
+
+        if (query + 1 < end) {
+            TreeSet<String> names = new TreeSet<>();
+            int param = query + 1;
+            while (param < end) {
+                int paramEnd = url.indexOf('&', param);
+                if (paramEnd < 0 || paramEnd > end) {
+                    paramEnd = end;
+                }
+                int eq = url.indexOf('=', param);
+                int nameEnd = eq < 0 || eq > paramEnd ? paramEnd : eq;
+                if (nameEnd > param) {
+                    names.add(url.substring(param, nameEnd));
+                }
+                param = paramEnd + 1;
+            }
+            pattern.append('?').append(String.join("&", names));
+        }
+        return pattern.toString();
+    }
+
+    private Counts counts(String pattern) {
+        Counts counts = patterns.get(pattern);
+        if (counts != null) {
+            return counts;
+        }
+        if (patterns.size() >= MAX_PATTERNS) {
+            return patterns.computeIfAbsent(OTHER_PATTERN, p -> new Counts());
+        }
+        return patterns.computeIfAbsent(pattern, p -> new Counts());
+    }
+
+    private static boolean hasDigit(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Counts {
+        final LongAdder pages = new LongAdder();
+        final LongAdder duplicates = new LongAdder();
+    }
+}
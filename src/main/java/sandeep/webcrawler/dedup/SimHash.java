@@ -0,0 +1,126 @@
+package sandeep.webcrawler.dedup;
+
+/**
+ * 64-bit SimHash of page text (Charikar). Text is split into lower-cased
+ * alphanumeric words, and every run of three consecutive words (a
+ * shingle) votes on each of the 64 bits with its hash. Pages that share
+ * most of their shingles get fingerprints a few bits apart, so near
+ * duplicates are found by Hamming distance.
+ *
+ * Text is fed incrementally through a {@link Builder}, from chars or from
+ * raw bytes, so the streaming extractor never has to build the page text
+ * as a string. Bytes above 0x7F count as word characters, which keeps
+ * UTF-8 words whole.
+ */
+public final class SimHash {
+
+    static final int SHINGLE = 3;
+
+    private SimHash() {}
+
+    public static long of(CharSequence text) {
+        Builder builder = new Builder();
+        builder.append(text);
+        return builder.build();
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    public static final class Builder {
+        private final int[] votes = new int[64];
+        private long word = FNV_OFFSET;
+        private int wordLength;
+        // Hashes of the two words before the current one
+        private long previous1;
+        private long previous2;
+        private int words;
+        private int shingles;
+
+        private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+        private static final long FNV_PRIME = 0x100000001b3L;
+
+        public void append(CharSequence text) {
+            for (int i = 0; i < text.length(); i++) {
+                append(text.charAt(i));
+            }
+        }
+
+        public void append(byte[] bytes, int from, int to) {
+            for (int i = from; i < to; i++) {
+                append((char) (bytes[i] & 0xFF));
+            }
+        }
+
+        public void append(char c) {
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c > 0x7F) {
+                word = (word ^ c) * FNV_PRIME;
+                wordLength++;
+            } else if (c >= 'A' && c <= 'Z') {
+                word = (word ^ (c + ('a' - 'A'))) * FNV_PRIME;
+                wordLength++;
+            } else if (wordLength > 0) {
+                endWord();
+            }
+        }
+
+        // Very short texts give fingerprints too coarse to compare
+        public int words() {
+            return words + (wordLength > 0 ? 1 : 0);
+        }
+
+        /**
+         * The fingerprint of everything appended; 0 if there were no words.
+         * A text shorter than one shingle is hashed as a single shingle.
+         */
+        public long build() {
+            if (wordLength > 0) {
+                endWord();
+            }
+            if (words == 0) {
+                return 0;
+            }
+            if (shingles == 0) {
+                vote(mix(previous2 ^ Long.rotateLeft(previous1, 21)));
+                shingles++;
+            }
+            long fingerprint = 0;
+            for (int bit = 0; bit < 64; bit++) {
+                if (votes[bit] > 0) {
+                    fingerprint |= 1L << bit;
+                }
+            }
+            return fingerprint;
+        }
+
+        private void endWord() {
+            long hash = word;
+            word = FNV_OFFSET;
+            wordLength = 0;
+            words++;
+            if (words >= SHINGLE) {
+                vote(mix(previous2 ^ Long.rotateLeft(previous1, 21) ^ Long.rotateLeft(hash, 42)));
+                shingles++;
+            }
+            previous2 = previous1;
+            previous1 = hash;
+        }
+
+        private void vote(long hash) {
+            for (int bit = 0; bit < 64; bit++) {
+                votes[bit] += (int) ((hash >>> bit) & 1) * 2 - 1;
+            }
+        }
+
+        // MurmurHash3 finalizer, so similar shingles still vote independently
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package sandeep.webcrawler.dns;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Resolves hosts ahead of their fetches and caches the answers. A host is
+ * looked up on a virtual thread as soon as it is prefetched, typically when
+ * its first URL enters the frontier, so by the time a worker fetches from it
+ * the address is usually known. Concurrent lookups for a host share one
+ * resolution. Answers are kept for a TTL, failures for a shorter negative
+ * TTL, during which fetches to the host fail at once. A failure is not
+ * retried within that window, so it is kept short.
+ *
+ * With {@link Resolver#SYSTEM} the lookup also warms the JVM's address
+ * cache, which the HTTP client consults when it connects; both default TTLs
+ * match that cache's.
+ */
+public class DnsCache {
+
+    static final long DEFAULT_TTL_MS = TimeUnit.SECONDS.toMillis(30);
+    static final long DEFAULT_NEGATIVE_TTL_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final int DEFAULT_MAX_HOSTS = 10_000;
+
+    private final Resolver resolver;
+    private final long ttlMs;
+    private final long negativeTtlMs;
+    private final int maxHosts;
+    private final LongSupplier clock;
+    private final Executor executor = task -> Thread.ofVirtual().name("dns-resolve").start(task);
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        final CompletableFuture<InetAddress[]> addresses = new CompletableFuture<>();
+        volatile long expiresAt = Long.MAX_VALUE; // set just before addresses completes
+
+        boolean isExpired(long now) {
+            return addresses.isDone() && expiresAt <= now;
+        }
+    }
+
+    public DnsCache() {
+        this(Resolver.SYSTEM, DEFAULT_TTL_MS, DEFAULT_NEGATIVE_TTL_MS, DEFAULT_MAX_HOSTS);
+    }
+
+    public DnsCache(Resolver resolver, long ttlMs, long negativeTtlMs, int maxHosts) {
+        this(resolver, ttlMs, negativeTtlMs, maxHosts, System::currentTimeMillis);
+    }
+
+    DnsCache(Resolver resolver, long ttlMs, long negativeTtlMs, int maxHosts, LongSupplier clock) {
+        this.resolver = resolver;
+        this.ttlMs = ttlMs;
+        this.negativeTtlMs = negativeTtlMs;
+        this.maxHosts = Math.max(1, maxHosts);
+        this.clock = clock;
+    }
+
+    // Starts resolving the host unless a fresh answer or a lookup is already there; never blocks
+    public void prefetch(String host) {
+        if (host != null && !host.isEmpty()) {
+            entry(host);
+        }
+    }
+
+    /**
+     * The host's addresses, waiting for its lookup if one is running.
+     *
+     * @throws UnknownHostException   if the host does not resolve, now or
+     *                                within the negative TTL
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    public InetAddress[] resolve(String host) throws IOException {
+        try {
+            return entry(host).addresses.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted resolving " + host);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnknownHostException unknown) {
+                throw unknown;
+            }
+            UnknownHostException unknown = new UnknownHostException(host);
+            unknown.initCause(e.getCause());
+            throw unknown;
+        }
+    }
+
+    // Whether an answer, positive or negative, is cached and fresh
+    public boolean isCached(String host) {
+        Entry entry = cache.get(host);
+        return entry != null && entry.addresses.isDone() && !entry.isExpired(clock.getAsLong());
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private Entry entry(String host) {
+        long now = clock.getAsLong();
+        Entry entry = cache.get(host);
+        if (entry != null && !entry.isExpired(now)) {
+            return entry;
+        }
+        Entry created = new Entry();
+        entry = cache.compute(host, (k, existing) ->
+                existing != null && !existing.isExpired(now) ? existing : created);
+        if (entry == created) {
+            executor.execute(() -> lookUp(host, created));
+            if (cache.size() > maxHosts) {
+                evict();
+            }
+        }
+        return entry;
+    }
+
+    private void lookUp(String host, Entry entry) {
+        try {
+            InetAddress[] addresses = resolver.resolve(host);
+            entry.expiresAt = clock.getAsLong() + ttlMs;
+            entry.addresses.complete(addresses);
+        } catch (Exception e) {
+            entry.expiresAt = clock.getAsLong() + negativeTtlMs;
+            entry.addresses.completeExceptionally(e);
+        }
+    }
+
+    // Expired entries go first, then answered ones until back under the limit; lookups in flight stay
+    private void evict() {
+        long now = clock.getAsLong();
+        cache.values().removeIf(entry -> entry.isExpired(now));
+        Iterator<Entry> it = cache.values().iterator();
+        while (cache.size() > maxHosts && it.hasNext()) {
+            if (it.next().addresses.isDone()) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package sandeep.webcrawler.dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Looks up a host's addresses. Implementations may block; {@link DnsCache}
+ * calls them off the crawl's worker threads.
+ */
+public interface Resolver {
+
+    // The JVM's resolver, which also fills the JVM's own address cache used by the HTTP client
+    Resolver SYSTEM = InetAddress::getAllByName;
+
+    InetAddress[] resolve(String host) throws UnknownHostException;
+}
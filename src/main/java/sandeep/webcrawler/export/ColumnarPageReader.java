@@ -0,0 +1,135 @@
+package sandeep.webcrawler.export;
+
+import sandeep.webcrawler.export.ColumnarPageSink.Column;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads single columns back from a {@link ColumnarPageSink} file, one row
+ * group at a time. Chunks of other columns are skipped unread.
+ */
+public class ColumnarPageReader {
+
+    private final Path file;
+
+    public ColumnarPageReader(Path file) {
+        this.file = file;
+    }
+
+    // Values of a URL, TITLE or DESCRIPTION column in row order; null for missing descriptions
+    public void scanStrings(Column column, Consumer<String> action) throws IOException {
+        if (column.isList) {
+            throw new IllegalArgumentException(column + " is a list column");
+        }
+        scan(column, values -> action.accept(readString(values)));
+    }
+
+    // Values of a HEADINGS or LINKS column in row order
+    public void scanLists(Column column, Consumer<List<String>> action) throws IOException {
+        if (!column.isList) {
+            throw new IllegalArgumentException(column + " is not a list column");
+        }
+        scan(column, values -> {
+            int count = readVarint(values);
+            List<String> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                list.add(readString(values));
+            }
+            action.accept(list);
+        });
+    }
+
+    private void scan(Column column, Consumer<Cursor> readRow) throws IOException {
+        Inflater inflater = new Inflater();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            byte[] magic = in.readNBytes(ColumnarPageSink.MAGIC.length);
+            if (!Arrays.equals(magic, ColumnarPageSink.MAGIC)) {
+                throw new IOException(file + " is not a columnar page file");
+            }
+            byte[] compressed = new byte[0];
+            Cursor values = new Cursor();
+            int rows;
+            while ((rows = in.readInt()) > 0) {
+                for (Column c : Column.values()) {
+                    int compressedLength = in.readInt();
+                    int rawLength = in.readInt();
+                    if (c != column) {
+                        in.skipNBytes(compressedLength);
+                        continue;
+                    }
+                    if (compressed.length < compressedLength) {
+                        compressed = new byte[compressedLength];
+                    }
+                    in.readFully(compressed, 0, compressedLength);
+                    values.reset(inflate(inflater, compressed, compressedLength, rawLength));
+                }
+                for (int row = 0; row < rows; row++) {
+                    readRow.accept(values);
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private byte[] inflate(Inflater inflater, byte[] compressed, int length, int rawLength) throws IOException {
+        byte[] raw = new byte[rawLength];
+        inflater.reset();
+        inflater.setInput(compressed, 0, length);
+        try {
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                read += inflater.inflate(raw, read, rawLength - read);
+            }
+            if (read != rawLength) {
+                throw new IOException("Truncated column chunk in " + file);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column chunk in " + file, e);
+        }
+        return raw;
+    }
+
+    private static String readString(Cursor values) {
+        int length = readVarint(values) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(values.bytes, values.position, length, StandardCharsets.UTF_8);
+        values.position += length;
+        return value;
+    }
+
+    private static int readVarint(Cursor values) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = values.bytes[values.position++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static final class Cursor {
+        byte[] bytes;
+        int position;
+
+        void reset(byte[] bytes) {
+            this.bytes = bytes;
+            this.position = 0;
+        }
+    }
+}
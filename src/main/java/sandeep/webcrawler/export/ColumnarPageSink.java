@@ -0,0 +1,166 @@
+package sandeep.webcrawler.export;
+
+import sandeep.webcrawler.extract.PageSummary;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Compressed columnar file for analytics over large crawls. Pages are
+ * buffered into row groups; each group is written as one deflate-compressed
+ * chunk per column, so a reader that needs only URLs and titles skips the
+ * link and heading chunks without decompressing them, and each column
+ * compresses well because similar values sit together. Memory use is
+ * bounded by one row group.
+ *
+ * <pre>
+ * file      := "PGC1" group* int(0)
+ * group     := int(rows) chunk{5}            in {@link Column} order
+ * chunk     := int(compressedBytes) int(rawBytes) deflate(values)
+ * string    := varint(utf8Bytes + 1) utf8    varint(0) for null
+ * list      := varint(count) string*
+ * </pre>
+ *
+ * Read it back with {@link ColumnarPageReader}.
+ */
+public class ColumnarPageSink implements PageSink {
+
+    public enum Column {
+        URL(false), TITLE(false), DESCRIPTION(false), HEADINGS(true), LINKS(true);
+
+        final boolean isList;
+
+        Column(boolean isList) {
+            this.isList = isList;
+        }
+    }
+
+    static final byte[] MAGIC = {'P', 'G', 'C', '1'};
+    public static final int DEFAULT_ROWS_PER_GROUP = 4096;
+    // A group is also flushed early once its raw values reach this size
+    private static final int MAX_GROUP_BYTES = 8 << 20;
+
+    private final DataOutputStream out;
+    private final int rowsPerGroup;
+    private final ColumnBuffer[] columns = new ColumnBuffer[Column.values().length];
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private byte[] compressBuffer = new byte[64 * 1024];
+    private int rows = 0;
+
+    public ColumnarPageSink(Path file) throws IOException {
+        this(Files.newOutputStream(file), DEFAULT_ROWS_PER_GROUP);
+    }
+
+    public ColumnarPageSink(OutputStream out, int rowsPerGroup) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        this.rowsPerGroup = Math.max(1, rowsPerGroup);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnBuffer();
+        }
+        this.out.write(MAGIC);
+    }
+
+    @Override
+    public synchronized void write(String url, PageSummary page) throws IOException {
+        columns[Column.URL.ordinal()].writeString(url);
+        columns[Column.TITLE.ordinal()].writeString(page.getTitle());
+        columns[Column.DESCRIPTION.ordinal()].writeString(page.getDescription());
+        columns[Column.HEADINGS.ordinal()].writeList(page.getHeadings());
+        columns[Column.LINKS.ordinal()].writeList(page.getLinks());
+        rows++;
+        if (rows >= rowsPerGroup || bufferedBytes() >= MAX_GROUP_BYTES) {
+            flushGroup();
+        }
+    }
+
+    private int bufferedBytes() {
+        int total = 0;
+        for (ColumnBuffer column : columns) {
+            total += column.size();
+        }
+        return total;
+    }
+
+    private void flushGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        out.writeInt(rows);
+        for (ColumnBuffer column : columns) {
+            byte[] raw = column.buffer();
+            int rawLength = column.size();
+            deflater.reset();
+            deflater.setInput(raw, 0, rawLength);
+            deflater.finish();
+            int compressed = 0;
+            while (!deflater.finished()) {
+                if (compressed == compressBuffer.length) {
+                    compressBuffer = Arrays.copyOf(compressBuffer, compressBuffer.length * 2);
+                }
+                compressed += deflater.deflate(compressBuffer, compressed, compressBuffer.length - compressed);
+            }
+            out.writeInt(compressed);
+            out.writeInt(rawLength);
+            out.write(compressBuffer, 0, compressed);
+            column.reset();
+        }
+        rows = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flushGroup();
+            out.writeInt(0);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    // ByteArrayOutputStream with access to its array, to compress without a copy
+    private static final class ColumnBuffer extends ByteArrayOutputStream {
+
+        ColumnBuffer() {
+            super(16 * 1024);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeList(List<String> values) {
+            writeVarint(values.size());
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+    }
+}
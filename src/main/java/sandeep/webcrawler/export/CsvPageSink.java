@@ -0,0 +1,79 @@
+package sandeep.webcrawler.export;
+
+import sandeep.webcrawler.extract.PageSummary;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * CSV per RFC 4180: CRLF line endings, and fields containing a comma,
+ * quote or line break are quoted with embedded quotes doubled. Headings are
+ * joined with '|' into one field; links are not written.
+ */
+public class CsvPageSink implements PageSink {
+
+    private static final String HEADER = "URL,Title,Description,Headings";
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private final Writer writer;
+
+    public CsvPageSink(Path file) throws IOException {
+        this(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+
+    public CsvPageSink(Writer writer) throws IOException {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, BUFFER_CHARS);
+        this.writer.write(HEADER);
+        this.writer.write("\r\n");
+    }
+
+    @Override
+    public synchronized void write(String url, PageSummary page) throws IOException {
+        writeField(url);
+        writer.write(',');
+        writeField(page.getTitle());
+        writer.write(',');
+        writeField(page.getDescription() != null ? page.getDescription() : "N/A");
+        writer.write(',');
+        writeField(String.join("|", page.getHeadings()));
+        writer.write("\r\n");
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', start)) {
+            writer.write(value, start, i + 1 - start);
+            writer.write('"');
+            start = i + 1;
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,93 @@
+package sandeep.webcrawler.export;
+
+import sandeep.webcrawler.extract.PageSummary;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * One JSON object per line with url, title, description (null if the page
+ * has none), headings and links.
+ */
+public class JsonLinesPageSink implements PageSink {
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer writer;
+
+    public JsonLinesPageSink(Path file) throws IOException {
+        this(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+
+    public JsonLinesPageSink(Writer writer) {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, BUFFER_CHARS);
+    }
+
+    @Override
+    public synchronized void write(String url, PageSummary page) throws IOException {
+        writer.write("{\"url\":");
+        writeString(url);
+        writer.write(",\"title\":");
+        writeString(page.getTitle());
+        writer.write(",\"description\":");
+        writeString(page.getDescription());
+        writer.write(",\"headings\":");
+        writeArray(page.getHeadings());
+        writer.write(",\"links\":");
+        writeArray(page.getLinks());
+        writer.write("}\n");
+    }
+
+    private void writeArray(List<String> values) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeString(values.get(i));
+        }
+        writer.write(']');
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            writer.write(value, start, i - start);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    writer.write("\\u00");
+                    writer.write(HEX[c >> 4]);
+                    writer.write(HEX[c & 0xF]);
+                }
+            }
+            start = i + 1;
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
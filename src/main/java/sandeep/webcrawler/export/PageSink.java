@@ -0,0 +1,35 @@
+package sandeep.webcrawler.export;
+
+import sandeep.webcrawler.extract.PageSummary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Destination for extracted pages, written one at a time as they are
+ * crawled so nothing accumulates on the heap. Implementations are safe for
+ * concurrent use by all workers; close() flushes and finishes the file.
+ */
+public interface PageSink extends Closeable {
+
+    void write(String url, PageSummary page) throws IOException;
+
+    /**
+     * Opens a sink for the file's extension: {@code .csv}, {@code .jsonl}
+     * or {@code .pgc} (columnar, one deflate-compressed chunk per column;
+     * see {@link ColumnarPageSink}).
+     */
+    static PageSink open(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return new CsvPageSink(file);
+        } else if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return new JsonLinesPageSink(file);
+        } else if (name.endsWith(".pgc")) {
+            return new ColumnarPageSink(file);
+        }
+        throw new IllegalArgumentException("No page sink for " + file + "; use .csv, .jsonl or .pgc");
+    }
+}
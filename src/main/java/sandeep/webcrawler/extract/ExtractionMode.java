@@ -0,0 +1,8 @@
+package sandeep.webcrawler.extract;
+
+public enum ExtractionMode {
+    // Full Jsoup DOM, then CSS selectors
+    DOM,
+    // Single pass over the response bytes with StreamingLinkExtractor, no DOM
+    STREAMING
+}
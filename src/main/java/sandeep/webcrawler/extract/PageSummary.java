@@ -0,0 +1,47 @@
+package sandeep.webcrawler.extract;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of a page the crawlers use: title, meta description, h1-h3
+ * headings and absolute link targets, in document order.
+ */
+public class PageSummary {
+    private final String title;
+    private final String description;
+    private final List<String> headings;
+    private final List<String> links;
+
+    public PageSummary(String title, String description, List<String> headings, List<String> links) {
+        this.title = title;
+        this.description = description;
+        this.headings = headings;
+        this.links = links;
+    }
+
+    /**
+     * Builds the summary from a Jsoup DOM; the reference behaviour that
+     * {@link StreamingLinkExtractor} reproduces without building one.
+     */
+    public static PageSummary of(Document document) {
+        Element meta = document.selectFirst("meta[name=description]");
+        List<String> headings = new ArrayList<>();
+        document.select("h1, h2, h3").forEach(h -> headings.add(h.text()));
+        List<String> links = new ArrayList<>();
+        document.select("a[href]").forEach(a -> links.add(a.absUrl("href")));
+        return new PageSummary(document.title(), meta != null ? meta.attr("content") : null, headings, links);
+    }
+
+    public String getTitle() { return title; }
+
+    // null when the page has no meta description
+    public String getDescription() { return description; }
+
+    public List<String> getHeadings() { return headings; }
+
+    public List<String> getLinks() { return links; }
+}
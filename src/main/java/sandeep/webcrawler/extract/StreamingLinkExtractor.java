@@ -0,0 +1,510 @@
+package sandeep.webcrawler.extract;
+
+import org.jsoup.internal.StringUtil;
+import org.jsoup.parser.Parser;
+import sandeep.webcrawler.dedup.SimHash;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single forward pass over the raw HTML bytes that pulls out the title, meta
+ * description, h1-h3 text and {@code <a href>} targets without building a
+ * DOM. Only attribute values and captured text are decoded to strings; the
+ * rest of the page is skipped byte by byte. Comments, {@code <script>} and
+ * {@code <style>} bodies are skipped, {@code <base href>} is honoured, and
+ * links are resolved the same way as Jsoup's {@code absUrl}.
+ *
+ * <p>Not a full HTML5 tree builder: malformed nesting is handled
+ * approximately, which is fine for link discovery but is why the DOM path
+ * remains the default.
+ */
+public class StreamingLinkExtractor {
+
+    public PageSummary extract(byte[] html, String charsetName, String baseUrl) {
+        return extract(html, charsetName, baseUrl, null);
+    }
+
+    /**
+     * Also feeds the page's text, outside tags, comments, scripts, styles
+     * and the title, to {@code text} when it is not null. The bytes are
+     * passed as they are, without entity or charset decoding.
+     */
+    public PageSummary extract(byte[] html, String charsetName, String baseUrl, SimHash.Builder text) {
+        Charset charset = null;
+        if (charsetName != null) {
+            try {
+                charset = Charset.forName(charsetName);
+            } catch (IllegalArgumentException e) {
+                // fall through to sniffing
+            }
+        }
+        return new Scan(html, charset, baseUrl, text).run();
+    }
+
+    private static final class Scan {
+        private static final int NONE = 0;
+        private static final int HEADING = 1;
+
+        private final byte[] b;
+        private final int n;
+        private Charset charset;
+        private final boolean charsetFixed;
+        private final String baseUrl;
+        private final SimHash.Builder textSink;
+        private URL base;
+        private boolean baseResolved;
+        private boolean baseTagSeen;
+        private int pos;
+
+        private String title;
+        private String description;
+        private final List<String> headings = new ArrayList<>();
+        private final List<String> links = new ArrayList<>();
+
+        private int capture = NONE;
+        private byte[] text = new byte[256];
+        private int textLength;
+
+        // Attribute values of the current tag that we care about
+        private String href;
+        private String metaName;
+        private String metaContent;
+        private String metaCharset;
+        private String metaHttpEquiv;
+
+        Scan(byte[] html, Charset charset, String baseUrl, SimHash.Builder textSink) {
+            this.b = html;
+            this.textSink = textSink;
+            this.n = html.length;
+            this.charset = charset != null ? charset : StandardCharsets.UTF_8;
+            this.charsetFixed = charset != null;
+            this.baseUrl = baseUrl;
+        }
+
+        PageSummary run() {
+            while (pos < n) {
+                int lt = indexOf((byte) '<', pos);
+                if (lt < 0) {
+                    appendText(pos, n);
+                    break;
+                }
+                appendText(pos, lt);
+                pos = lt;
+                markup();
+            }
+            if (capture == HEADING) {
+                endHeading();
+            }
+            return new PageSummary(title != null ? title : "", description, headings, links);
+        }
+
+        private void markup() {
+            int next = pos + 1;
+            if (next >= n) {
+                pos = n;
+                return;
+            }
+            byte c = b[next];
+            if (c == '!') {
+                if (startsWith(next, "!--")) {
+                    int end = indexOf("-->", next + 3);
+                    pos = end < 0 ? n : end + 3;
+                } else {
+                    skipPast((byte) '>', next);
+                }
+            } else if (c == '?') {
+                skipPast((byte) '>', next);
+            } else if (c == '/') {
+                int nameStart = next + 1;
+                int nameEnd = nameEnd(nameStart);
+                if (capture == HEADING && isHeading(nameStart, nameEnd)) {
+                    endHeading();
+                }
+                skipPast((byte) '>', nameEnd);
+            } else if (isLetter(c)) {
+                startTag(next);
+            } else {
+                // A bare '<' is text
+                appendText(pos, next);
+                pos = next;
+            }
+        }
+
+        private void startTag(int nameStart) {
+            int nameEnd = nameEnd(nameStart);
+            href = null;
+            metaName = null;
+            metaContent = null;
+            metaCharset = null;
+            metaHttpEquiv = null;
+            int tag = tagOf(nameStart, nameEnd);
+            pos = attributes(nameEnd, tag);
+
+            switch (tag) {
+                case 'a':
+                    if (href != null) {
+                        links.add(resolve(href));
+                    }
+                    break;
+                case 'b':
+                    if (!baseTagSeen && href != null) {
+                        baseTagSeen = true;
+                        base = toUrl(resolve(href));
+                        baseResolved = true;
+                    }
+                    break;
+                case 'm':
+                    meta();
+                    break;
+                case 't':
+                    int end = indexOfIgnoreCase("</title", pos);
+                    if (title == null) {
+                        title = normalize(decode(pos, end < 0 ? n : end));
+                    }
+                    skipPast((byte) '>', end < 0 ? n : end);
+                    break;
+                case 's':
+                case 'y':
+                    String close = tag == 's' ? "</script" : "</style";
+                    int rawEnd = indexOfIgnoreCase(close, pos);
+                    skipPast((byte) '>', rawEnd < 0 ? n : rawEnd);
+                    break;
+                case 'h':
+                    if (capture == HEADING) {
+                        // A heading start tag implicitly closes the open heading
+                        endHeading();
+                    }
+                    capture = HEADING;
+                    textLength = 0;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void meta() {
+            if (description == null && metaName != null && metaName.equalsIgnoreCase("description")) {
+                description = metaContent != null ? metaContent : "";
+            }
+            if (!charsetFixed) {
+                String declared = metaCharset;
+                if (declared == null && metaHttpEquiv != null && metaHttpEquiv.equalsIgnoreCase("content-type")
+                        && metaContent != null) {
+                    int idx = metaContent.toLowerCase().indexOf("charset=");
+                    declared = idx >= 0 ? metaContent.substring(idx + 8).trim() : null;
+                }
+                if (declared != null) {
+                    try {
+                        charset = Charset.forName(declared.trim());
+                    } catch (IllegalArgumentException e) {
+                        // keep current charset
+                    }
+                }
+            }
+        }
+
+        /**
+         * Parses attributes up to the closing '>', honouring quotes, and
+         * returns the position after it.
+         */
+        private int attributes(int i, int tag) {
+            while (i < n) {
+                while (i < n && isSpace(b[i])) {
+                    i++;
+                }
+                if (i >= n) {
+                    break;
+                }
+                if (b[i] == '>') {
+                    return i + 1;
+                }
+                if (b[i] == '/') {
+                    i++;
+                    continue;
+                }
+                int attrStart = i;
+                while (i < n && !isSpace(b[i]) && b[i] != '=' && b[i] != '>' && b[i] != '/') {
+                    i++;
+                }
+                int attrEnd = i;
+                if (attrEnd == attrStart) {
+                    i++;
+                    continue;
+                }
+                while (i < n && isSpace(b[i])) {
+                    i++;
+                }
+                int valueStart = i;
+                int valueEnd = i;
+                if (i < n && b[i] == '=') {
+                    i++;
+                    while (i < n && isSpace(b[i])) {
+                        i++;
+                    }
+                    if (i < n && (b[i] == '"' || b[i] == '\'')) {
+                        byte quote = b[i];
+                        valueStart = i + 1;
+                        int close = indexOf(quote, valueStart);
+                        valueEnd = close < 0 ? n : close;
+                        i = close < 0 ? n : close + 1;
+                    } else {
+                        valueStart = i;
+                        while (i < n && !isSpace(b[i]) && b[i] != '>') {
+                            i++;
+                        }
+                        valueEnd = i;
+                    }
+                }
+                attribute(tag, attrStart, attrEnd, valueStart, valueEnd);
+            }
+            return n;
+        }
+
+        private void attribute(int tag, int nameStart, int nameEnd, int valueStart, int valueEnd) {
+            if (tag == 'a' || tag == 'b') {
+                if (href == null && equalsIgnoreCase(nameStart, nameEnd, "href")) {
+                    href = attributeValue(valueStart, valueEnd);
+                }
+            } else if (tag == 'm') {
+                if (equalsIgnoreCase(nameStart, nameEnd, "name")) {
+                    metaName = attributeValue(valueStart, valueEnd);
+                } else if (equalsIgnoreCase(nameStart, nameEnd, "content")) {
+                    metaContent = attributeValue(valueStart, valueEnd);
+                } else if (equalsIgnoreCase(nameStart, nameEnd, "charset")) {
+                    metaCharset = attributeValue(valueStart, valueEnd);
+                } else if (equalsIgnoreCase(nameStart, nameEnd, "http-equiv")) {
+                    metaHttpEquiv = attributeValue(valueStart, valueEnd);
+                }
+            }
+        }
+
+        private String attributeValue(int start, int end) {
+            String value = new String(b, start, end - start, charset);
+            return value.indexOf('&') >= 0 ? Parser.unescapeEntities(value, true) : value;
+        }
+
+        // Tag codes: a, b(ase), m(eta), t(itle), s(cript), y (style), h(1-3); 0 for anything else
+        private int tagOf(int start, int end) {
+            int length = end - start;
+            if (length == 1 && lower(b[start]) == 'a') {
+                return 'a';
+            }
+            if (isHeading(start, end)) {
+                return 'h';
+            }
+            if (equalsIgnoreCase(start, end, "base")) {
+                return 'b';
+            }
+            if (equalsIgnoreCase(start, end, "meta")) {
+                return 'm';
+            }
+            if (equalsIgnoreCase(start, end, "title")) {
+                return 't';
+            }
+            if (equalsIgnoreCase(start, end, "script")) {
+                return 's';
+            }
+            if (equalsIgnoreCase(start, end, "style")) {
+                return 'y';
+            }
+            return 0;
+        }
+
+        private boolean isHeading(int start, int end) {
+            return end - start == 2 && lower(b[start]) == 'h' && b[start + 1] >= '1' && b[start + 1] <= '3';
+        }
+
+        private void endHeading() {
+            headings.add(normalize(new String(text, 0, textLength, charset)));
+            capture = NONE;
+            textLength = 0;
+        }
+
+        private void appendText(int start, int end) {
+            if (textSink != null && end > start) {
+                textSink.append(b, start, end);
+                // Tags separate words, as they do in Element.text() for block elements
+                textSink.append(' ');
+            }
+            if (capture == NONE || end <= start) {
+                return;
+            }
+            int length = end - start;
+            if (textLength + length > text.length) {
+                byte[] grown = new byte[Math.max(text.length * 2, textLength + length)];
+                System.arraycopy(text, 0, grown, 0, textLength);
+                text = grown;
+            }
+            System.arraycopy(b, start, text, textLength, length);
+            textLength += length;
+        }
+
+        private String decode(int start, int end) {
+            return new String(b, start, Math.max(0, end - start), charset);
+        }
+
+        // Entity-decodes and collapses whitespace like Element.text()
+        private static String normalize(String raw) {
+            String value = raw.indexOf('&') >= 0 ? Parser.unescapeEntities(raw, false) : raw;
+            StringBuilder out = new StringBuilder(value.length());
+            boolean pendingSpace = false;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u00a0') {
+                    pendingSpace = out.length() > 0;
+                } else {
+                    if (pendingSpace) {
+                        out.append(' ');
+                        pendingSpace = false;
+                    }
+                    out.append(c);
+                }
+            }
+            return out.toString();
+        }
+
+        private String resolve(String relative) {
+            String rel = stripControlChars(relative);
+            if (!baseResolved) {
+                base = toUrl(baseUrl);
+                baseResolved = true;
+            }
+            try {
+                if (base == null) {
+                    return URI.create(rel).toURL().toExternalForm();
+                }
+                return StringUtil.resolve(base, rel).toExternalForm();
+            } catch (MalformedURLException | IllegalArgumentException e) {
+                return hasScheme(rel) ? rel : "";
+            }
+        }
+
+        private static URL toUrl(String url) {
+            try {
+                return url == null || url.isEmpty() ? null : URI.create(stripControlChars(url)).toURL();
+            } catch (MalformedURLException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        private static String stripControlChars(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) < 0x20) {
+                    StringBuilder out = new StringBuilder(value.length());
+                    for (int j = 0; j < value.length(); j++) {
+                        if (value.charAt(j) >= 0x20) {
+                            out.append(value.charAt(j));
+                        }
+                    }
+                    return out.toString();
+                }
+            }
+            return value;
+        }
+
+        private static boolean hasScheme(String url) {
+            int colon = url.indexOf(':');
+            if (colon <= 0 || !Character.isLetter(url.charAt(0))) {
+                return false;
+            }
+            for (int i = 1; i < colon; i++) {
+                char c = url.charAt(i);
+                if (!Character.isLetterOrDigit(c) && c != '+' && c != '-' && c != '.') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int nameEnd(int i) {
+            while (i < n && !isSpace(b[i]) && b[i] != '>' && b[i] != '/') {
+                i++;
+            }
+            return i;
+        }
+
+        private void skipPast(byte target, int from) {
+            int idx = indexOf(target, from);
+            pos = idx < 0 ? n : idx + 1;
+        }
+
+        private int indexOf(byte target, int from) {
+            for (int i = from; i < n; i++) {
+                if (b[i] == target) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int indexOf(String target, int from) {
+            outer:
+            for (int i = from; i <= n - target.length(); i++) {
+                for (int j = 0; j < target.length(); j++) {
+                    if (b[i + j] != target.charAt(j)) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+
+        // target must be lower-case ASCII
+        private int indexOfIgnoreCase(String target, int from) {
+            outer:
+            for (int i = from; i <= n - target.length(); i++) {
+                for (int j = 0; j < target.length(); j++) {
+                    if (lower(b[i + j]) != target.charAt(j)) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+
+        private boolean startsWith(int from, String prefix) {
+            if (from + prefix.length() > n) {
+                return false;
+            }
+            for (int j = 0; j < prefix.length(); j++) {
+                if (b[from + j] != prefix.charAt(j)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // target must be lower-case ASCII
+        private boolean equalsIgnoreCase(int start, int end, String target) {
+            if (end - start != target.length()) {
+                return false;
+            }
+            for (int j = 0; j < target.length(); j++) {
+                if (lower(b[start + j]) != target.charAt(j)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int lower(byte c) {
+            return c >= 'A' && c <= 'Z' ? c + 32 : c;
+        }
+
+        private static boolean isLetter(byte c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+
+        private static boolean isSpace(byte c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package sandeep.webcrawler.fetch;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Scratch arrays that response bodies are collected in before being copied
+ * out at their exact size, so every fetch does not grow a fresh buffer from
+ * nothing. Arrays larger than {@code maxPooledSize} are left to the garbage
+ * collector, so one huge page does not stay pinned in the pool.
+ */
+public class BufferPool {
+
+    static final int INITIAL_SIZE = 16 * 1024;
+
+    private final ArrayBlockingQueue<byte[]> free;
+    private final int maxPooledSize;
+
+    public BufferPool(int maxBuffers, int maxPooledSize) {
+        this.free = new ArrayBlockingQueue<>(Math.max(1, maxBuffers));
+        this.maxPooledSize = maxPooledSize;
+    }
+
+    public byte[] acquire() {
+        byte[] buffer = free.poll();
+        return buffer != null ? buffer : new byte[INITIAL_SIZE];
+    }
+
+    // The caller must not touch the array afterwards
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length <= maxPooledSize) {
+            free.offer(buffer);
+        }
+    }
+
+    public int size() {
+        return free.size();
+    }
+}
@@ -0,0 +1,177 @@
+package sandeep.webcrawler.fetch;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Collects a response body into a pooled buffer and cancels the download as
+ * soon as it passes {@code maxBytes}. A gzip or deflate body is decoded
+ * once it is complete, and the decoded size is held to the same limit, so
+ * a small compressed body cannot expand without bound.
+ */
+class CappedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+
+    private final int maxBytes;
+    private final String encoding;
+    private final BufferPool pool;
+    private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+    private byte[] buffer;
+    private int length = 0;
+
+    /**
+     * @param encoding the Content-Encoding, or null for none
+     */
+    CappedBodySubscriber(int maxBytes, String encoding, BufferPool pool) {
+        this.maxBytes = maxBytes;
+        this.encoding = encoding != null ? encoding.trim().toLowerCase(Locale.ROOT) : "identity";
+        this.pool = pool;
+    }
+
+    // A body that is not downloaded at all
+    static HttpResponse.BodySubscriber<byte[]> rejecting(IOException reason) {
+        return new HttpResponse.BodySubscriber<>() {
+            private final CompletableFuture<byte[]> body = CompletableFuture.failedFuture(reason);
+
+            @Override
+            public CompletionStage<byte[]> getBody() {
+                return body;
+            }
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.cancel();
+            }
+
+            @Override
+            public void onNext(List<ByteBuffer> item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        };
+    }
+
+    @Override
+    public CompletionStage<byte[]> getBody() {
+        return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        buffer = pool.acquire();
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+        if (body.isDone()) {
+            return;
+        }
+        for (ByteBuffer bytes : item) {
+            int remaining = bytes.remaining();
+            if (length + remaining > maxBytes) {
+                subscription.cancel();
+                fail(new ResponseRejectedException("Body larger than " + maxBytes + " bytes"));
+                return;
+            }
+            ensureCapacity(length + remaining);
+            bytes.get(buffer, length, remaining);
+            length += remaining;
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (body.isDone()) {
+            return;
+        }
+        try {
+            byte[] result = switch (encoding) {
+                case "gzip", "x-gzip" -> decode(new GZIPInputStream(new ByteArrayInputStream(buffer, 0, length)));
+                case "deflate" -> inflate();
+                default -> Arrays.copyOf(buffer, length);
+            };
+            release();
+            body.complete(result);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // "deflate" is meant to be zlib-wrapped, but some servers send raw deflate
+    private byte[] inflate() throws IOException {
+        try {
+            return decode(new InflaterInputStream(new ByteArrayInputStream(buffer, 0, length), new Inflater(false)));
+        } catch (IOException e) {
+            return decode(new InflaterInputStream(new ByteArrayInputStream(buffer, 0, length), new Inflater(true)));
+        }
+    }
+
+    // Decoded into a second pooled buffer, held to maxBytes
+    private byte[] decode(InputStream in) throws IOException {
+        byte[] out = pool.acquire();
+        int size = 0;
+        try (in) {
+            int n;
+            while ((n = in.read(out, size, out.length - size)) > 0) {
+                size += n;
+                if (size > maxBytes) {
+                    throw new ResponseRejectedException("Decoded body larger than " + maxBytes + " bytes");
+                }
+                if (size == out.length) {
+                    byte[] grown = Arrays.copyOf(out, Math.min(out.length * 2, maxBytes + 1));
+                    pool.release(out);
+                    out = grown;
+                }
+            }
+            return Arrays.copyOf(out, size);
+        } finally {
+            pool.release(out);
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > buffer.length) {
+            byte[] grown = Arrays.copyOf(buffer, Math.min(Math.max(needed, buffer.length * 2), maxBytes));
+            pool.release(buffer);
+            buffer = grown;
+        }
+    }
+
+    private void fail(Throwable error) {
+        release();
+        body.completeExceptionally(error);
+    }
+
+    private void release() {
+        if (buffer != null) {
+            pool.release(buffer);
+            buffer = null;
+        }
+    }
+}
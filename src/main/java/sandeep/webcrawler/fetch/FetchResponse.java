@@ -0,0 +1,85 @@
+package sandeep.webcrawler.fetch;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class FetchResponse {
+    private final String url;
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+
+    /**
+     * @param url     final URL after redirects, used as the base for relative links
+     * @param headers response headers keyed by lower-case name
+     */
+    public FetchResponse(String url, int statusCode, Map<String, List<String>> headers, byte[] body) {
+        this.url = url;
+        this.statusCode = statusCode;
+        this.headers = headers != null ? headers : Collections.emptyMap();
+        this.body = body != null ? body : new byte[0];
+    }
+
+    public String getUrl() { return url; }
+
+    public int getStatusCode() { return statusCode; }
+
+    public Map<String, List<String>> getHeaders() { return headers; }
+
+    public byte[] getBody() { return body; }
+
+    public boolean isSuccess() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    public String header(String name) {
+        List<String> values = headers.get(name.toLowerCase(Locale.ROOT));
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    public String getContentType() {
+        return header("content-type");
+    }
+
+    // Charset declared in Content-Type, or null if absent or unsupported
+    public String getCharsetName() {
+        return charsetName(getContentType());
+    }
+
+    /**
+     * Parses the body with Jsoup. The charset comes from Content-Type when
+     * present; otherwise Jsoup sniffs the BOM and meta tags.
+     */
+    public Document parse() throws IOException {
+        return Jsoup.parse(new ByteArrayInputStream(body), charsetName(getContentType()), url);
+    }
+
+    static String charsetName(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int idx = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if (idx < 0) {
+            return null;
+        }
+        String charset = contentType.substring(idx + 8).trim();
+        int end = charset.indexOf(';');
+        if (end >= 0) {
+            charset = charset.substring(0, end).trim();
+        }
+        charset = charset.replace("\"", "").replace("'", "");
+        try {
+            return Charset.isSupported(charset) ? charset : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package sandeep.webcrawler.fetch;
+
+import org.jsoup.HttpStatusException;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transport used by the crawlers to download a page. Implementations return
+ * a response for every HTTP status; callers decide what to do with errors.
+ */
+public interface Fetcher {
+
+    String DEFAULT_USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36";
+    // Bodies beyond this are not downloaded in full, decoded size included
+    int DEFAULT_MAX_BODY_BYTES = 5 * 1024 * 1024;
+
+    /**
+     * @param requestHeaders extra headers for this request only, e.g. If-None-Match
+     */
+    FetchResponse fetch(String url, Map<String, String> requestHeaders) throws IOException;
+
+    default FetchResponse fetch(String url) throws IOException {
+        return fetch(url, Map.of());
+    }
+
+    default CompletableFuture<FetchResponse> fetchAsync(String url, Map<String, String> requestHeaders) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetch(url, requestHeaders);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    default CompletableFuture<FetchResponse> fetchAsync(String url) {
+        return fetchAsync(url, Map.of());
+    }
+
+    /**
+     * Same contract as {@code Jsoup.connect(url).get()}: non-2xx statuses
+     * are reported as {@link HttpStatusException}.
+     */
+    default Document get(String url) throws IOException {
+        FetchResponse response = fetch(url);
+        if (!response.isSuccess()) {
+            throw new HttpStatusException("HTTP error fetching URL", response.getStatusCode(), url);
+        }
+        return response.parse();
+    }
+}
@@ -0,0 +1,146 @@
+package sandeep.webcrawler.fetch;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Non-blocking fetcher on {@link java.net.http.HttpClient}. One client is
+ * shared by every request made through this fetcher, so keep-alive
+ * connections are pooled per host and HTTP/2 streams are multiplexed over a
+ * single TLS connection instead of paying a handshake per page.
+ *
+ * Requests offer gzip and deflate, and bodies are decoded before they are
+ * returned. The response headers are checked before the body is read: a
+ * successful response that is not text, HTML or XML, or whose
+ * Content-Length is over the body limit, fails with
+ * {@link ResponseRejectedException} without downloading it. Other bodies
+ * are collected in pooled buffers and cut off once they pass the limit.
+ */
+public class HttpClientFetcher implements Fetcher {
+
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static final int POOLED_BUFFERS = 64;
+    private static final int MAX_POOLED_BUFFER_BYTES = 1024 * 1024;
+
+    private final HttpClient client;
+    private final String userAgent;
+    private final Duration timeout;
+    private final BufferPool bufferPool = new BufferPool(POOLED_BUFFERS, MAX_POOLED_BUFFER_BYTES);
+    private volatile int maxBodyBytes = DEFAULT_MAX_BODY_BYTES;
+
+    public HttpClientFetcher(int timeoutMs) {
+        this(DEFAULT_USER_AGENT, timeoutMs);
+    }
+
+    public HttpClientFetcher(String userAgent, int timeoutMs) {
+        this.userAgent = userAgent;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    public void setMaxBodyBytes(int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes > 0 ? maxBodyBytes : DEFAULT_MAX_BODY_BYTES;
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> requestHeaders) throws IOException {
+        try {
+            return fetchAsync(url, requestHeaders).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted fetching " + url);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause(), url);
+        }
+    }
+
+    @Override
+    public CompletableFuture<FetchResponse> fetchAsync(String url, Map<String, String> requestHeaders) {
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                    .header("User-Agent", userAgent)
+                    .timeout(timeout)
+                    .GET();
+            if (requestHeaders.keySet().stream().noneMatch("Accept-Encoding"::equalsIgnoreCase)) {
+                builder.header("Accept-Encoding", ACCEPT_ENCODING);
+            }
+            requestHeaders.forEach(builder::header);
+            request = builder.build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new IOException("Invalid URL: " + url, e));
+        }
+
+        return client.sendAsync(request, this::bodySubscriber)
+                .thenApply(HttpClientFetcher::toFetchResponse);
+    }
+
+    // Decides from the status and headers alone whether the body is worth downloading
+    private HttpResponse.BodySubscriber<byte[]> bodySubscriber(HttpResponse.ResponseInfo info) {
+        HttpHeaders headers = info.headers();
+        int limit = maxBodyBytes;
+        String contentType = headers.firstValue("content-type").orElse(null);
+        // Error bodies are kept whatever their type, since the status is what matters
+        if (info.statusCode() / 100 == 2 && !isCrawlable(contentType)) {
+            return CappedBodySubscriber.rejecting(
+                    new ResponseRejectedException("Content-Type " + contentType + " is not crawled"));
+        }
+        long contentLength = headers.firstValueAsLong("content-length").orElse(-1);
+        if (contentLength > limit) {
+            return CappedBodySubscriber.rejecting(
+                    new ResponseRejectedException("Content-Length " + contentLength + " over " + limit + " bytes"));
+        }
+        return new CappedBodySubscriber(limit, headers.firstValue("content-encoding").orElse(null), bufferPool);
+    }
+
+    // Text, HTML and XML (robots.txt, pages, sitemaps); a missing type is given the benefit of the doubt
+    static boolean isCrawlable(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return true;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        int end = type.indexOf(';');
+        type = (end >= 0 ? type.substring(0, end) : type).trim();
+        return type.startsWith("text/") || type.equals("application/xhtml+xml")
+                || type.equals("application/xml") || type.endsWith("+xml");
+    }
+
+    // The body is already decoded, so the encoding headers no longer describe it
+    private static FetchResponse toFetchResponse(HttpResponse<byte[]> response) {
+        Map<String, List<String>> headers = new HashMap<>();
+        response.headers().map().forEach((name, values) -> headers.put(name.toLowerCase(Locale.ROOT), values));
+        if (headers.remove("content-encoding") != null) {
+            headers.remove("content-length");
+        }
+        return new FetchResponse(response.uri().toString(), response.statusCode(), headers, response.body());
+    }
+
+    private static IOException unwrap(Throwable cause, String url) {
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException("Failed to fetch " + url, cause);
+    }
+}
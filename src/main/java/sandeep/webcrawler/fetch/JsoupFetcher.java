@@ -0,0 +1,79 @@
+package sandeep.webcrawler.fetch;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Blocking fetcher backed by Jsoup's HttpURLConnection transport. Kept for
+ * parity with the original crawlers; prefer {@link HttpClientFetcher}.
+ * Bodies over the limit fail with {@link ResponseRejectedException}, as
+ * they do there, rather than coming back truncated.
+ */
+public class JsoupFetcher implements Fetcher {
+
+    private final String userAgent;
+    private final int timeoutMs;
+    private volatile int maxBodyBytes = DEFAULT_MAX_BODY_BYTES;
+
+    public JsoupFetcher(int timeoutMs) {
+        this(DEFAULT_USER_AGENT, timeoutMs);
+    }
+
+    public JsoupFetcher(String userAgent, int timeoutMs) {
+        this.userAgent = userAgent;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public void setMaxBodyBytes(int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes > 0 ? maxBodyBytes : DEFAULT_MAX_BODY_BYTES;
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> requestHeaders) throws IOException {
+        int limit = maxBodyBytes;
+        Connection.Response response = Jsoup.connect(url)
+                .headers(requestHeaders)
+                .userAgent(userAgent)
+                .timeout(timeoutMs)
+                // Jsoup quietly truncates at its cap, so read one byte more to tell a cut-off body apart
+                .maxBodySize((int) Math.min(Integer.MAX_VALUE, limit + 1L))
+                .followRedirects(true)
+                .ignoreHttpErrors(true)
+                .execute();
+
+        long contentLength = contentLength(response);
+        if (contentLength > limit) {
+            // Closing the unread body drops the connection instead of downloading it
+            response.bodyStream().close();
+            throw new ResponseRejectedException("Content-Length " + contentLength + " over " + limit + " bytes");
+        }
+        byte[] body = response.bodyAsBytes();
+        if (body.length > limit) {
+            throw new ResponseRejectedException("Body larger than " + limit + " bytes");
+        }
+
+        Map<String, List<String>> headers = new HashMap<>();
+        response.multiHeaders().forEach((name, values) -> headers.put(name.toLowerCase(Locale.ROOT), values));
+
+        return new FetchResponse(response.url().toExternalForm(), response.statusCode(), headers, body);
+    }
+
+    // -1 when missing or malformed
+    private static long contentLength(Connection.Response response) {
+        String value = response.header("Content-Length");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
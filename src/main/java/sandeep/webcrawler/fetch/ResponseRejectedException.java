@@ -0,0 +1,16 @@
+package sandeep.webcrawler.fetch;
+
+import java.io.IOException;
+
+/**
+ * A response whose body was not downloaded, or not completely, because its
+ * type is not crawlable or it is larger than the fetcher's limit.
+ */
+public class ResponseRejectedException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ResponseRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,101 @@
+package sandeep.webcrawler.frontier;
+
+import java.util.ArrayDeque;
+
+/**
+ * Priority queue over a small fixed range of integer priorities: one FIFO
+ * per priority plus a bit mask of the non-empty ones, so add and poll are
+ * O(1) whatever the number of elements, and equal priorities keep their
+ * insertion order. Not thread-safe.
+ */
+public class BucketQueue<T> {
+
+    public static final int BUCKETS = 64;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<T>[] buckets = new ArrayDeque[BUCKETS];
+    private long nonEmpty = 0;
+    private int size = 0;
+
+    // Priorities run from 0 to BUCKETS - 1; higher is polled first
+    public void add(T element, int priority) {
+        ArrayDeque<T> bucket = buckets[priority];
+        if (bucket == null) {
+            bucket = buckets[priority] = new ArrayDeque<>();
+        }
+        bucket.addLast(element);
+        nonEmpty |= 1L << priority;
+        size++;
+    }
+
+    public T poll() {
+        return nonEmpty == 0 ? null : poll(highestPriority());
+    }
+
+    // Head of the given bucket, or null if it is empty
+    public T poll(int priority) {
+        ArrayDeque<T> bucket = buckets[priority];
+        if (bucket == null || bucket.isEmpty()) {
+            return null;
+        }
+        T element = bucket.pollFirst();
+        if (bucket.isEmpty()) {
+            nonEmpty &= ~(1L << priority);
+        }
+        size--;
+        return element;
+    }
+
+    // Linear in the size of the element's bucket
+    public boolean remove(T element, int priority) {
+        ArrayDeque<T> bucket = buckets[priority];
+        if (bucket == null || !bucket.remove(element)) {
+            return false;
+        }
+        if (bucket.isEmpty()) {
+            nonEmpty &= ~(1L << priority);
+        }
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        for (int priority = highestPriority(); priority >= 0; priority = highestPriority()) {
+            buckets[priority].clear();
+            nonEmpty &= ~(1L << priority);
+        }
+        size = 0;
+    }
+
+    // -1 when empty
+    public int highestPriority() {
+        return nonEmpty == 0 ? -1 : 63 - Long.numberOfLeadingZeros(nonEmpty);
+    }
+
+    // Highest non-empty priority not above the given one, -1 if there is none
+    public int highestPriorityAtOrBelow(int priority) {
+        if (priority < 0) {
+            return -1;
+        }
+        long mask = priority >= BUCKETS - 1 ? nonEmpty : nonEmpty & ((2L << priority) - 1);
+        return mask == 0 ? -1 : 63 - Long.numberOfLeadingZeros(mask);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Maps a score in [0, 1] to a priority; values outside are clamped.
+     */
+    public static int priorityOf(double score) {
+        if (!(score > 0)) {
+            return 0;
+        }
+        return score >= 1 ? BUCKETS - 1 : (int) (score * BUCKETS);
+    }
+}
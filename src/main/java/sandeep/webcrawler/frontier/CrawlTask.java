@@ -0,0 +1,47 @@
+package sandeep.webcrawler.frontier;
+
+import sandeep.webcrawler.url.UrlCanonicalizer;
+
+public class CrawlTask {
+    private final String url;
+    private final int depth;
+    private final int attempt;
+    private String host;
+    // Set once a failed fetch of this task has been handed to the retry queue
+    private volatile boolean retried;
+
+    public CrawlTask(String url, int depth) {
+        this(url, depth, 0);
+    }
+
+    public CrawlTask(String url, int depth, int attempt) {
+        this.url = url;
+        this.depth = depth;
+        this.attempt = attempt;
+    }
+
+    public String getUrl() { return url; }
+
+    public int getDepth() { return depth; }
+
+    // Earlier failed fetches of this URL
+    public int getAttempt() { return attempt; }
+
+    // Politeness key; parsed once and reused by the frontier
+    public String getHost() {
+        if (host == null) {
+            host = UrlCanonicalizer.host(url);
+        }
+        return host;
+    }
+
+    // The next attempt at this URL; marks this one as superseded
+    public CrawlTask retry() {
+        retried = true;
+        CrawlTask next = new CrawlTask(url, depth, attempt + 1);
+        next.host = host;
+        return next;
+    }
+
+    public boolean isRetried() { return retried; }
+}
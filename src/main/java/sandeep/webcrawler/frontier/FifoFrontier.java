@@ -0,0 +1,62 @@
+package sandeep.webcrawler.frontier;
+
+import java.util.Collection;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plain first-in first-out frontier with no per-host scheduling.
+ */
+public class FifoFrontier implements Frontier {
+
+    // Handed from waiter to waiter after shutdown so each of them wakes up
+    private static final CrawlTask SHUTDOWN = new CrawlTask("", 0);
+
+    private final LinkedBlockingQueue<CrawlTask> queue = new LinkedBlockingQueue<>();
+    private volatile boolean shutdown;
+
+    @Override
+    public void offer(CrawlTask task) {
+        queue.offer(task);
+    }
+
+    @Override
+    public CrawlTask poll(long timeout, TimeUnit unit) throws InterruptedException {
+        if (shutdown) {
+            return null;
+        }
+        CrawlTask task = queue.poll(timeout, unit);
+        if (task == SHUTDOWN) {
+            queue.offer(SHUTDOWN);
+            return null;
+        }
+        return task;
+    }
+
+    @Override
+    public int drainTo(Collection<? super CrawlTask> tasks) {
+        int drained = 0;
+        CrawlTask task;
+        while ((task = queue.poll()) != null) {
+            if (task == SHUTDOWN) {
+                queue.offer(SHUTDOWN);
+                break;
+            }
+            tasks.add(task);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        queue.offer(SHUTDOWN);
+    }
+
+    @Override
+    public int size() {
+        int size = queue.size();
+        return shutdown && queue.contains(SHUTDOWN) ? size - 1 : size;
+    }
+}
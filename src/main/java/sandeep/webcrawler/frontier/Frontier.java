@@ -0,0 +1,47 @@
+package sandeep.webcrawler.frontier;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue of discovered URLs waiting to be crawled. Implementations are safe
+ * for concurrent use by all workers.
+ */
+public interface Frontier {
+
+    void offer(CrawlTask task);
+
+    /**
+     * Takes the next task to crawl, waiting up to the given time. Returns
+     * null on timeout, or at once after {@link #shutdown()}.
+     */
+    CrawlTask poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Called once the worker has finished with a task returned by
+     * {@link #poll}. Frontiers that schedule by host use it to re-arm the host.
+     */
+    default void complete(CrawlTask task) {
+    }
+
+    /**
+     * Removes every queued task into the collection at once, without handing
+     * them out through {@link #poll}, so no host delay is spent on them.
+     * Tasks already handed out are not affected.
+     *
+     * @return the number of tasks removed
+     */
+    int drainTo(Collection<? super CrawlTask> tasks);
+
+    /**
+     * Wakes every thread waiting in {@link #poll}; from then on poll returns
+     * null without waiting. Called when the crawl has no work left.
+     */
+    void shutdown();
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
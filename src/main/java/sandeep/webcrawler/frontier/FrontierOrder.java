@@ -0,0 +1,8 @@
+package sandeep.webcrawler.frontier;
+
+public enum FrontierOrder {
+    // Breadth-first by discovery order
+    FIFO,
+    // Highest UrlScorer score first, still subject to per-host politeness
+    BEST_FIRST
+}
@@ -0,0 +1,162 @@
+package sandeep.webcrawler.frontier;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Adapts each host's request gap and in-flight limit to how the host is
+ * coping (AIMD). While responses come back at close to the fastest latency
+ * seen for the host, the limit grows by about one per round of responses
+ * and the gap shrinks towards its floor. A 429, a 5xx or a timeout halves
+ * the limit and doubles the gap, and a {@code Retry-After} header stretches
+ * the gap to at least the time the server asked for.
+ *
+ * The gap never drops below the host's robots.txt Crawl-delay, or below the
+ * minimum delay when it has none.
+ */
+public class HostRateController {
+
+    // Overload gaps start here even when the configured delay is zero
+    static final long MIN_BACKOFF_MS = 100;
+    static final long MAX_DELAY_MS = 60_000;
+    // Longer Retry-After values are clamped, so one header cannot park a host for hours
+    static final long MAX_RETRY_AFTER_MS = 10 * 60_000;
+    // A response is healthy within this multiple of the host's best latency, plus the slack
+    private static final double SLOW_FACTOR = 2.0;
+    private static final long SLOW_SLACK_NANOS = 50_000_000;
+
+    private final ToLongFunction<String> crawlDelay;
+    private final ConcurrentHashMap<String, HostState> hosts = new ConcurrentHashMap<>();
+    private volatile long initialDelayMs;
+    private volatile long minDelayMs;
+    private volatile int maxConcurrency = 1;
+
+    /**
+     * @param initialDelayMs gap a host starts with
+     * @param crawlDelay     host -> Crawl-delay in ms, 0 or negative if none
+     */
+    public HostRateController(long initialDelayMs, ToLongFunction<String> crawlDelay) {
+        this.initialDelayMs = Math.max(0, initialDelayMs);
+        this.minDelayMs = this.initialDelayMs;
+        this.crawlDelay = crawlDelay;
+    }
+
+    // Applies to hosts not seen yet
+    public void setInitialDelayMs(long initialDelayMs) {
+        this.initialDelayMs = Math.max(0, initialDelayMs);
+    }
+
+    // Lowest gap a healthy host earns; equal to the initial delay by default, which keeps the gap fixed
+    public void setMinDelayMs(long minDelayMs) {
+        this.minDelayMs = Math.max(0, minDelayMs);
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
+    public long delayMs(String host) {
+        return state(host).delayMs(floor(host));
+    }
+
+    public int concurrency(String host) {
+        HostState state = hosts.get(host);
+        return state != null ? state.concurrency() : 1;
+    }
+
+    /**
+     * Feeds back one response.
+     *
+     * @param retryAfterMs the server's Retry-After in ms, or negative if absent
+     */
+    public void onResponse(String host, int statusCode, long latencyNanos, long retryAfterMs) {
+        HostState state = state(host);
+        if (isOverload(statusCode)) {
+            state.backOff(floor(host), retryAfterMs);
+        } else {
+            state.record(floor(host), latencyNanos, maxConcurrency);
+        }
+    }
+
+    // A timeout or dropped connection, which says as much about the host as a 503
+    public void onFailure(String host) {
+        state(host).backOff(floor(host), -1);
+    }
+
+    public static boolean isOverload(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    /**
+     * Parses a Retry-After value, either delay-seconds or an HTTP-date.
+     * Returns the delay in ms, or -1 if the value is missing or malformed.
+     */
+    public static long parseRetryAfter(String value, long nowMillis) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        String trimmed = value.trim();
+        if (Character.isDigit(trimmed.charAt(0))) {
+            try {
+                return Math.min(Long.parseLong(trimmed), Long.MAX_VALUE / 1000) * 1000;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        try {
+            long at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - nowMillis);
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private HostState state(String host) {
+        return hosts.computeIfAbsent(host, h -> new HostState(Math.max(initialDelayMs, floor(h))));
+    }
+
+    private long floor(String host) {
+        long robotsDelay = crawlDelay.applyAsLong(host);
+        return robotsDelay > 0 ? robotsDelay : Math.min(minDelayMs, initialDelayMs);
+    }
+
+    private static class HostState {
+        private double limit = 1;
+        private long delayMs;
+        private long bestLatencyNanos = Long.MAX_VALUE;
+
+        HostState(long delayMs) {
+            this.delayMs = delayMs;
+        }
+
+        synchronized long delayMs(long floor) {
+            return Math.max(delayMs, floor);
+        }
+
+        synchronized int concurrency() {
+            return (int) limit;
+        }
+
+        synchronized void record(long floor, long latencyNanos, int maxConcurrency) {
+            bestLatencyNanos = Math.min(bestLatencyNanos, latencyNanos);
+            if (latencyNanos <= bestLatencyNanos * SLOW_FACTOR + SLOW_SLACK_NANOS) {
+                // Additive increase: about +1 once every in-flight request has come back healthy
+                limit = Math.min(maxConcurrency, limit + 1 / limit);
+                delayMs = Math.max(floor, delayMs - (delayMs + 3) / 4);
+            } else {
+                limit = Math.max(1, limit * 0.9);
+            }
+        }
+
+        synchronized void backOff(long floor, long retryAfterMs) {
+            limit = Math.max(1, limit / 2);
+            delayMs = Math.min(MAX_DELAY_MS, Math.max(floor, Math.max(MIN_BACKOFF_MS, delayMs * 2)));
+            if (retryAfterMs > 0) {
+                delayMs = Math.max(delayMs, Math.min(retryAfterMs, MAX_RETRY_AFTER_MS));
+            }
+        }
+    }
+}
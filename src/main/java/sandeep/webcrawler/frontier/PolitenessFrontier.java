@@ -0,0 +1,303 @@
+package sandeep.webcrawler.frontier;
+
+import sandeep.webcrawler.scoring.UrlScorer;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * Frontier that keeps one queue per host and a heap of hosts ordered by
+ * the time their politeness window expires. A host has at most
+ * {@code maxInFlightPerHost} tasks handed out at once (one by default), and
+ * consecutive requests to it are spaced by its crawl delay. With a
+ * {@link HostRateController} the limit and the spacing follow the
+ * controller instead, capped by {@code maxInFlightPerHost}.
+ *
+ * Without a {@link UrlScorer} each host queue is FIFO and ready hosts are
+ * served in the order their windows expired. With one, tasks are scored
+ * on offer, before the lock is taken, into {@link BucketQueue} buckets:
+ * each host hands out its best task first, and among hosts whose window has
+ * expired the one holding the best task goes first. Each poll also
+ * re-scores a couple of the host's queued tasks under the lock, sweeping
+ * through its buckets, so scores that have grown since the offer (more
+ * inlinks, a sitemap that has loaded) catch up; this is why scorers must
+ * never block. Work under the lock is O(1) per task; only the expiry heap,
+ * which holds hosts rather than URLs, is logarithmic.
+ */
+public class PolitenessFrontier implements Frontier {
+
+    static final int RESCORE_PER_POLL = 2;
+
+    private volatile long defaultDelayMs;
+    private final ToLongFunction<String> crawlDelay;
+    private volatile int maxInFlightPerHost = 1;
+    private volatile HostRateController rateController;
+    private volatile UrlScorer scorer;
+
+    private final Map<String, HostQueue> hosts = new HashMap<>();
+    // Hosts still inside their politeness window, by expiry
+    private final PriorityQueue<HostQueue> readyHeap =
+            new PriorityQueue<>(Comparator.comparingLong(h -> h.readyAt));
+    // Hosts whose window has expired, by their best task's priority
+    private final BucketQueue<HostQueue> readyHosts = new BucketQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private int size = 0;
+    private boolean shutdown = false;
+
+    /**
+     * @param defaultDelayMs delay used when a host publishes no Crawl-delay
+     * @param crawlDelay     host -> Crawl-delay in ms, 0 or negative if none
+     */
+    public PolitenessFrontier(long defaultDelayMs, ToLongFunction<String> crawlDelay) {
+        this.defaultDelayMs = defaultDelayMs;
+        this.crawlDelay = crawlDelay;
+    }
+
+    // Delay for hosts whose crawlDelay function returns 0 or less
+    public void setDefaultDelayMs(long defaultDelayMs) {
+        this.defaultDelayMs = Math.max(0, defaultDelayMs);
+    }
+
+    public void setMaxInFlightPerHost(int maxInFlightPerHost) {
+        this.maxInFlightPerHost = Math.max(1, maxInFlightPerHost);
+    }
+
+    // Replaces the fixed delay and per-host limit with adaptive ones; must be set before the first offer
+    public void setRateController(HostRateController rateController) {
+        this.rateController = rateController;
+    }
+
+    // Switches from FIFO to best-first order; must be set before the first offer
+    public void setUrlScorer(UrlScorer scorer) {
+        this.scorer = scorer;
+    }
+
+    @Override
+    public void offer(CrawlTask task) {
+        UrlScorer urlScorer = scorer;
+        int priority = urlScorer != null ? BucketQueue.priorityOf(urlScorer.score(task)) : 0;
+
+        lock.lock();
+        try {
+            HostQueue queue = hosts.computeIfAbsent(task.getHost(), this::newHostQueue);
+            queue.tasks.add(task, priority);
+            size++;
+            if (!queue.scheduled && queue.inFlight < maxInFlight(queue)) {
+                schedule(queue);
+            } else if (queue.readyPriority >= 0 && priority > queue.readyPriority) {
+                // A better task moves its already-ready host up
+                readyHosts.remove(queue, queue.readyPriority);
+                queue.readyPriority = priority;
+                readyHosts.add(queue, priority);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the next task from a host whose politeness window has expired,
+     * waiting up to the given time. Returns null on timeout or shutdown.
+     */
+    @Override
+    public CrawlTask poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (!shutdown) {
+                long now = System.nanoTime();
+                while (!readyHeap.isEmpty() && readyHeap.peek().readyAt <= now) {
+                    HostQueue expired = readyHeap.poll();
+                    expired.readyPriority = expired.tasks.highestPriority();
+                    readyHosts.add(expired, expired.readyPriority);
+                }
+                HostQueue head = readyHosts.poll();
+                if (head != null) {
+                    head.readyPriority = -1;
+                    head.scheduled = false;
+                    head.inFlight++;
+                    size--;
+                    CrawlTask task = head.tasks.poll();
+                    UrlScorer urlScorer = scorer;
+                    if (urlScorer != null) {
+                        rescore(head, urlScorer);
+                    }
+                    if (!head.tasks.isEmpty() && head.inFlight < maxInFlight(head)) {
+                        // Spare per-host permits: next request to this host starts one delay later
+                        head.readyAt = now + head.delayNanos;
+                        schedule(head);
+                    } else if (!readyHosts.isEmpty() || !readyHeap.isEmpty()) {
+                        available.signal();
+                    }
+                    return task;
+                }
+                long wait = remaining;
+                if (!readyHeap.isEmpty()) {
+                    wait = Math.min(wait, readyHeap.peek().readyAt - now);
+                }
+                if (remaining <= 0) {
+                    return null;
+                }
+                long slept = wait - available.awaitNanos(wait);
+                remaining -= slept;
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the task's per-host slot and re-arms the host once its crawl
+     * delay has elapsed. A delay that has grown since the host was last
+     * armed (a back-off) also pushes back a host that is already waiting.
+     */
+    @Override
+    public void complete(CrawlTask task) {
+        long delayMs = delayMs(task.getHost());
+
+        lock.lock();
+        try {
+            HostQueue queue = hosts.get(task.getHost());
+            if (queue == null) {
+                return;
+            }
+            queue.inFlight--;
+            long previousDelay = queue.delayNanos;
+            queue.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMs);
+            long readyAt = System.nanoTime() + queue.delayNanos;
+            if (!queue.scheduled) {
+                queue.readyAt = readyAt;
+                if (!queue.tasks.isEmpty() && queue.inFlight < maxInFlight(queue)) {
+                    schedule(queue);
+                }
+            } else if (queue.delayNanos > previousDelay && readyAt > queue.readyAt) {
+                if (queue.readyPriority >= 0) {
+                    readyHosts.remove(queue, queue.readyPriority);
+                    queue.readyPriority = -1;
+                } else {
+                    readyHeap.remove(queue);
+                }
+                queue.readyAt = readyAt;
+                readyHeap.add(queue);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Empties every host queue and unschedules the hosts. Hosts with tasks
+     * in flight keep their slots and are re-armed by {@link #complete} as
+     * usual.
+     */
+    @Override
+    public int drainTo(Collection<? super CrawlTask> tasks) {
+        lock.lock();
+        try {
+            int drained = 0;
+            for (HostQueue queue : hosts.values()) {
+                CrawlTask task;
+                while ((task = queue.tasks.poll()) != null) {
+                    tasks.add(task);
+                    drained++;
+                }
+                queue.scheduled = false;
+                queue.readyPriority = -1;
+            }
+            readyHeap.clear();
+            readyHosts.clear();
+            size = 0;
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private HostQueue newHostQueue(String host) {
+        HostQueue queue = new HostQueue(host);
+        HostRateController controller = rateController;
+        queue.delayNanos = TimeUnit.MILLISECONDS.toNanos(controller != null ? controller.delayMs(host) : defaultDelayMs);
+        return queue;
+    }
+
+    private long delayMs(String host) {
+        HostRateController controller = rateController;
+        if (controller != null) {
+            return controller.delayMs(host);
+        }
+        long delayMs = crawlDelay.applyAsLong(host);
+        return delayMs > 0 ? delayMs : defaultDelayMs;
+    }
+
+    private int maxInFlight(HostQueue queue) {
+        HostRateController controller = rateController;
+        return controller != null ? Math.min(maxInFlightPerHost, controller.concurrency(queue.host)) : maxInFlightPerHost;
+    }
+
+    // Moves the next few tasks of the sweep to the bucket their current score maps to
+    private static void rescore(HostQueue queue, UrlScorer urlScorer) {
+        for (int i = 0; i < RESCORE_PER_POLL && !queue.tasks.isEmpty(); i++) {
+            int priority = queue.tasks.highestPriorityAtOrBelow(queue.sweep);
+            if (priority < 0) {
+                priority = queue.tasks.highestPriority();
+            }
+            CrawlTask task = queue.tasks.poll(priority);
+            queue.tasks.add(task, BucketQueue.priorityOf(urlScorer.score(task)));
+            queue.sweep = priority - 1;
+        }
+    }
+
+    private void schedule(HostQueue queue) {
+        queue.scheduled = true;
+        readyHeap.add(queue);
+        available.signal();
+    }
+
+    private static class HostQueue {
+        final String host;
+        // Single bucket, so plain FIFO, when there is no scorer
+        final BucketQueue<CrawlTask> tasks = new BucketQueue<>();
+        long readyAt = System.nanoTime();
+        // Bucket in readyHosts, or -1 while waiting in readyHeap or idle
+        int readyPriority = -1;
+        // Next bucket the re-scoring sweep visits; it wraps to the top below 0
+        int sweep = BucketQueue.BUCKETS - 1;
+        long delayNanos;
+        int inFlight = 0;
+        boolean scheduled = false;
+
+        HostQueue(String host) {
+            this.host = host;
+        }
+    }
+}
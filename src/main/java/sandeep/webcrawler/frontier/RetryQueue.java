@@ -0,0 +1,107 @@
+package sandeep.webcrawler.frontier;
+
+import java.io.Closeable;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds failed tasks until their retry delay has passed, then offers them
+ * back to the frontier. The delay grows exponentially with the attempt
+ * number and is jittered ("equal jitter": half fixed, half random), so
+ * pages that failed together do not come back together. A Retry-After from
+ * the server is a lower bound, clamped like the host's own back-off to
+ * {@link HostRateController#MAX_RETRY_AFTER_MS}: a waiting retry keeps the
+ * crawl from finishing, so one header must not hold it open for a day.
+ *
+ * A single daemon thread, started with the first retry, moves due tasks.
+ */
+public class RetryQueue implements Closeable {
+
+    private final Frontier target;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final DelayQueue<Retry> queue = new DelayQueue<>();
+    private Thread mover;
+    private boolean closed = false;
+
+    public RetryQueue(Frontier target, long baseDelayMs, long maxDelayMs) {
+        this.target = target;
+        this.baseDelayMs = Math.max(1, baseDelayMs);
+        this.maxDelayMs = Math.max(this.baseDelayMs, maxDelayMs);
+    }
+
+    /**
+     * Queues a task for another attempt. The delay is drawn from
+     * [d/2, d] with d = base * 2^(attempt - 1), capped, and is at least
+     * {@code minDelayMs}, itself capped at the longest Retry-After honoured.
+     */
+    public void schedule(CrawlTask task, long minDelayMs) {
+        long delayMs = delayMs(task.getAttempt(), minDelayMs);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (mover == null) {
+                mover = Thread.ofPlatform().name("crawl-retry").daemon().start(this::moveDueTasks);
+            }
+        }
+        queue.add(new Retry(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs)));
+    }
+
+    long delayMs(int attempt, long minDelayMs) {
+        return Math.max(Math.min(minDelayMs, HostRateController.MAX_RETRY_AFTER_MS), backoffMs(attempt));
+    }
+
+    long backoffMs(int attempt) {
+        long ceiling = baseDelayMs << Math.min(Math.max(0, attempt - 1), 30);
+        ceiling = Math.min(maxDelayMs, ceiling);
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    // Drops tasks still waiting; they remain unfinished in the checkpoint journal
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (mover != null) {
+            mover.interrupt();
+        }
+        queue.clear();
+    }
+
+    private void moveDueTasks() {
+        try {
+            while (true) {
+                target.offer(queue.take().task);
+            }
+        } catch (InterruptedException e) {
+            // closed
+        }
+    }
+
+    private static final class Retry implements Delayed {
+        final CrawlTask task;
+        final long dueNanos;
+
+        Retry(CrawlTask task, long dueNanos) {
+            this.task = task;
+            this.dueNanos = dueNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Retry) other).dueNanos);
+        }
+    }
+}
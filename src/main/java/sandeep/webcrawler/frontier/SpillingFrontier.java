@@ -0,0 +1,251 @@
+package sandeep.webcrawler.frontier;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frontier that keeps at most {@code headCapacity} tasks in an in-memory head
+ * frontier and spills the rest to append-only segment files on disk. Spilled
+ * tasks are read back in FIFO order through {@link MappedByteBuffer}s and fed
+ * into the head whenever it drains below half full, so heap use stays flat
+ * and frontier size is limited by disk space.
+ *
+ * <p>Record layout: {@code int depth, byte attempt, int length, byte[length] utf8 url}.
+ * A segment is sealed once it reaches {@code segmentBytes} and deleted as
+ * soon as it has been read.
+ */
+public class SpillingFrontier implements Frontier, Closeable {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    private static final long POLL_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Frontier head;
+    private final Path directory;
+    private final int headCapacity;
+    private final int refillThreshold;
+    private final long segmentBytes;
+
+    private final Object diskLock = new Object();
+    private ByteBuffer encodeBuffer = ByteBuffer.allocate(4096);
+    private FileChannel writeChannel;
+    private long writeSegment = 0;
+    private long writePosition = 0;
+    private long readSegment = 0;
+    private long readPosition = 0;
+    private MappedByteBuffer readBuffer;
+    private volatile long spilled = 0;
+    private volatile boolean shutdown = false;
+
+    public SpillingFrontier(Frontier head, Path directory, int headCapacity) throws IOException {
+        this(head, directory, headCapacity, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public SpillingFrontier(Frontier head, Path directory, int headCapacity, long segmentBytes) throws IOException {
+        this.head = head;
+        this.directory = Files.createDirectories(directory);
+        this.headCapacity = Math.max(1, headCapacity);
+        this.refillThreshold = this.headCapacity / 2;
+        this.segmentBytes = segmentBytes;
+    }
+
+    @Override
+    public void offer(CrawlTask task) {
+        synchronized (diskLock) {
+            // Once anything is on disk new tasks must queue behind it to keep FIFO order
+            if (spilled == 0 && head.size() < headCapacity) {
+                head.offer(task);
+                return;
+            }
+            try {
+                append(task);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not spill frontier to " + directory, e);
+            }
+        }
+    }
+
+    @Override
+    public CrawlTask poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        while (!shutdown) {
+            refillIfLow();
+            // Nothing on disk means new tasks go straight to the head, which wakes us
+            long slice = spilled == 0 ? remaining : Math.min(remaining, POLL_SLICE_NANOS);
+            long start = System.nanoTime();
+            CrawlTask task = head.poll(Math.max(0, slice), TimeUnit.NANOSECONDS);
+            remaining -= System.nanoTime() - start;
+            if (task != null || remaining <= 0) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        head.shutdown();
+    }
+
+    @Override
+    public void complete(CrawlTask task) {
+        head.complete(task);
+    }
+
+    @Override
+    public int drainTo(Collection<? super CrawlTask> tasks) {
+        synchronized (diskLock) {
+            int drained = head.drainTo(tasks);
+            try {
+                while (spilled > 0) {
+                    tasks.add(readNext());
+                    spilled--;
+                    drained++;
+                }
+                recycle();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read spilled frontier from " + directory, e);
+            }
+            return drained;
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, head.size() + spilled);
+    }
+
+    public long spilledCount() {
+        return spilled;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (diskLock) {
+            readBuffer = null;
+            if (writeChannel != null) {
+                writeChannel.close();
+                writeChannel = null;
+            }
+            spilled = 0;
+            try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "segment-*.dat")) {
+                for (Path segment : segments) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+        }
+    }
+
+    private void refillIfLow() {
+        if (spilled == 0 || head.size() > refillThreshold) {
+            return;
+        }
+        synchronized (diskLock) {
+            try {
+                int room = headCapacity - head.size();
+                while (spilled > 0 && room-- > 0) {
+                    head.offer(readNext());
+                    spilled--;
+                }
+                if (spilled == 0) {
+                    recycle();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read spilled frontier from " + directory, e);
+            }
+        }
+    }
+
+    private void append(CrawlTask task) throws IOException {
+        byte[] url = task.getUrl().getBytes(StandardCharsets.UTF_8);
+        int recordLength = 9 + url.length;
+        if (encodeBuffer.capacity() < recordLength) {
+            encodeBuffer = ByteBuffer.allocate(recordLength);
+        }
+        encodeBuffer.clear();
+        encodeBuffer.putInt(task.getDepth()).put((byte) Math.min(task.getAttempt(), Byte.MAX_VALUE))
+                .putInt(url.length).put(url).flip();
+
+        if (writeChannel == null) {
+            writeChannel = FileChannel.open(segmentPath(writeSegment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        while (encodeBuffer.hasRemaining()) {
+            writePosition += writeChannel.write(encodeBuffer);
+        }
+        spilled++;
+
+        if (writePosition >= segmentBytes) {
+            writeChannel.close();
+            writeChannel = null;
+            writeSegment++;
+            writePosition = 0;
+        }
+    }
+
+    private CrawlTask readNext() throws IOException {
+        if (readBuffer == null || !readBuffer.hasRemaining()) {
+            mapNextRegion();
+        }
+        int depth = readBuffer.getInt();
+        int attempt = readBuffer.get();
+        byte[] url = new byte[readBuffer.getInt()];
+        readBuffer.get(url);
+        readPosition += 9 + url.length;
+        return new CrawlTask(new String(url, StandardCharsets.UTF_8), depth, attempt);
+    }
+
+    private void mapNextRegion() throws IOException {
+        Path segment = segmentPath(readSegment);
+        long end;
+        if (readSegment < writeSegment) {
+            end = Files.size(segment);
+            if (readPosition >= end) {
+                // Sealed segment fully consumed
+                readBuffer = null;
+                Files.deleteIfExists(segment);
+                readSegment++;
+                readPosition = 0;
+                mapNextRegion();
+                return;
+            }
+        } else {
+            // Reader has caught up with the active segment: map what has been written so far
+            end = writePosition;
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            readBuffer = channel.map(FileChannel.MapMode.READ_ONLY, readPosition, end - readPosition);
+        }
+    }
+
+    // Everything spilled has been read back: drop the files and start a fresh segment
+    private void recycle() throws IOException {
+        readBuffer = null;
+        if (writeChannel != null) {
+            writeChannel.close();
+            writeChannel = null;
+        }
+        for (long segment = readSegment; segment <= writeSegment; segment++) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+        writeSegment++;
+        writePosition = 0;
+        readSegment = writeSegment;
+        readPosition = 0;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("segment-%06d.dat", segment));
+    }
+}
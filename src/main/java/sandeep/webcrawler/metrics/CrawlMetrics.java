@@ -0,0 +1,188 @@
+package sandeep.webcrawler.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import sandeep.webcrawler.frontier.Frontier;
+import sandeep.webcrawler.seen.SeenSet;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crawl counters and timers, shared by every crawl that reports to the same
+ * registry. Meters are looked up once and cached, so recording on the page
+ * path is a map hit plus an atomic add.
+ *
+ * <ul>
+ *   <li>{@code crawler.pages} (outcome) - pages/sec is its rate</li>
+ *   <li>{@code crawler.retries} - failed attempts queued for another try</li>
+ *   <li>{@code crawler.fetch} (host, status) - fetch latency histogram, without DNS</li>
+ *   <li>{@code crawler.dns} - time fetches waited for their host to resolve</li>
+ *   <li>{@code crawler.parse} (mode) - time spent extracting links</li>
+ *   <li>{@code crawler.response.size} - bytes downloaded</li>
+ *   <li>{@code crawler.errors} (exception) - failures by exception type</li>
+ *   <li>{@code crawler.frontier.size}, {@code crawler.seen.size},
+ *       {@code crawler.crawls.active} - summed over running crawls</li>
+ * </ul>
+ */
+public final class CrawlMetrics {
+
+    // Hosts beyond this many share the "other" tag, to bound series count
+    static final int DEFAULT_MAX_HOST_TAGS = 200;
+    static final String OTHER_HOST = "other";
+
+    private final MeterRegistry registry;
+    private final int maxHostTags;
+    private final Set<String> taggedHosts = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Timer> fetchTimers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Timer> parseTimers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> pageCounters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, Counter> errorCounters = new ConcurrentHashMap<>();
+    private final DistributionSummary responseSize;
+    private final Timer dnsWait;
+    private final Counter retries;
+    private final List<Watched> running = new CopyOnWriteArrayList<>();
+
+    private record Watched(Frontier frontier, SeenSet seen) {}
+
+    // Handle returned by watch(); closing it never throws
+    public interface Watch extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public CrawlMetrics(MeterRegistry registry) {
+        this(registry, DEFAULT_MAX_HOST_TAGS);
+    }
+
+    public CrawlMetrics(MeterRegistry registry, int maxHostTags) {
+        this.registry = registry;
+        this.maxHostTags = maxHostTags;
+        this.responseSize = DistributionSummary.builder("crawler.response.size")
+                .description("Response body size")
+                .baseUnit("bytes")
+                .register(registry);
+        this.dnsWait = Timer.builder("crawler.dns")
+                .description("Time a fetch waited for DNS resolution")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.retries = Counter.builder("crawler.retries")
+                .description("Failed attempts queued for a retry")
+                .register(registry);
+        Gauge.builder("crawler.frontier.size", this, m -> m.sum(true))
+                .description("URLs waiting in the frontier")
+                .register(registry);
+        Gauge.builder("crawler.seen.size", this, m -> m.sum(false))
+                .description("URLs in the seen-set")
+                .register(registry);
+        Gauge.builder("crawler.crawls.active", running, List::size)
+                .description("Crawls currently running")
+                .register(registry);
+    }
+
+    /**
+     * Instance on Micrometer's global registry, for crawlers created outside
+     * Spring. Created on first use so it never competes with an instance
+     * built on the application's registry for the same gauge names.
+     */
+    public static CrawlMetrics global() {
+        return GlobalHolder.INSTANCE;
+    }
+
+    private static final class GlobalHolder {
+        static final CrawlMetrics INSTANCE = new CrawlMetrics(Metrics.globalRegistry);
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Adds a crawl's frontier and seen-set to the size gauges until the
+     * returned handle is closed.
+     */
+    public Watch watch(Frontier frontier, SeenSet seen) {
+        Watched watched = new Watched(frontier, seen);
+        running.add(watched);
+        return () -> running.remove(watched);
+    }
+
+    public void recordFetch(String host, int statusCode, long nanos, int bytes) {
+        String tag = hostTag(host);
+        String status = statusCode / 100 + "xx";
+        fetchTimers.computeIfAbsent(tag + ' ' + status, k -> Timer.builder("crawler.fetch")
+                        .description("Page fetch latency")
+                        .tags("host", tag, "status", status)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(5))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        responseSize.record(bytes);
+    }
+
+    // Near zero when the host was resolved while its URL waited in the frontier
+    public void recordDns(long nanos) {
+        dnsWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordParse(String mode, long nanos) {
+        parseTimers.computeIfAbsent(mode, k -> Timer.builder("crawler.parse")
+                        .description("Link extraction time")
+                        .tag("mode", mode)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // outcome: "fetched", "unchanged" or "duplicate"; each page is counted once
+    public void pageCrawled(String outcome) {
+        pageCounters.computeIfAbsent(outcome, k -> Counter.builder("crawler.pages")
+                        .description("Pages crawled")
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .increment();
+    }
+
+    // Kept apart from crawler.pages, so retries do not inflate pages/sec
+    public void retryScheduled() {
+        retries.increment();
+    }
+
+    public void error(Throwable error) {
+        errorCounters.computeIfAbsent(error.getClass(), type -> Counter.builder("crawler.errors")
+                        .description("Failed pages by exception type")
+                        .tag("exception", type.getSimpleName())
+                        .register(registry))
+                .increment();
+    }
+
+    private String hostTag(String host) {
+        if (host == null || host.isEmpty()) {
+            return OTHER_HOST;
+        }
+        if (taggedHosts.contains(host)) {
+            return host;
+        }
+        if (taggedHosts.size() < maxHostTags && taggedHosts.add(host)) {
+            return host;
+        }
+        return OTHER_HOST;
+    }
+
+    private double sum(boolean frontiers) {
+        long total = 0;
+        for (Watched watched : running) {
+            total += frontiers ? watched.frontier().size() : watched.seen().size();
+        }
+        return total;
+    }
+}
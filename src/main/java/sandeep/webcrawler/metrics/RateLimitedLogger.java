@@ -0,0 +1,59 @@
+package sandeep.webcrawler.metrics;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through at most {@code perSecond} lines per second and replaces the
+ * rest with one "suppressed" line when the next second starts, so per-page
+ * logging cannot become the bottleneck of a fast crawl.
+ */
+public class RateLimitedLogger {
+
+    private final Logger log;
+    private final int perSecond;
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger used = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public RateLimitedLogger(Logger log, int perSecond) {
+        this.log = log;
+        this.perSecond = perSecond;
+    }
+
+    public void info(String format, Object... args) {
+        if (log.isInfoEnabled() && permit()) {
+            log.info(format, args);
+        }
+    }
+
+    public void warn(String format, Object... args) {
+        if (log.isWarnEnabled() && permit()) {
+            log.warn(format, args);
+        }
+    }
+
+    // Lines dropped in the current window so far
+    public long suppressedCount() {
+        return suppressed.get();
+    }
+
+    private boolean permit() {
+        long second = System.currentTimeMillis() / 1000;
+        long current = window.get();
+        if (second != current && window.compareAndSet(current, second)) {
+            used.set(0);
+            long dropped = suppressed.getAndSet(0);
+            if (dropped > 0) {
+                log.info("... {} log lines suppressed", dropped);
+            }
+        }
+        if (used.incrementAndGet() <= perSecond) {
+            return true;
+        }
+        suppressed.incrementAndGet();
+        return false;
+    }
+}
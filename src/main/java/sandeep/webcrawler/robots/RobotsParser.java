@@ -1,83 +1,249 @@
 package sandeep.webcrawler.robots;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.util.HashMap;
-import java.util.HashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sandeep.webcrawler.fetch.FetchResponse;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.fetch.HttpClientFetcher;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 
+/**
+ * Fetches, compiles and caches robots.txt per origin (scheme, host and
+ * port), which is the scope RFC 9309 gives it. Concurrent lookups for an
+ * origin share one in-flight fetch. Entries expire after a TTL (shorter for
+ * failed fetches) and the least recently used origins are evicted once the
+ * cache exceeds its size limit.
+ *
+ * Status handling follows RFC 9309: 4xx means no restrictions, 5xx means
+ * the whole site is off limits until the entry expires. A host that cannot
+ * be reached is treated as unrestricted, since its pages will fail anyway.
+ */
 public class RobotsParser {
-    
-    private Map<String, RobotRules> robotsCache = new HashMap<>();
-    
-    public boolean isAllowed(String url) throws Exception {
-        URL parsedUrl = new URL(url);
-        String domain = parsedUrl.getHost();
-        String path = parsedUrl.getPath();
-        
-        if (!robotsCache.containsKey(domain)) {
-            fetchRobotsTxt(domain);
+
+    private static final Logger log = LoggerFactory.getLogger(RobotsParser.class);
+
+    // Product token matched against User-agent lines
+    public static final String DEFAULT_AGENT = "webcrawler";
+    private static final int FETCH_TIMEOUT_MS = 5000;
+    private static final long DEFAULT_TTL_MS = TimeUnit.HOURS.toMillis(24);
+    private static final long FAILURE_TTL_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final int DEFAULT_MAX_HOSTS = 10_000;
+    // lastAccess is only rewritten when older than this, to keep hot hosts from contending on it
+    private static final long ACCESS_GRANULARITY_MS = 1000;
+
+    private final Fetcher fetcher;
+    private final String agentToken;
+    private final long ttlMs;
+    private final int maxHosts;
+    private final LongSupplier clock;
+
+    // Keyed by origin, e.g. "https://example.com:443"
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    // Host -> largest Crawl-delay among its loaded origins, for hosts that publish one
+    private final Map<String, Long> crawlDelays = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private static final class Entry {
+        final String host;
+        final CompletableFuture<RobotsRules> rules = new CompletableFuture<>();
+        final AtomicBoolean fetchStarted = new AtomicBoolean();
+        volatile long expiresAt = Long.MAX_VALUE; // set just before rules completes
+        volatile long lastAccess;
+
+        Entry(String host) {
+            this.host = host;
+        }
+
+        boolean isExpired(long now) {
+            return rules.isDone() && expiresAt <= now;
         }
-        
-        RobotRules rules = robotsCache.get(domain);
-        return rules == null || rules.isAllowed(path);
     }
-    
-    private void fetchRobotsTxt(String domain) {
+
+    public RobotsParser() {
+        this(new HttpClientFetcher(FETCH_TIMEOUT_MS), DEFAULT_AGENT, DEFAULT_TTL_MS, DEFAULT_MAX_HOSTS);
+    }
+
+    // Fetches robots.txt through the crawl's own transport
+    public RobotsParser(Fetcher fetcher) {
+        this(fetcher, DEFAULT_AGENT, DEFAULT_TTL_MS, DEFAULT_MAX_HOSTS);
+    }
+
+    public RobotsParser(Fetcher fetcher, String agentToken, long ttlMs, int maxHosts) {
+        this(fetcher, agentToken, ttlMs, maxHosts, System::currentTimeMillis);
+    }
+
+    RobotsParser(Fetcher fetcher, String agentToken, long ttlMs, int maxHosts, LongSupplier clock) {
+        this.fetcher = fetcher;
+        this.agentToken = agentToken;
+        this.ttlMs = ttlMs;
+        this.maxHosts = Math.max(1, maxHosts);
+        this.clock = clock;
+    }
+
+    /**
+     * Whether the URL's path and query may be crawled. Fetches the host's
+     * robots.txt on first use; malformed URLs are never allowed.
+     */
+    public boolean isAllowed(String url) {
+        URI uri;
         try {
-            String robotsUrl = "https://" + domain + "/robots.txt";
-            BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(new URL(robotsUrl).openStream()));
-            
-            RobotRules rules = new RobotRules();
-            String line;
-            
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                
-                if (line.startsWith("Disallow:")) {
-                    String path = line.substring(9).trim();
-                    rules.addDisallowedPath(path);
-                } else if (line.startsWith("Crawl-delay:")) {
-                    String delay = line.substring(12).trim();
-                    try {
-                        rules.setCrawlDelay(Integer.parseInt(delay) * 1000);
-                    } catch (NumberFormatException e) {
-                        // Ignore invalid values
-                    }
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return false;
+        }
+        String host = uri.getHost();
+        if (host == null || uri.getScheme() == null) {
+            return false;
+        }
+        String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+        if (uri.getRawQuery() != null) {
+            path = path + "?" + uri.getRawQuery();
+        }
+        return rulesFor(uri.getScheme(), host, uri.getPort()).isAllowed(path);
+    }
+
+    /**
+     * Crawl-delay published by the host in milliseconds, or 0 if none is
+     * known. Keyed by host alone, as the frontier spaces requests per host,
+     * so the largest delay of the host's loaded origins applies. Never
+     * fetches: a host whose robots.txt is not cached gets 0 until
+     * {@link #isAllowed} has loaded it.
+     */
+    public long getCrawlDelay(String host) {
+        if (host == null || host.isEmpty()) {
+            return 0;
+        }
+        return crawlDelays.getOrDefault(host.toLowerCase(Locale.ROOT), 0L);
+    }
+
+    // Origins cached, including ones whose fetch is still running
+    public int cachedHosts() {
+        return cache.size();
+    }
+
+    /**
+     * Rules for an origin. A port of -1 stands for the scheme's default, so
+     * {@code http://a.test/} and {@code http://a.test:80/} share an entry.
+     */
+    public RobotsRules rulesFor(String scheme, String host, int port) {
+        String lowerScheme = scheme.toLowerCase(Locale.ROOT);
+        String lowerHost = host.toLowerCase(Locale.ROOT);
+        int effectivePort = port >= 0 ? port : defaultPort(lowerScheme);
+        String key = lowerScheme + "://" + lowerHost + ":" + effectivePort;
+        long now = clock.getAsLong();
+
+        Entry entry = cache.get(key);
+        if (entry == null || entry.isExpired(now)) {
+            entry = cache.compute(key, (k, existing) ->
+                    existing != null && !existing.isExpired(now) ? existing : new Entry(lowerHost));
+            if (entry.fetchStarted.compareAndSet(false, true)) {
+                fetch(entry, lowerScheme + "://" + lowerHost + (port >= 0 ? ":" + port : "") + "/robots.txt", key);
+                if (cache.size() > maxHosts) {
+                    evictLeastRecentlyUsed();
                 }
             }
-            
-            reader.close();
-            robotsCache.put(domain, rules);
-            
-        } catch (Exception e) {
-            System.out.println("Could not fetch robots.txt for " + domain);
-            robotsCache.put(domain, null);
         }
+        if (now - entry.lastAccess > ACCESS_GRANULARITY_MS) {
+            entry.lastAccess = now;
+        }
+        return await(entry, key);
+    }
+
+    private static int defaultPort(String scheme) {
+        return switch (scheme) {
+            case "http" -> 80;
+            case "https" -> 443;
+            default -> -1;
+        };
+    }
+
+    private void fetch(Entry entry, String robotsUrl, String origin) {
+        fetcher.fetchAsync(robotsUrl).whenComplete((response, error) -> {
+            RobotsRules rules;
+            long ttl = ttlMs;
+            if (error != null) {
+                // Logged once per host per failure TTL, since the failure is cached
+                log.warn("Could not fetch robots.txt for {}: {}", origin, error.getMessage());
+                rules = RobotsRules.ALLOW_ALL;
+                ttl = Math.min(ttlMs, FAILURE_TTL_MS);
+            } else if (response.getStatusCode() >= 500) {
+                rules = RobotsRules.DISALLOW_ALL;
+                ttl = Math.min(ttlMs, FAILURE_TTL_MS);
+            } else if (response.isSuccess()) {
+                rules = RobotsRules.parse(body(response), agentToken);
+            } else {
+                rules = RobotsRules.ALLOW_ALL;
+            }
+            if (rules.getCrawlDelayMs() > 0) {
+                crawlDelays.merge(entry.host, rules.getCrawlDelayMs(), Math::max);
+            }
+            entry.expiresAt = clock.getAsLong() + ttl;
+            entry.rules.complete(rules);
+        });
     }
-    
-    private static class RobotRules {
-        private Set<String> disallowedPaths = new HashSet<>();
-        private int crawlDelay = 0;
-        
-        void addDisallowedPath(String path) {
-            disallowedPaths.add(path);
+
+    private static String body(FetchResponse response) {
+        byte[] bytes = response.getBody();
+        int length = Math.min(bytes.length, RobotsRules.MAX_BYTES);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static RobotsRules await(Entry entry, String origin) {
+        try {
+            // The fetcher has its own timeout; this only guards against one that never completes
+            return entry.rules.get(FETCH_TIMEOUT_MS * 2L, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return RobotsRules.ALLOW_ALL;
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Gave up waiting for robots.txt of {}", origin);
+            return RobotsRules.ALLOW_ALL;
         }
-        
-        void setCrawlDelay(int delay) {
-            this.crawlDelay = delay;
+    }
+
+    // Drops the least recently used tenth of the cache; one thread at a time
+    private void evictLeastRecentlyUsed() {
+        if (!evictionLock.tryLock()) {
+            return;
         }
-        
-        boolean isAllowed(String path) {
-            for (String disallowed : disallowedPaths) {
-                if (path.startsWith(disallowed)) {
-                    return false;
+        try {
+            int excess = cache.size() - maxHosts;
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<String, Entry>> entries = new ArrayList<>(cache.entrySet());
+            entries.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+            int toRemove = Math.min(entries.size(), excess + maxHosts / 10);
+            for (int i = 0; i < toRemove; i++) {
+                Map.Entry<String, Entry> victim = entries.get(i);
+                // In-flight fetches stay; their waiters hold the entry anyway
+                if (victim.getValue().rules.isDone()) {
+                    cache.remove(victim.getKey(), victim.getValue());
                 }
             }
-            return true;
+            // Delays go with the last origin of their host
+            Set<String> cachedHosts = ConcurrentHashMap.newKeySet();
+            cache.values().forEach(entry -> cachedHosts.add(entry.host));
+            crawlDelays.keySet().retainAll(cachedHosts);
+        } finally {
+            evictionLock.unlock();
         }
     }
 }
@@ -0,0 +1,252 @@
+package sandeep.webcrawler.robots;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The robots.txt rules that apply to one user agent, compiled into a trie.
+ *
+ * Matching follows RFC 9309: the longest matching Allow or Disallow pattern
+ * wins, Allow wins a tie, {@code *} matches any run of characters and a
+ * trailing {@code $} anchors the pattern to the end of the path. A check
+ * walks the path once through the trie; patterns without {@code *} keep a
+ * single live node, so the cost is O(path length) regardless of how many
+ * rules the site publishes.
+ */
+public class RobotsRules {
+
+    public static final RobotsRules ALLOW_ALL = new RobotsRules(new Node(), 0);
+    public static final RobotsRules DISALLOW_ALL;
+
+    static {
+        Node root = new Node();
+        root.child('/').setRule(1, false, false);
+        DISALLOW_ALL = new RobotsRules(root, 0);
+    }
+
+    // RFC 9309 requires parsing at least the first 500 KiB
+    static final int MAX_BYTES = 500 * 1024;
+
+    private final Node root;
+    private final long crawlDelayMs;
+
+    private RobotsRules(Node root, long crawlDelayMs) {
+        this.root = root;
+        this.crawlDelayMs = crawlDelayMs;
+    }
+
+    /**
+     * Parses a robots.txt body and keeps the groups for the given product
+     * token (matched case-insensitively), or the {@code *} groups when no
+     * group names the token.
+     */
+    public static RobotsRules parse(String robotsTxt, String agentToken) {
+        String agent = agentToken.toLowerCase(Locale.ROOT);
+        List<String[]> specific = new ArrayList<>();
+        List<String[]> wildcard = new ArrayList<>();
+        long specificDelay = -1;
+        long wildcardDelay = -1;
+
+        boolean specificGroupFound = false;
+        boolean inAgentLines = false;
+        boolean groupIsSpecific = false;
+        boolean groupIsWildcard = false;
+
+        for (String rawLine : robotsTxt.split("\r\n|\r|\n")) {
+            int comment = rawLine.indexOf('#');
+            String line = (comment >= 0 ? rawLine.substring(0, comment) : rawLine).trim();
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String key = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+
+            if (key.equals("user-agent")) {
+                if (!inAgentLines) {
+                    // First user-agent line after rules starts a new group
+                    groupIsSpecific = false;
+                    groupIsWildcard = false;
+                    inAgentLines = true;
+                }
+                String name = value.toLowerCase(Locale.ROOT);
+                if (name.equals("*")) {
+                    groupIsWildcard = true;
+                } else if (name.equals(agent)) {
+                    groupIsSpecific = true;
+                    specificGroupFound = true;
+                }
+                continue;
+            }
+            inAgentLines = false;
+
+            if (key.equals("allow") || key.equals("disallow")) {
+                if (value.isEmpty()) {
+                    continue; // "Disallow:" with no path allows everything
+                }
+                String[] rule = {key, value};
+                if (groupIsSpecific) {
+                    specific.add(rule);
+                }
+                if (groupIsWildcard) {
+                    wildcard.add(rule);
+                }
+            } else if (key.equals("crawl-delay")) {
+                long delay = parseDelayMs(value);
+                if (delay >= 0) {
+                    if (groupIsSpecific) {
+                        specificDelay = delay;
+                    }
+                    if (groupIsWildcard) {
+                        wildcardDelay = delay;
+                    }
+                }
+            }
+        }
+
+        // A group naming us replaces the * groups entirely, even if it has no rules
+        List<String[]> rules = specificGroupFound ? specific : wildcard;
+        long delay = specificGroupFound ? specificDelay : wildcardDelay;
+
+        Node root = new Node();
+        for (String[] rule : rules) {
+            add(root, rule[1], rule[0].equals("allow"));
+        }
+        return new RobotsRules(root, Math.max(0, delay));
+    }
+
+    private static long parseDelayMs(String value) {
+        try {
+            return Math.round(Double.parseDouble(value) * 1000);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void add(Node root, String pattern, boolean allow) {
+        boolean anchored = pattern.endsWith("$");
+        String body = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+        Node node = root;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '*') {
+                if (node.star == null) {
+                    node.star = new Node();
+                    node.star.isStar = true;
+                }
+                node = node.star;
+            } else {
+                node = node.child(c);
+            }
+        }
+        // Priority is the pattern length as written, per RFC 9309
+        node.setRule(pattern.length(), allow, anchored);
+    }
+
+    /**
+     * @param pathAndQuery URL path plus "?query" if any; an empty path is "/"
+     */
+    public boolean isAllowed(String pathAndQuery) {
+        String path = pathAndQuery.isEmpty() ? "/" : pathAndQuery;
+        if (root.children == null && root.star == null) {
+            return true;
+        }
+
+        Match best = new Match();
+        List<Node> states = new ArrayList<>(2);
+        addWithClosure(states, root);
+        collect(states, best, false);
+
+        List<Node> next = new ArrayList<>(2);
+        for (int i = 0; i < path.length() && !states.isEmpty(); i++) {
+            char c = path.charAt(i);
+            next.clear();
+            for (Node state : states) {
+                Node child = state.children != null ? state.children.get(c) : null;
+                if (child != null) {
+                    addWithClosure(next, child);
+                }
+                if (state.isStar) {
+                    // * consumes this character and stays
+                    addWithClosure(next, state);
+                }
+            }
+            List<Node> swap = states;
+            states = next;
+            next = swap;
+            collect(states, best, false);
+        }
+        collect(states, best, true);
+        return best.length < 0 || best.allow;
+    }
+
+    // Crawl-delay for this agent in milliseconds, 0 if none
+    public long getCrawlDelayMs() {
+        return crawlDelayMs;
+    }
+
+    private static void addWithClosure(List<Node> states, Node node) {
+        while (node != null && !states.contains(node)) {
+            states.add(node);
+            node = node.star; // * also matches the empty string
+        }
+    }
+
+    private static void collect(List<Node> states, Match best, boolean atEnd) {
+        for (Node state : states) {
+            best.offer(state.prefixLength, state.prefixAllow);
+            if (atEnd) {
+                best.offer(state.anchoredLength, state.anchoredAllow);
+            }
+        }
+    }
+
+    private static final class Match {
+        int length = -1;
+        boolean allow = true;
+
+        void offer(int length, boolean allow) {
+            if (length < 0) {
+                return;
+            }
+            if (length > this.length || (length == this.length && allow)) {
+                this.length = length;
+                this.allow = allow;
+            }
+        }
+    }
+
+    private static final class Node {
+        Map<Character, Node> children;
+        Node star;
+        boolean isStar;
+        // Rule ending here that matches any continuation; -1 if none
+        int prefixLength = -1;
+        boolean prefixAllow;
+        // Rule ending here with a trailing $; -1 if none
+        int anchoredLength = -1;
+        boolean anchoredAllow;
+
+        Node child(char c) {
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            return children.computeIfAbsent(c, k -> new Node());
+        }
+
+        void setRule(int length, boolean allow, boolean anchored) {
+            if (anchored) {
+                if (length > anchoredLength || (length == anchoredLength && allow)) {
+                    anchoredLength = length;
+                    anchoredAllow = allow;
+                }
+            } else if (length > prefixLength || (length == prefixLength && allow)) {
+                prefixLength = length;
+                prefixAllow = allow;
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package sandeep.webcrawler.schedule;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of worker threads shared by several crawl jobs. Jobs sit in a
+ * ring; a worker takes the job at the head, moves it to the tail and runs one
+ * step of it (typically one page), so every job gets a turn per round no
+ * matter how large its frontier is. A job can also cap how many workers run
+ * its steps at once.
+ */
+public class FairWorkerPool implements Closeable {
+
+    public enum Step {
+        /** Did a unit of work; the job wants another turn. */
+        WORKED,
+        /** Had nothing ready (e.g. every host is inside its politeness window). */
+        IDLE,
+        /** Has no work left; the job leaves the ring. */
+        DONE
+    }
+
+    @FunctionalInterface
+    public interface Job {
+        // Must not block waiting for work; return IDLE instead
+        Step step();
+    }
+
+    // How long a worker sleeps after a full round in which every job was idle
+    private static final long IDLE_WAIT_MS = 10;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final ArrayDeque<Entry> ring = new ArrayDeque<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private boolean closed;
+
+    private static final class Entry {
+        final Job job;
+        final int maxParallel;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        int running;
+        boolean finished;
+        RuntimeException failure;
+
+        Entry(Job job, int maxParallel) {
+            this.job = job;
+            this.maxParallel = maxParallel;
+        }
+    }
+
+    public FairWorkerPool(int threads) {
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            Thread worker = new Thread(this::work, "crawl-worker-" + (i + 1));
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Adds a job to the ring. The returned future completes once the job has
+     * returned DONE and none of its steps are still running; it completes
+     * exceptionally if a step throws, and is cancelled if the pool closes first.
+     *
+     * @param maxParallel most workers that may run this job's steps at once
+     */
+    public CompletableFuture<Void> submit(Job job, int maxParallel) {
+        Entry entry = new Entry(job, Math.max(1, maxParallel));
+        lock.lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Worker pool is closed");
+            }
+            ring.addLast(entry);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return entry.done;
+    }
+
+    public int getThreadCount() {
+        return workers.size();
+    }
+
+    public int activeJobs() {
+        lock.lock();
+        try {
+            return ring.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        int idleTurns = 0;
+        while (true) {
+            Entry entry;
+            lock.lock();
+            try {
+                if (idleTurns > 0 && idleTurns >= ring.size() && !closed) {
+                    // Every job was idle on the last round; give politeness windows time to open
+                    changed.await(IDLE_WAIT_MS, TimeUnit.MILLISECONDS);
+                    idleTurns = 0;
+                }
+                while ((entry = next()) == null && !closed) {
+                    if (ring.isEmpty()) {
+                        changed.await();
+                    } else {
+                        // Every job is at its parallelism cap
+                        changed.await(IDLE_WAIT_MS, TimeUnit.MILLISECONDS);
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                entry.running++;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            Step step;
+            try {
+                step = entry.job.step();
+            } catch (RuntimeException e) {
+                entry.failure = e;
+                step = Step.DONE;
+            }
+            finish(entry, step);
+            idleTurns = step == Step.IDLE ? idleTurns + 1 : 0;
+        }
+    }
+
+    // Next job in ring order that is below its parallelism cap; it moves to the tail
+    private Entry next() {
+        for (int i = 0, n = ring.size(); i < n; i++) {
+            Entry entry = ring.pollFirst();
+            ring.addLast(entry);
+            if (entry.running < entry.maxParallel) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void finish(Entry entry, Step step) {
+        boolean complete;
+        lock.lock();
+        try {
+            entry.running--;
+            if (step == Step.DONE && !entry.finished) {
+                entry.finished = true;
+                ring.remove(entry);
+            }
+            complete = entry.finished && entry.running == 0;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (complete) {
+            if (entry.failure != null) {
+                entry.done.completeExceptionally(entry.failure);
+            } else {
+                entry.done.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Stops the workers after their current step. Jobs still in the ring
+     * have their futures cancelled.
+     */
+    @Override
+    public void close() {
+        List<Entry> abandoned;
+        lock.lock();
+        try {
+            closed = true;
+            abandoned = new ArrayList<>(ring);
+            ring.clear();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        abandoned.forEach(entry -> entry.done.cancel(false));
+    }
+}
@@ -0,0 +1,76 @@
+package sandeep.webcrawler.schedule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts tasks that have been discovered but not finished, queued or in
+ * flight, and detects the moment the count reaches zero. A worker registers
+ * a task's children before it arrives for the task itself, so zero can only
+ * be reached once nothing is left that could produce more work; there is no
+ * window in which an idle worker can see an empty queue while another is
+ * about to fill it.
+ *
+ * Works like a {@link java.util.concurrent.Phaser} used for a single phase,
+ * without the Phaser's limit of 65535 registered parties. The coordinator
+ * registers itself before seeding and arrives after, so a crawl with no
+ * seeds still completes.
+ */
+public class OutstandingWork {
+
+    private final AtomicLong pending = new AtomicLong();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final Runnable onDone;
+
+    // onDone runs once, on the thread whose arrival brings the count to zero, before await() returns
+    public OutstandingWork(Runnable onDone) {
+        this.onDone = onDone;
+    }
+
+    /**
+     * Adds tasks. Must be called before the tasks become visible to workers.
+     *
+     * @throws IllegalStateException if the work has already completed
+     */
+    public void register(int tasks) {
+        if (done.getCount() == 0) {
+            throw new IllegalStateException("Work already completed");
+        }
+        pending.addAndGet(tasks);
+    }
+
+    public void register() {
+        register(1);
+    }
+
+    // Marks one registered task finished; call after registering anything it produced
+    public void arrive() {
+        long left = pending.decrementAndGet();
+        if (left == 0) {
+            try {
+                onDone.run();
+            } finally {
+                done.countDown();
+            }
+        } else if (left < 0) {
+            throw new IllegalStateException("More arrivals than registered tasks");
+        }
+    }
+
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    public long pending() {
+        return pending.get();
+    }
+
+    public void await() throws InterruptedException {
+        done.await();
+    }
+
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+}
@@ -0,0 +1,14 @@
+package sandeep.webcrawler.scoring;
+
+import sandeep.webcrawler.frontier.CrawlTask;
+
+/**
+ * Prefers pages closer to the seed: 1 / (1 + depth).
+ */
+public class DepthScorer implements UrlScorer {
+
+    @Override
+    public double score(CrawlTask task) {
+        return 1.0 / (1 + Math.max(0, task.getDepth()));
+    }
+}
@@ -0,0 +1,58 @@
+package sandeep.webcrawler.scoring;
+
+import sandeep.webcrawler.frontier.CrawlTask;
+import sandeep.webcrawler.seen.UrlFingerprint;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Prefers URLs that more crawled pages link to. Counts are kept in a
+ * count-min sketch, so memory is fixed however many URLs are seen and a
+ * count can only be overestimated. The score grows with the log of the
+ * count and reaches 1 at {@code saturation} inlinks.
+ */
+public class InlinkScorer implements UrlScorer {
+
+    static final int DEFAULT_SATURATION = 64;
+    private static final int ROWS = 4;
+    private static final int COLUMN_BITS = 16;
+    private static final int COLUMNS = 1 << COLUMN_BITS;
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(ROWS * COLUMNS);
+    private final double logSaturation;
+
+    public InlinkScorer() {
+        this(DEFAULT_SATURATION);
+    }
+
+    public InlinkScorer(int saturation) {
+        this.logSaturation = Math.log1p(Math.max(1, saturation));
+    }
+
+    @Override
+    public void onLink(String url) {
+        long hash = UrlFingerprint.of(url);
+        for (int row = 0; row < ROWS; row++) {
+            counts.incrementAndGet(row * COLUMNS + column(hash, row));
+        }
+    }
+
+    public int inlinks(String url) {
+        long hash = UrlFingerprint.of(url);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < ROWS; row++) {
+            min = Math.min(min, counts.get(row * COLUMNS + column(hash, row)));
+        }
+        return min;
+    }
+
+    @Override
+    public double score(CrawlTask task) {
+        return Math.min(1.0, Math.log1p(inlinks(task.getUrl())) / logSaturation);
+    }
+
+    // Each row takes its own 16 bits of the 64-bit fingerprint
+    private static int column(long hash, int row) {
+        return (int) (hash >>> (row * COLUMN_BITS)) & (COLUMNS - 1);
+    }
+}
@@ -0,0 +1,66 @@
+package sandeep.webcrawler.scoring;
+
+import sandeep.webcrawler.frontier.CrawlTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Scores URLs by regular expression rules, e.g. {@code /product/} at 0.9
+ * and {@code /tag/} at 0.1. Rules are tried in insertion order and the first
+ * one found anywhere in the URL wins; URLs matching none get the default.
+ */
+public class PatternScorer implements UrlScorer {
+
+    static final double DEFAULT_SCORE = 0.5;
+
+    private final List<Pattern> patterns = new ArrayList<>();
+    private final List<Double> scores = new ArrayList<>();
+    private final double defaultScore;
+
+    public PatternScorer() {
+        this(DEFAULT_SCORE);
+    }
+
+    public PatternScorer(double defaultScore) {
+        this.defaultScore = clamp(defaultScore);
+    }
+
+    /**
+     * @param rules regex -> score, in the order they should be tried
+     * @throws java.util.regex.PatternSyntaxException if a regex is invalid
+     */
+    public static PatternScorer of(Map<String, Double> rules) {
+        PatternScorer scorer = new PatternScorer();
+        rules.forEach(scorer::addRule);
+        return scorer;
+    }
+
+    // Must be called before the scorer is shared with a frontier
+    public PatternScorer addRule(String regex, double score) {
+        patterns.add(Pattern.compile(regex));
+        scores.add(clamp(score));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return patterns.isEmpty();
+    }
+
+    @Override
+    public double score(CrawlTask task) {
+        String url = task.getUrl();
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).matcher(url).find()) {
+                return scores.get(i);
+            }
+        }
+        return defaultScore;
+    }
+
+    private static double clamp(double score) {
+        return Math.max(0, Math.min(1, score));
+    }
+}
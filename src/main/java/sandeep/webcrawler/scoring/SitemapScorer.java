@@ -0,0 +1,131 @@
+package sandeep.webcrawler.scoring;
+
+import sandeep.webcrawler.fetch.FetchResponse;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.frontier.CrawlTask;
+import sandeep.webcrawler.url.UrlCanonicalizer;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scores URLs by the {@code <priority>} their host's /sitemap.xml gives
+ * them. The first score for a host starts an asynchronous fetch of its
+ * sitemap and never waits for it: the host's URLs score at the default
+ * until it has been loaded, and the frontier's re-scoring sweep moves them
+ * afterwards. URLs the sitemap does not list, and hosts without one, get
+ * the sitemap protocol's default of 0.5.
+ *
+ * Only a plain urlset is read; sitemap indexes and gzipped sitemaps are
+ * treated as missing.
+ */
+public class SitemapScorer implements UrlScorer {
+
+    static final double DEFAULT_PRIORITY = 0.5;
+    // The sitemap protocol's own limit per file
+    static final int MAX_URLS_PER_HOST = 50_000;
+    private static final int DEFAULT_MAX_HOSTS = 1_000;
+    private static final Pattern URL_ENTRY = Pattern.compile("<url>(.*?)</url>", Pattern.DOTALL);
+    private static final Pattern LOC = Pattern.compile("<loc>\\s*(.*?)\\s*</loc>", Pattern.DOTALL);
+    private static final Pattern PRIORITY = Pattern.compile("<priority>\\s*([0-9.]+)\\s*</priority>");
+
+    private final Fetcher fetcher;
+    private final int maxHosts;
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+    // Host -> canonical URL -> priority, once loaded; empty when there is no sitemap
+    private final Map<String, CompletableFuture<Map<String, Float>>> hosts = new ConcurrentHashMap<>();
+
+    public SitemapScorer(Fetcher fetcher) {
+        this(fetcher, DEFAULT_MAX_HOSTS);
+    }
+
+    // Hosts past maxHosts are not fetched and score at the default
+    public SitemapScorer(Fetcher fetcher, int maxHosts) {
+        this.fetcher = fetcher;
+        this.maxHosts = Math.max(1, maxHosts);
+    }
+
+    @Override
+    public double score(CrawlTask task) {
+        String host = task.getHost();
+        if (host == null) {
+            return DEFAULT_PRIORITY;
+        }
+        CompletableFuture<Map<String, Float>> sitemap = hosts.get(host);
+        if (sitemap == null) {
+            if (hosts.size() >= maxHosts) {
+                return DEFAULT_PRIORITY;
+            }
+            sitemap = hosts.computeIfAbsent(host, h -> load(task.getUrl()));
+        }
+        Float priority = sitemap.getNow(Map.of()).get(task.getUrl());
+        return priority != null ? priority : DEFAULT_PRIORITY;
+    }
+
+    // Completes once the host's sitemap has been loaded; null if none was requested
+    CompletableFuture<Map<String, Float>> whenLoaded(String host) {
+        return hosts.get(host);
+    }
+
+    // Only starts the fetch, so scoring stays cheap enough for the frontier lock
+    private CompletableFuture<Map<String, Float>> load(String pageUrl) {
+        String sitemapUrl;
+        try {
+            sitemapUrl = new URI(pageUrl).resolve("/sitemap.xml").toString();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        CompletableFuture<FetchResponse> response;
+        try {
+            response = fetcher.fetchAsync(sitemapUrl);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        return response.handle((r, error) -> {
+            if (error != null || !r.isSuccess() || r.getBody() == null) {
+                return Map.of();
+            }
+            return parse(new String(r.getBody(), StandardCharsets.UTF_8));
+        });
+    }
+
+    // Canonical URL -> priority for each url entry that has both
+    Map<String, Float> parse(String xml) {
+        Map<String, Float> priorities = new HashMap<>();
+        Matcher entry = URL_ENTRY.matcher(xml);
+        while (entry.find() && priorities.size() < MAX_URLS_PER_HOST) {
+            String body = entry.group(1);
+            Matcher loc = LOC.matcher(body);
+            Matcher priority = PRIORITY.matcher(body);
+            if (!loc.find() || !priority.find()) {
+                continue;
+            }
+            String url = canonicalizer.canonicalize(unescape(loc.group(1)));
+            if (url == null) {
+                continue;
+            }
+            try {
+                priorities.put(url, (float) Math.max(0, Math.min(1, Double.parseDouble(priority.group(1)))));
+            } catch (NumberFormatException e) {
+                // skip the entry
+            }
+        }
+        return priorities;
+    }
+
+    // Sitemaps must entity-escape these five in <loc>
+    private static String unescape(String text) {
+        if (text.indexOf('&') < 0) {
+            return text;
+        }
+        return text.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&amp;", "&");
+    }
+}
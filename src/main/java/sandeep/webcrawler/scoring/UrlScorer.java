@@ -0,0 +1,19 @@
+package sandeep.webcrawler.scoring;
+
+import sandeep.webcrawler.frontier.CrawlTask;
+
+/**
+ * Estimates how valuable a URL is to crawl, for best-first frontiers.
+ * Scores are in [0, 1], higher first. The frontier scores a task when it is
+ * offered and re-scores queued tasks from time to time while holding its
+ * lock, so score() must be thread-safe and cheap, and must never block on
+ * I/O; load anything slow asynchronously, as {@link SitemapScorer} does.
+ */
+public interface UrlScorer {
+
+    double score(CrawlTask task);
+
+    // Called for every link found on a crawled page, including ones already queued or seen
+    default void onLink(String url) {
+    }
+}
@@ -0,0 +1,62 @@
+package sandeep.webcrawler.scoring;
+
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.frontier.CrawlTask;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Weighted average of other scorers. Links are passed on to all of them.
+ */
+public class WeightedScorer implements UrlScorer {
+
+    private final List<UrlScorer> scorers = new ArrayList<>();
+    private final List<Double> weights = new ArrayList<>();
+    private double totalWeight = 0;
+
+    /**
+     * Depth, inlinks and sitemap priority, plus the URL pattern rules when
+     * there are any.
+     */
+    public static WeightedScorer defaults(Fetcher fetcher, PatternScorer patterns) {
+        WeightedScorer scorer = new WeightedScorer()
+                .add(new DepthScorer(), 0.3)
+                .add(new InlinkScorer(), 0.3)
+                .add(new SitemapScorer(fetcher), 0.2);
+        if (patterns != null && !patterns.isEmpty()) {
+            scorer.add(patterns, 0.4);
+        }
+        return scorer;
+    }
+
+    // Must be called before the scorer is shared with a frontier
+    public WeightedScorer add(UrlScorer scorer, double weight) {
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException("Weight must be positive: " + weight);
+        }
+        scorers.add(scorer);
+        weights.add(weight);
+        totalWeight += weight;
+        return this;
+    }
+
+    @Override
+    public double score(CrawlTask task) {
+        if (scorers.isEmpty()) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < scorers.size(); i++) {
+            sum += weights.get(i) * scorers.get(i).score(task);
+        }
+        return sum / totalWeight;
+    }
+
+    @Override
+    public void onLink(String url) {
+        for (UrlScorer scorer : scorers) {
+            scorer.onLink(url);
+        }
+    }
+}
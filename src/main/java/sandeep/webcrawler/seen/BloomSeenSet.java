@@ -0,0 +1,119 @@
+package sandeep.webcrawler.seen;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate seen-set with a fixed memory budget. Bits are set with CAS. A
+ * false positive makes the crawler skip a URL it has never seen; there are no
+ * false negatives. Adds of the same URL are serialized on a lock stripe picked
+ * from its fingerprint, so exactly one of several concurrent callers gets
+ * {@code true}; adds of different URLs rarely share a stripe.
+ */
+public class BloomSeenSet implements SeenSet {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public BloomSeenSet(long bitCount, int hashCount) {
+        long words = Math.max(1, (bitCount + 63) / 64);
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large: " + bitCount + " bits");
+        }
+        this.bits = new AtomicLongArray((int) words);
+        this.bitCount = words * 64;
+        this.hashCount = Math.max(1, hashCount);
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Sizes the filter for the expected number of URLs at the given false
+     * positive rate, e.g. 10M URLs at 1% is about 12 MB.
+     */
+    public static BloomSeenSet forExpected(long expectedUrls, double falsePositiveRate) {
+        long n = Math.max(1, expectedUrls);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int k = (int) Math.round((double) m / n * Math.log(2));
+        return new BloomSeenSet(m, k);
+    }
+
+    /**
+     * Uses at most {@code maxBytes} of bit array, choosing the hash count
+     * that minimises false positives for the expected URL count.
+     */
+    public static BloomSeenSet withMemoryBudget(long maxBytes, long expectedUrls) {
+        long m = Math.max(64, maxBytes * 8);
+        int k = (int) Math.round((double) m / Math.max(1, expectedUrls) * Math.log(2));
+        return new BloomSeenSet(m, k);
+    }
+
+    @Override
+    public boolean addIfAbsent(String url) {
+        return addFingerprintIfAbsent(UrlFingerprint.of(url));
+    }
+
+    @Override
+    public boolean addFingerprintIfAbsent(long fingerprint) {
+        int h1 = (int) fingerprint;
+        int h2 = (int) (fingerprint >>> 32);
+        boolean changed = false;
+        // Other URLs share words with this one, so bits are still CAS-set under the stripe lock
+        synchronized (locks[(int) (fingerprint >>> 58)]) {
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current = bits.get(word);
+                while ((current & mask) == 0) {
+                    if (bits.compareAndSet(word, current, current | mask)) {
+                        changed = true;
+                        break;
+                    }
+                    current = bits.get(word);
+                }
+            }
+        }
+        if (changed) {
+            size.incrementAndGet();
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = UrlFingerprint.of(url);
+        int h1 = (int) fingerprint;
+        int h2 = (int) (fingerprint >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of URLs accepted by {@link #addIfAbsent}; an estimate of the
+     * distinct URLs seen.
+     */
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    private long index(int combinedHash) {
+        return (combinedHash & 0xffffffffL) % bitCount;
+    }
+}
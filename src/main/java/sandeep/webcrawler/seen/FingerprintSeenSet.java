@@ -0,0 +1,124 @@
+package sandeep.webcrawler.seen;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exact seen-set that stores 8-byte URL fingerprints instead of the URL
+ * strings. Fingerprints are spread over independently locked stripes, each an
+ * open-addressing {@code long[]} table with linear probing, so workers only
+ * contend when they hit the same stripe.
+ */
+public class FingerprintSeenSet implements SeenSet {
+
+    private static final int DEFAULT_STRIPES = 64;
+    private static final int MIN_STRIPE_CAPACITY = 64;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public FingerprintSeenSet() {
+        this(1024);
+    }
+
+    public FingerprintSeenSet(int expectedUrls) {
+        this(expectedUrls, DEFAULT_STRIPES);
+    }
+
+    public FingerprintSeenSet(int expectedUrls, int stripeCount) {
+        int count = tableSizeFor(stripeCount);
+        this.stripes = new Stripe[count];
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(count);
+        int perStripe = Math.max(MIN_STRIPE_CAPACITY, tableSizeFor(expectedUrls / count * 2));
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    @Override
+    public boolean addIfAbsent(String url) {
+        return addFingerprintIfAbsent(UrlFingerprint.of(url));
+    }
+
+    @Override
+    public boolean addFingerprintIfAbsent(long fingerprint) {
+        if (stripeFor(fingerprint).add(fingerprint)) {
+            size.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = UrlFingerprint.of(url);
+        return stripeFor(fingerprint).contains(fingerprint);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    private Stripe stripeFor(long fingerprint) {
+        // High bits pick the stripe, low bits the slot, so the two stay independent
+        return stripes.length == 1 ? stripes[0] : stripes[(int) (fingerprint >>> stripeShift)];
+    }
+
+    private static int tableSizeFor(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    private static final class Stripe {
+        private long[] table;
+        private int count;
+
+        Stripe(int capacity) {
+            table = new long[capacity];
+        }
+
+        synchronized boolean add(long fingerprint) {
+            int mask = table.length - 1;
+            int slot = (int) fingerprint & mask;
+            while (table[slot] != 0) {
+                if (table[slot] == fingerprint) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = fingerprint;
+            if (++count * 4 > table.length * 3) {
+                resize();
+            }
+            return true;
+        }
+
+        synchronized boolean contains(long fingerprint) {
+            int mask = table.length - 1;
+            int slot = (int) fingerprint & mask;
+            while (table[slot] != 0) {
+                if (table[slot] == fingerprint) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        private void resize() {
+            long[] old = table;
+            long[] grown = new long[old.length << 1];
+            int mask = grown.length - 1;
+            for (long fingerprint : old) {
+                if (fingerprint != 0) {
+                    int slot = (int) fingerprint & mask;
+                    while (grown[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    grown[slot] = fingerprint;
+                }
+            }
+            table = grown;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package sandeep.webcrawler.seen;
+
+/**
+ * Set of URLs the crawler has already discovered. Implementations are safe
+ * for concurrent use.
+ */
+public interface SeenSet {
+
+    /**
+     * Atomically records the URL. Returns true only for the caller that added
+     * it first, so check-then-add races between workers cannot enqueue a URL
+     * twice.
+     */
+    boolean addIfAbsent(String url);
+
+    /**
+     * Same as {@link #addIfAbsent(String)} for a URL already reduced to its
+     * {@link UrlFingerprint}, e.g. when restoring a checkpoint.
+     */
+    boolean addFingerprintIfAbsent(long fingerprint);
+
+    boolean contains(String url);
+
+    int size();
+}
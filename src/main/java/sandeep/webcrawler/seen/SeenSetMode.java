@@ -0,0 +1,15 @@
+package sandeep.webcrawler.seen;
+
+public enum SeenSetMode {
+    // Exact fingerprint table, memory grows with the number of URLs
+    EXACT,
+    // Bloom filter at 1% false positives, memory fixed up front
+    BLOOM;
+
+    public SeenSet create(int expectedUrls) {
+        if (this == BLOOM) {
+            return BloomSeenSet.forExpected(expectedUrls, 0.01);
+        }
+        return new FingerprintSeenSet(expectedUrls);
+    }
+}
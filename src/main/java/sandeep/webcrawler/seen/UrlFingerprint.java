@@ -0,0 +1,27 @@
+package sandeep.webcrawler.seen;
+
+public final class UrlFingerprint {
+
+    private UrlFingerprint() {}
+
+    /**
+     * 64-bit fingerprint of a URL: FNV-1a over the UTF-16 code units followed
+     * by the MurmurHash3 finalizer so every input bit affects every output bit.
+     * Never returns 0, which the tables use as the empty marker.
+     */
+    public static long of(String url) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            h ^= url.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= url.length();
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+}
@@ -0,0 +1,324 @@
+package sandeep.webcrawler.url;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Rewrites http(s) URLs into one canonical spelling so that variants of a
+ * page share a seen-set entry: scheme and host are lower-cased, the default
+ * port, user info and fragment are dropped, an empty path becomes "/",
+ * session ids are removed from the path ({@code ;jsessionid=}) and query,
+ * and query parameters are sorted.
+ *
+ * The URL is scanned once. When it is already canonical, which is the
+ * common case for links on a well-behaved site, the same string is returned
+ * and nothing is allocated.
+ */
+public class UrlCanonicalizer {
+
+    public static final Set<String> DEFAULT_SESSION_PARAMS =
+            Set.of("jsessionid", "phpsessid", "aspsessionid", "sessionid", "session_id");
+
+    private final String[] sessionParams;
+
+    public UrlCanonicalizer() {
+        this(DEFAULT_SESSION_PARAMS);
+    }
+
+    // Names are matched case-insensitively and must be given in lower case
+    public UrlCanonicalizer(Set<String> sessionParams) {
+        this.sessionParams = sessionParams.toArray(new String[0]);
+    }
+
+    /**
+     * Canonical form of the URL, or null if it is not an absolute http(s)
+     * URL with a valid host and port.
+     */
+    public String canonicalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        int start = 0;
+        int end = url.length();
+        while (start < end && url.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && url.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        int schemeEnd;
+        boolean https;
+        if (url.regionMatches(true, start, "http://", 0, 7)) {
+            schemeEnd = start + 7;
+            https = false;
+        } else if (url.regionMatches(true, start, "https://", 0, 8)) {
+            schemeEnd = start + 8;
+            https = true;
+        } else {
+            return null;
+        }
+        boolean changed = start != 0 || end != url.length() || !url.startsWith(https ? "https://" : "http://");
+
+        // Authority: [userinfo@]host[:port]
+        int authorityEnd = schemeEnd;
+        while (authorityEnd < end && !endsAuthority(url.charAt(authorityEnd))) {
+            authorityEnd++;
+        }
+        int hostStart = url.lastIndexOf('@', authorityEnd - 1);
+        if (hostStart >= schemeEnd) {
+            hostStart++;
+            changed = true;
+        } else {
+            hostStart = schemeEnd;
+        }
+        int hostEnd = authorityEnd;
+        int portStart = -1;
+        int bracket = url.lastIndexOf(']', authorityEnd - 1);
+        int colon = url.lastIndexOf(':', authorityEnd - 1);
+        if (colon >= hostStart && colon > bracket) {
+            hostEnd = colon;
+            portStart = colon + 1;
+        }
+        if (hostEnd > hostStart && url.charAt(hostEnd - 1) == '.') {
+            hostEnd--; // "example.com." names the same host
+            changed = true;
+        }
+        if (hostEnd <= hostStart) {
+            return null;
+        }
+        for (int i = hostStart; i < hostEnd; i++) {
+            char c = url.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                changed = true;
+            } else if (c <= ' ') {
+                return null;
+            }
+        }
+
+        boolean keepPort = false;
+        if (portStart >= 0) {
+            int port = 0;
+            for (int i = portStart; i < authorityEnd; i++) {
+                char c = url.charAt(i);
+                if (c < '0' || c > '9' || port > 65535) {
+                    return null;
+                }
+                port = port * 10 + (c - '0');
+            }
+            keepPort = portStart < authorityEnd && port != (https ? 443 : 80);
+            if (port > 65535) {
+                return null;
+            }
+            if (!keepPort) {
+                changed = true;
+            }
+        }
+
+        // Path, query and fragment
+        int fragment = url.indexOf('#', authorityEnd);
+        if (fragment < 0 || fragment > end) {
+            fragment = end;
+        } else {
+            changed = true;
+        }
+        int queryStart = url.indexOf('?', authorityEnd);
+        if (queryStart < 0 || queryStart > fragment) {
+            queryStart = fragment;
+        }
+        if (queryStart == authorityEnd) {
+            changed = true; // empty path
+        }
+        int session = findPathSession(url, authorityEnd, queryStart);
+        if (session >= 0) {
+            changed = true;
+        }
+        boolean queryCanonical = queryStart == fragment || isQueryCanonical(url, queryStart + 1, fragment);
+        if (queryStart + 1 == fragment) {
+            changed = true; // bare "?"
+        }
+        if (!changed && queryCanonical) {
+            return url;
+        }
+
+        StringBuilder out = new StringBuilder(end - start);
+        out.append(https ? "https://" : "http://");
+        for (int i = hostStart; i < hostEnd; i++) {
+            char c = url.charAt(i);
+            out.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+        if (keepPort) {
+            out.append(url, portStart - 1, authorityEnd);
+        }
+        if (queryStart == authorityEnd) {
+            out.append('/');
+        } else if (session >= 0) {
+            appendWithoutPathSessions(out, url, authorityEnd, queryStart);
+        } else {
+            out.append(url, authorityEnd, queryStart);
+        }
+        if (queryStart + 1 < fragment) {
+            appendQuery(out, url, queryStart + 1, fragment);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Lower-case host of an http(s) URL without building a {@link java.net.URI},
+     * or "" if there is none. Tolerates URLs that are not canonical.
+     */
+    public static String host(String url) {
+        if (url == null) {
+            return "";
+        }
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd <= 0) {
+            return "";
+        }
+        int start = schemeEnd + 3;
+        int end = start;
+        while (end < url.length() && !endsAuthority(url.charAt(end))) {
+            end++;
+        }
+        int at = url.lastIndexOf('@', end - 1);
+        if (at >= start) {
+            start = at + 1;
+        }
+        int bracket = url.lastIndexOf(']', end - 1);
+        int colon = url.lastIndexOf(':', end - 1);
+        if (colon >= start && colon > bracket) {
+            end = colon;
+        }
+        if (end > start && url.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (end <= start) {
+            return "";
+        }
+        String host = url.substring(start, end);
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                return host.toLowerCase(Locale.ROOT);
+            }
+        }
+        return host;
+    }
+
+    private static boolean endsAuthority(char c) {
+        return c == '/' || c == '?' || c == '#';
+    }
+
+    // Index of the first ";jsessionid=" style path parameter, or -1
+    private int findPathSession(String url, int from, int to) {
+        for (int i = url.indexOf(';', from); i >= 0 && i < to; i = url.indexOf(';', i + 1)) {
+            int eq = url.indexOf('=', i);
+            if (eq > i && eq < to && isSessionParam(url, i + 1, eq)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void appendWithoutPathSessions(StringBuilder out, String url, int from, int to) {
+        int i = from;
+        while (i < to) {
+            char c = url.charAt(i);
+            if (c == ';') {
+                int eq = url.indexOf('=', i);
+                if (eq > i && eq < to && isSessionParam(url, i + 1, eq)) {
+                    // Skip up to the next segment or parameter
+                    int next = i + 1;
+                    while (next < to && url.charAt(next) != '/' && url.charAt(next) != ';') {
+                        next++;
+                    }
+                    i = next;
+                    continue;
+                }
+            }
+            out.append(c);
+            i++;
+        }
+    }
+
+    // True if the query has no empty or session parameters and is already sorted
+    private boolean isQueryCanonical(String url, int from, int to) {
+        int previousStart = -1;
+        int previousEnd = -1;
+        int paramStart = from;
+        while (paramStart <= to) {
+            int paramEnd = url.indexOf('&', paramStart);
+            if (paramEnd < 0 || paramEnd > to) {
+                paramEnd = to;
+            }
+            if (paramEnd == paramStart || isSessionParam(url, paramStart, nameEnd(url, paramStart, paramEnd))) {
+                return false;
+            }
+            if (previousStart >= 0 && compare(url, previousStart, previousEnd, paramStart, paramEnd) > 0) {
+                return false;
+            }
+            previousStart = paramStart;
+            previousEnd = paramEnd;
+            paramStart = paramEnd + 1;
+        }
+        return true;
+    }
+
+    private void appendQuery(StringBuilder out, String url, int from, int to) {
+        // Parameter bounds as start/end pairs, insertion sorted; queries are short
+        int[] bounds = new int[16];
+        int count = 0;
+        int paramStart = from;
+        while (paramStart <= to) {
+            int paramEnd = url.indexOf('&', paramStart);
+            if (paramEnd < 0 || paramEnd > to) {
+                paramEnd = to;
+            }
+            if (paramEnd > paramStart && !isSessionParam(url, paramStart, nameEnd(url, paramStart, paramEnd))) {
+                if (count * 2 == bounds.length) {
+                    bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                }
+                int j = count;
+                while (j > 0 && compare(url, bounds[2 * j - 2], bounds[2 * j - 1], paramStart, paramEnd) > 0) {
+                    bounds[2 * j] = bounds[2 * j - 2];
+                    bounds[2 * j + 1] = bounds[2 * j - 1];
+                    j--;
+                }
+                bounds[2 * j] = paramStart;
+                bounds[2 * j + 1] = paramEnd;
+                count++;
+            }
+            paramStart = paramEnd + 1;
+        }
+        for (int p = 0; p < count; p++) {
+            out.append(p == 0 ? '?' : '&').append(url, bounds[2 * p], bounds[2 * p + 1]);
+        }
+    }
+
+    private static int nameEnd(String url, int from, int to) {
+        int eq = url.indexOf('=', from);
+        return eq < 0 || eq > to ? to : eq;
+    }
+
+    private boolean isSessionParam(String url, int from, int to) {
+        int length = to - from;
+        for (String name : sessionParams) {
+            if (name.length() == length && url.regionMatches(true, from, name, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int compare(String s, int aStart, int aEnd, int bStart, int bEnd) {
+        int length = Math.min(aEnd - aStart, bEnd - bStart);
+        for (int i = 0; i < length; i++) {
+            int diff = s.charAt(aStart + i) - s.charAt(bStart + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (aEnd - aStart) - (bEnd - bStart);
+    }
+}
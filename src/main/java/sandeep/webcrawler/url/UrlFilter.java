@@ -0,0 +1,126 @@
+package sandeep.webcrawler.url;
+
+import java.util.Set;
+
+/**
+ * Decides which discovered links a crawl follows: http(s) only, no binary
+ * downloads, and on the seed's domain or one of its subdomains. Accepted
+ * links are returned in canonical form (see {@link UrlCanonicalizer}) so
+ * that variants of one page are queued once.
+ */
+public class UrlFilter {
+
+    // Matched against the extension of the last path segment, ignoring case
+    public static final Set<String> DEFAULT_SKIPPED_EXTENSIONS = Set.of(
+            "pdf", "zip", "gz", "tgz", "tar", "rar", "7z", "exe", "dmg", "iso",
+            "jpg", "jpeg", "png", "gif", "webp", "svg", "ico", "bmp", "tif", "tiff",
+            "mp3", "mp4", "avi", "mov", "wmv", "webm");
+
+    private final String seedDomain;
+    private final UrlCanonicalizer canonicalizer;
+    private final String[] skippedExtensions;
+
+    public UrlFilter(String seedUrl) {
+        this(seedUrl, new UrlCanonicalizer(), DEFAULT_SKIPPED_EXTENSIONS);
+    }
+
+    // Extensions must be given in lower case, without the dot
+    public UrlFilter(String seedUrl, UrlCanonicalizer canonicalizer, Set<String> skippedExtensions) {
+        this.seedDomain = extractDomain(seedUrl);
+        this.canonicalizer = canonicalizer;
+        this.skippedExtensions = skippedExtensions.toArray(new String[0]);
+    }
+
+    public String getSeedDomain() {
+        return seedDomain;
+    }
+
+    public boolean accept(String url) {
+        return canonicalize(url) != null;
+    }
+
+    /**
+     * Canonical form of the URL if the crawl should follow it, null if not.
+     */
+    public String canonicalize(String url) {
+        String canonical = canonicalizer.canonicalize(url);
+        if (canonical == null || hasSkippedExtension(canonical) || !hasSeedHost(canonical)) {
+            return null;
+        }
+        return canonical;
+    }
+
+    // Same as canonicalize() without the seed-domain check, for crawls that may leave the site
+    public String canonicalizeAnyHost(String url) {
+        String canonical = canonicalizer.canonicalize(url);
+        return canonical == null || hasSkippedExtension(canonical) ? null : canonical;
+    }
+
+    // Lower-case host of the URL, or "" if it has none
+    public static String extractDomain(String url) {
+        return UrlCanonicalizer.host(url);
+    }
+
+    public boolean isSameDomain(String url) {
+        return isSameHost(extractDomain(url));
+    }
+
+    // Fragments are stripped by canonicalization rather than rejected
+    public boolean isValidUrl(String url) {
+        String canonical = canonicalizer.canonicalize(url);
+        return canonical != null && !hasSkippedExtension(canonical);
+    }
+
+    private boolean isSameHost(String domain) {
+        return !domain.isEmpty() && isSameHost(domain, 0, domain.length());
+    }
+
+    // Reads the host in place: canonical URLs have no user info and a lower-case host
+    private boolean hasSeedHost(String canonical) {
+        int hostStart = canonical.indexOf("://") + 3;
+        int hostEnd = hostStart;
+        if (canonical.charAt(hostStart) == '[') {
+            hostEnd = canonical.indexOf(']', hostStart) + 1;
+        } else {
+            while (hostEnd < canonical.length() && canonical.charAt(hostEnd) != ':' && canonical.charAt(hostEnd) != '/') {
+                hostEnd++;
+            }
+        }
+        return hostEnd > hostStart && isSameHost(canonical, hostStart, hostEnd);
+    }
+
+    // A subdomain of the seed, or a parent of it (www.example.com seeds example.com)
+    private boolean isSameHost(String s, int hostStart, int hostEnd) {
+        int hostLength = hostEnd - hostStart;
+        int seedLength = seedDomain.length();
+        if (seedLength == 0) {
+            return false;
+        }
+        if (hostLength >= seedLength) {
+            int offset = hostEnd - seedLength;
+            return s.regionMatches(offset, seedDomain, 0, seedLength)
+                    && (offset == hostStart || s.charAt(offset - 1) == '.');
+        }
+        int offset = seedLength - hostLength;
+        return seedDomain.regionMatches(offset, s, hostStart, hostLength) && seedDomain.charAt(offset - 1) == '.';
+    }
+
+    // Canonical URLs always have a path, so the last segment starts after the last '/' before the query
+    private boolean hasSkippedExtension(String canonical) {
+        int pathEnd = canonical.indexOf('?');
+        if (pathEnd < 0) {
+            pathEnd = canonical.length();
+        }
+        int dot = canonical.lastIndexOf('.', pathEnd - 1);
+        if (dot < 0 || canonical.lastIndexOf('/', pathEnd - 1) > dot) {
+            return false;
+        }
+        int length = pathEnd - dot - 1;
+        for (String extension : skippedExtensions) {
+            if (extension.length() == length && canonical.regionMatches(true, dot + 1, extension, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
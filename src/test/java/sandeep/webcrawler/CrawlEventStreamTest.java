@@ -0,0 +1,45 @@
+package sandeep.webcrawler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class CrawlEventStreamTest
+{
+    @Test
+    public void statusReturnsOnlyResultsPastTheOffset()
+    {
+        CrawlEventStream stream = new CrawlEventStream();
+        stream.add("http://a/1");
+        stream.add("http://a/2");
+        stream.add("http://a/3");
+
+        CrawlStatusResponse first = stream.status("Crawling", 0);
+        assertEquals(Arrays.asList("http://a/1", "http://a/2", "http://a/3"), first.getResults());
+        assertEquals(0, first.getOffset());
+        assertEquals(3, first.getTotal());
+
+        stream.add("http://a/4");
+        CrawlStatusResponse delta = stream.status("Crawling", first.getTotal());
+        assertEquals(Arrays.asList("http://a/4"), delta.getResults());
+        assertEquals(3, delta.getOffset());
+        assertEquals(4, delta.getTotal());
+    }
+
+    @Test
+    public void offsetsOutsideTheLogAreClamped()
+    {
+        CrawlEventStream stream = new CrawlEventStream();
+        stream.add("http://a/1");
+
+        CrawlStatusResponse ahead = stream.status("Completed", 10);
+        assertTrue(ahead.getResults().isEmpty());
+        assertEquals(1, ahead.getOffset());
+        assertEquals(1, ahead.getTotal());
+
+        assertEquals(1, stream.status("Completed", -5).getResults().size());
+    }
+}
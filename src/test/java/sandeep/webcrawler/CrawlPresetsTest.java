@@ -0,0 +1,141 @@
+package sandeep.webcrawler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import sandeep.webcrawler.export.PageSink;
+import sandeep.webcrawler.extract.PageSummary;
+import sandeep.webcrawler.fetch.FetchResponse;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.metrics.CrawlMetrics;
+
+public class CrawlPresetsTest
+{
+    // site.test is page 0 and page n lives on subdomain pn; each links to pages 2n+1 and 2n+2,
+    // to another site and to a private page
+    private static final Fetcher SITE = (url, headers) -> {
+        if (url.endsWith("/robots.txt")) {
+            return new FetchResponse(url, 404, Map.of(), new byte[0]);
+        }
+        StringBuilder html = new StringBuilder("<html><head><title>").append(url).append("</title></head><body>");
+        if (url.contains("site.test/")) {
+            int n = url.startsWith("https://site.test/") ? 0
+                    : Integer.parseInt(url.replaceAll("https://p(\\d+)\\.site\\.test/.*", "$1"));
+            html.append("<a href=\"https://p").append(2 * n + 1).append(".site.test/\">a</a>")
+                    .append("<a href=\"https://p").append(2 * n + 2).append(".site.test/\">b</a>")
+                    .append("<a href=\"https://other.test/\">elsewhere</a>")
+                    .append("<a href=\"/private\">private</a>");
+        }
+        byte[] body = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+        return new FetchResponse(url, 200, Map.of("content-type", List.of("text/html; charset=utf-8")), body);
+    };
+
+    @Test
+    public void dataExtractionHonoursMaxPagesAndWritesEveryPage()
+    {
+        CollectingSink sink = new CollectingSink();
+        DataExtractionCrawler crawler = new DataExtractionCrawler("https://site.test/", 8, SITE);
+        crawler.setMaxPages(20);
+        crawler.setSink(sink);
+        crawler.crawl("https://site.test/");
+
+        assertEquals(20, sink.pages.size());
+        // Same domain by default: the other site is never written
+        assertFalse(sink.pages.containsKey("https://other.test/"));
+        assertEquals("https://site.test/", sink.pages.get("https://site.test/").getTitle());
+    }
+
+    @Test
+    public void builderStagesFilterLinksAcrossHosts() throws Exception
+    {
+        Set<String> crawled = ConcurrentHashMap.newKeySet();
+        ConcurrentWebCrawler.builder("https://site.test/")
+                .fetcher(SITE)
+                .maxPages(50)
+                .maxDepth(2)
+                .politenessDelay(0)
+                .metrics(new CrawlMetrics(new SimpleMeterRegistry()))
+                .sameDomainOnly(false)
+                .linkFilter(url -> !url.endsWith("/private"))
+                .resultListener(crawled::add)
+                .build()
+                .crawl("https://site.test/");
+
+        assertTrue(crawled.contains("https://other.test/"));
+        assertTrue(crawled.stream().noneMatch(url -> url.endsWith("/private")));
+        // Depths 0, 1 and 2 of the binary tree, plus the other site
+        assertEquals(8, crawled.size());
+    }
+
+    @Test
+    public void pipelinedFetchThreadSurvivesAnUncheckedException() throws Exception
+    {
+        Fetcher failing = (url, headers) -> {
+            if (url.startsWith("https://p1.site.test/")) {
+                throw new IllegalStateException("broken fetcher");
+            }
+            return SITE.fetch(url, headers);
+        };
+        Set<String> crawled = ConcurrentHashMap.newKeySet();
+        ConcurrentWebCrawler.builder("https://site.test/")
+                .fetcher(failing)
+                .executionMode(ExecutionMode.PIPELINED)
+                .threads(1)
+                .maxPages(50)
+                .maxDepth(2)
+                .politenessDelay(0)
+                .metrics(new CrawlMetrics(new SimpleMeterRegistry()))
+                .linkFilter(url -> !url.endsWith("/private"))
+                .resultListener(crawled::add)
+                .build()
+                .crawl("https://site.test/");
+
+        // p1 is queued before p2, so the only fetch thread hits the exception before the rest of the crawl
+        assertEquals(Set.of("https://site.test/", "https://p2.site.test/", "https://p5.site.test/",
+                "https://p6.site.test/"), crawled);
+    }
+
+    @Test
+    public void basicCrawlerFetchesOnlyTheGivenPage()
+    {
+        AtomicInteger pageFetches = new AtomicInteger();
+        Fetcher counting = (url, headers) -> {
+            if (!url.endsWith("/robots.txt")) {
+                pageFetches.incrementAndGet();
+            }
+            return SITE.fetch(url, headers);
+        };
+        BasicWebCrawler crawler = new BasicWebCrawler(counting);
+        crawler.crawl("https://site.test/");
+        crawler.crawl("https://site.test/");
+
+        assertEquals(1, pageFetches.get());
+    }
+
+    private static class CollectingSink implements PageSink
+    {
+        final Map<String, PageSummary> pages = new ConcurrentHashMap<>();
+
+        @Override
+        public void write(String url, PageSummary page)
+        {
+            pages.put(url, page);
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
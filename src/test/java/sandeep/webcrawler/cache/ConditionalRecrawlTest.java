@@ -0,0 +1,126 @@
+package sandeep.webcrawler.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import sandeep.webcrawler.ConcurrentWebCrawler;
+
+public class ConditionalRecrawlTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String etag = "\"v1-" + path + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("ETag", etag);
+            String body = path.equals("/")
+                    ? "<html><body><a href=\"/a\">a</a><a href=\"/b\">b</a></body></html>"
+                    : "<html><title>" + path + "</title></html>";
+            respond(exchange, body);
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @After
+    public void stopServer()
+    {
+        server.stop(0);
+    }
+
+    @Test
+    public void unchangedPagesAreSkippedButTheirLinksStillFollowed() throws Exception
+    {
+        Path store = tmp.getRoot().toPath().resolve("pages.bin");
+
+        List<String> first = crawl(store);
+        assertEquals(3, first.size());
+        assertEquals(0, notModified.get());
+
+        List<String> second = crawl(store);
+        assertEquals(3, notModified.get());
+        assertTrue(second.containsAll(first));
+        assertEquals(3, second.size());
+    }
+
+    @Test
+    public void tornFinalRecordIsCutOffBeforeAppending() throws Exception
+    {
+        Path file = tmp.getRoot().toPath().resolve("pages.bin");
+        try (PageMetadataStore store = PageMetadataStore.open(file)) {
+            store.put("https://example.com/a", new PageMetadata("\"a\"", null, 1, List.of("https://example.com/b")));
+        }
+        long intact = Files.size(file);
+        // Half a record: a URL length prefix and a few of its bytes
+        Files.write(file, new byte[] {0, 40, 'h', 't', 't'}, StandardOpenOption.APPEND);
+
+        PageMetadataStore reopened = PageMetadataStore.open(file);
+        assertEquals(intact, Files.size(file));
+        assertEquals(1, reopened.size());
+        reopened.put("https://example.com/b", new PageMetadata(null, null, 2, List.of()));
+        reopened.close();
+
+        try (PageMetadataStore store = PageMetadataStore.open(file)) {
+            assertEquals(2, store.size());
+            assertNotNull(store.get("https://example.com/b"));
+            assertEquals(List.of("https://example.com/b"), store.get("https://example.com/a").getLinks());
+        }
+    }
+
+    private List<String> crawl(Path store) throws IOException
+    {
+        List<String> crawled = new CopyOnWriteArrayList<>();
+        ConcurrentWebCrawler crawler = new ConcurrentWebCrawler(baseUrl, 10, 2, 2);
+        crawler.setPageCache(PageMetadataStore.open(store));
+        crawler.setResultListener(crawled::add);
+        crawler.crawl(baseUrl);
+        return crawled;
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException
+    {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package sandeep.webcrawler.checkpoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import sandeep.webcrawler.frontier.CrawlTask;
+import sandeep.webcrawler.seen.FingerprintSeenSet;
+
+public class CrawlCheckpointTest
+{
+    private static final String SEED = "https://example.com/";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void resumeRestoresSeenSetAndPendingFrontier() throws Exception
+    {
+        Path dir = tmp.getRoot().toPath();
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(dir, SEED, 60_000);
+        checkpoint.startFresh();
+        checkpoint.recordDiscovered(new CrawlTask(SEED, 0));
+        checkpoint.recordDiscovered(new CrawlTask(SEED + "a", 1));
+        checkpoint.recordDiscovered(new CrawlTask(SEED + "b", 1));
+        checkpoint.recordCompleted(SEED);
+        checkpoint.recordDiscovered(new CrawlTask(SEED + "a/c", 2));
+        checkpoint.recordCompleted(SEED + "a");
+        checkpoint.close();
+
+        FingerprintSeenSet seen = new FingerprintSeenSet();
+        CrawlCheckpoint resumed = new CrawlCheckpoint(dir, SEED, 60_000);
+        List<CrawlTask> pending = resumed.resume(seen);
+
+        assertEquals(2, pending.size());
+        assertEquals(SEED + "b", pending.get(0).getUrl());
+        assertEquals(SEED + "a/c", pending.get(1).getUrl());
+        assertEquals(2, pending.get(1).getDepth());
+        assertEquals(4, seen.size());
+        assertFalse(seen.addIfAbsent(SEED));
+        assertFalse(seen.addIfAbsent(SEED + "a"));
+
+        // The compacted journal keeps accepting appends and resumes again
+        resumed.recordCompleted(SEED + "b");
+        resumed.close();
+        List<CrawlTask> second = new CrawlCheckpoint(dir, SEED, 60_000).resume(new FingerprintSeenSet());
+        assertEquals(1, second.size());
+        assertEquals(SEED + "a/c", second.get(0).getUrl());
+    }
+
+    @Test
+    public void tornFinalRecordIsIgnored() throws Exception
+    {
+        Path dir = tmp.getRoot().toPath();
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(dir, SEED, 60_000);
+        checkpoint.startFresh();
+        checkpoint.recordDiscovered(new CrawlTask(SEED, 0));
+        checkpoint.close();
+        // Simulate a crash half-way through the next record
+        Files.write(checkpoint.getFile(), new byte[] {'D', 0, 0}, StandardOpenOption.APPEND);
+
+        FingerprintSeenSet seen = new FingerprintSeenSet();
+        List<CrawlTask> pending = new CrawlCheckpoint(dir, SEED, 60_000).resume(seen);
+
+        assertEquals(1, pending.size());
+        assertTrue(seen.contains(SEED));
+    }
+}
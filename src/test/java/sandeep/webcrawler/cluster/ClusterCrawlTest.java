@@ -0,0 +1,219 @@
+package sandeep.webcrawler.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import sandeep.webcrawler.ConcurrentWebCrawler;
+import sandeep.webcrawler.fetch.FetchResponse;
+import sandeep.webcrawler.frontier.CrawlTask;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.metrics.CrawlMetrics;
+import sandeep.webcrawler.robots.RobotsParser;
+import sandeep.webcrawler.url.UrlCanonicalizer;
+
+/**
+ * In-process cluster over localhost: several crawlers, each with its own
+ * frontier and seen-set, crawl a site spread over many subdomains.
+ */
+public class ClusterCrawlTest
+{
+    private static final int HOSTS = 12;
+    private static final int PAGES_PER_HOST = 15;
+    private static final String SEED = "http://site.test/";
+
+    @Test
+    public void membersCrawlOnlyTheirOwnHostsAndFinishTogether() throws Exception
+    {
+        int members = 3;
+        List<InetSocketAddress> addresses = freeAddresses(members);
+        Map<String, Integer> fetchesByUrl = new ConcurrentHashMap<>();
+        Fetcher site = (url, headers) -> serve(url, fetchesByUrl);
+
+        List<ClusterNode> nodes = new ArrayList<>();
+        List<List<String>> crawledByMember = new ArrayList<>();
+        ExecutorService runners = Executors.newFixedThreadPool(members);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int i = 0; i < members; i++) {
+                ClusterNode node = new ClusterNode(addresses, i);
+                nodes.add(node);
+                List<String> crawled = new CopyOnWriteArrayList<>();
+                crawledByMember.add(crawled);
+                ConcurrentWebCrawler crawler = new ConcurrentWebCrawler(SEED, 10_000, 2, 100);
+                crawler.setFetcher(site);
+                crawler.setRobotsParser(new RobotsParser(site, RobotsParser.DEFAULT_AGENT, 60_000, 100));
+                crawler.setPolitenessDelay(0);
+                crawler.setMaxPerHost(2);
+                crawler.setMetrics(new CrawlMetrics(new SimpleMeterRegistry()));
+                crawler.setResultListener(crawled::add);
+                crawler.joinCluster(node);
+                runs.add(runners.submit(() -> crawler.crawl(SEED)));
+            }
+            for (Future<?> run : runs) {
+                run.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            runners.shutdownNow();
+            nodes.forEach(ClusterNode::close);
+        }
+
+        Set<String> all = new HashSet<>();
+        int total = 0;
+        for (int i = 0; i < members; i++) {
+            for (String url : crawledByMember.get(i)) {
+                assertEquals(url, i, nodes.get(i).owner(UrlCanonicalizer.host(url)));
+                all.add(url);
+                total++;
+            }
+        }
+        int expected = 1 + HOSTS * PAGES_PER_HOST;
+        assertEquals(expected, all.size());
+        assertEquals(expected, total);
+        fetchesByUrl.forEach((url, count) -> assertEquals(url, 1, count.intValue()));
+
+        long sent = 0;
+        long received = 0;
+        for (ClusterNode node : nodes) {
+            sent += node.getSent();
+            received += node.getReceived();
+        }
+        assertEquals(sent, received);
+        assertTrue(sent > 0);
+    }
+
+    @Test
+    public void aBatchResentAfterABrokenConnectionIsQueuedOnce() throws Exception
+    {
+        List<InetSocketAddress> addresses = freeAddresses(2);
+        List<CrawlTask> queued = new CopyOnWriteArrayList<>();
+        ClusterNode owner = new ClusterNode(addresses, 1);
+        owner.start(new ClusterNode.Listener()
+        {
+            @Override
+            public void accept(List<CrawlTask> tasks)
+            {
+                queued.addAll(tasks);
+            }
+
+            @Override
+            public boolean isIdle()
+            {
+                return true;
+            }
+
+            @Override
+            public void onClusterDone()
+            {
+            }
+        });
+        try {
+            List<CrawlTask> batch = List.of(new CrawlTask("http://a.test/", 1), new CrawlTask("http://b.test/", 1));
+            // The first copy arrived but the sender never saw the ack, so it resends on a new connection
+            assertEquals(7, sendBatch(addresses.get(1), 7, batch));
+            assertEquals(7, sendBatch(addresses.get(1), 7, batch));
+            assertEquals(8, sendBatch(addresses.get(1), 8, batch.subList(0, 1)));
+        } finally {
+            owner.close();
+        }
+        assertEquals(3, queued.size());
+        assertEquals(3, owner.getReceived());
+    }
+
+    @Test
+    public void aLinkForwardedRecentlyIsNotForwardedAgain()
+    {
+        ClusterNode node = new ClusterNode(List.of(new InetSocketAddress(InetAddress.getLoopbackAddress(), 1),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 2)), 0);
+        try {
+            String url = null;
+            for (int i = 0; url == null; i++) {
+                if (node.owner("h" + i + ".site.test") == 1) {
+                    url = "http://h" + i + ".site.test/p/0";
+                }
+            }
+            assertTrue(node.forward(new CrawlTask(url, 1)));
+            assertFalse(node.forward(new CrawlTask(url, 2)));
+            assertTrue(node.forward(new CrawlTask(url + "/next", 2)));
+            assertEquals(2, node.getSent());
+        } finally {
+            node.close();
+        }
+    }
+
+    // Sends one batch as member 0 and returns the acknowledged sequence number
+    private static long sendBatch(InetSocketAddress to, long seq, List<CrawlTask> batch) throws IOException
+    {
+        try (Socket socket = new Socket(to.getAddress(), to.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            ClusterNode.writeBatch(out, 0, seq, batch);
+            out.flush();
+            return new DataInputStream(socket.getInputStream()).readLong();
+        }
+    }
+
+    // Seed links to page 0 of every subdomain; each page links to the next on its host and to page 0 of the next host
+    private static FetchResponse serve(String url, Map<String, Integer> fetchesByUrl) throws IOException
+    {
+        String host = UrlCanonicalizer.host(url);
+        if (url.endsWith("/robots.txt")) {
+            return new FetchResponse(url, 404, Map.of(), new byte[0]);
+        }
+        fetchesByUrl.merge(url, 1, Integer::sum);
+        StringBuilder html = new StringBuilder("<html><head><title>").append(url).append("</title></head><body>");
+        if (host.equals("site.test")) {
+            for (int h = 0; h < HOSTS; h++) {
+                link(html, h, 0);
+            }
+        } else {
+            int h = Integer.parseInt(host.substring(1, host.indexOf('.')));
+            int page = Integer.parseInt(url.substring(url.lastIndexOf('/') + 1));
+            if (page + 1 < PAGES_PER_HOST) {
+                link(html, h, page + 1);
+            }
+            link(html, (h + 1) % HOSTS, 0);
+            html.append("<a href=\"").append(SEED).append("\">home</a>");
+        }
+        byte[] body = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+        return new FetchResponse(url, 200, Map.of("content-type", List.of("text/html; charset=utf-8")), body);
+    }
+
+    private static void link(StringBuilder html, int host, int page)
+    {
+        html.append("<a href=\"http://h").append(host).append(".site.test/p/").append(page).append("\">x</a>");
+    }
+
+    private static List<InetSocketAddress> freeAddresses(int count) throws IOException
+    {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            try (ServerSocket probe = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), probe.getLocalPort()));
+            }
+        }
+        return addresses;
+    }
+}
@@ -0,0 +1,40 @@
+package sandeep.webcrawler.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HashRingTest
+{
+    @Test
+    public void hostsSpreadEvenlyOverNodes()
+    {
+        HashRing ring = new HashRing(4);
+        int[] counts = new int[4];
+        for (int i = 0; i < 10_000; i++) {
+            counts[ring.owner("host" + i + ".example.com")]++;
+        }
+        for (int count : counts) {
+            assertTrue("node got " + count + " of 10000 hosts", count > 1_500 && count < 3_500);
+        }
+    }
+
+    @Test
+    public void addingANodeOnlyMovesHostsToIt()
+    {
+        HashRing three = new HashRing(3);
+        HashRing four = new HashRing(4);
+        int moved = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String host = "host" + i + ".example.com";
+            int before = three.owner(host);
+            int after = four.owner(host);
+            if (before != after) {
+                assertEquals(3, after);
+                moved++;
+            }
+        }
+        assertTrue("moved " + moved, moved > 1_500 && moved < 3_500);
+    }
+}
@@ -0,0 +1,121 @@
+package sandeep.webcrawler.dedup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import sandeep.webcrawler.ConcurrentWebCrawler;
+import sandeep.webcrawler.extract.ExtractionMode;
+import sandeep.webcrawler.fetch.FetchResponse;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.metrics.CrawlMetrics;
+import sandeep.webcrawler.robots.RobotsParser;
+
+public class NearDuplicateDetectorTest
+{
+    private static final String SEED = "http://trap.test/";
+    private static final int ARTICLES = 40;
+
+    @Test
+    public void pathPatternsCollapseIdsAndQueryValues()
+    {
+        assertEquals("a.com/cal/{id}/{id}?sort&view",
+                NearDuplicateDetector.pathPattern("https://a.com/cal/2024/05?view=m&sort=d#top"));
+        assertEquals("a.com/about", NearDuplicateDetector.pathPattern("http://a.com/about"));
+        assertEquals("a.com", NearDuplicateDetector.pathPattern("http://a.com"));
+        assertEquals("a.com/p/{id}?", NearDuplicateDetector.pathPattern("http://a.com/p/v2?&"));
+    }
+
+    @Test
+    public void duplicatesAreCountedPerPattern()
+    {
+        NearDuplicateDetector detector = new NearDuplicateDetector();
+        String article = SimHashTest.words(new Random(1), 200);
+        assertFalse(detector.isNearDuplicate("http://a.com/news/1", article));
+        assertFalse(detector.isNearDuplicate("http://a.com/news/2", SimHashTest.words(new Random(2), 200)));
+        assertTrue(detector.isNearDuplicate("http://a.com/news/1?utm_source=x", article));
+        assertTrue(detector.isNearDuplicate("http://a.com/news/1?utm_source=y", article));
+        // Too short to judge
+        assertFalse(detector.isNearDuplicate("http://a.com/short", "Not found"));
+        assertFalse(detector.isNearDuplicate("http://a.com/short2", "Not found"));
+
+        Map<String, NearDuplicateDetector.DuplicateRate> rates = detector.duplicateRates();
+        assertEquals(List.of("a.com/news/{id}?utm_source", "a.com/news/{id}", "a.com/short", "a.com/{id}"),
+                List.copyOf(rates.keySet()));
+        assertEquals(1.0, rates.get("a.com/news/{id}?utm_source").rate(), 0);
+        assertEquals(0.0, rates.get("a.com/news/{id}").rate(), 0);
+        assertEquals(2, detector.getDuplicates());
+        assertEquals(6, detector.getPages());
+        assertEquals(2, detector.getUniquePages());
+    }
+
+    @Test
+    public void sameBudgetReachesMoreArticlesWhenTrapsArePruned() throws Exception
+    {
+        for (ExtractionMode mode : ExtractionMode.values()) {
+            Set<String> without = crawl(null, mode);
+            NearDuplicateDetector detector = new NearDuplicateDetector();
+            Set<String> with = crawl(detector, mode);
+
+            long articlesWithout = without.stream().filter(u -> u.contains("/article/")).count();
+            long articlesWith = with.stream().filter(u -> u.contains("/article/")).count();
+            assertEquals(mode.name(), ARTICLES, articlesWith);
+            assertTrue(mode + ": " + articlesWithout + " articles", articlesWithout < ARTICLES);
+            assertTrue(detector.duplicateRates().get("trap.test/calendar/{id}?sort").rate() > 0.5);
+        }
+    }
+
+    private static Set<String> crawl(NearDuplicateDetector detector, ExtractionMode mode)
+    {
+        Fetcher site = NearDuplicateDetectorTest::serve;
+        ConcurrentWebCrawler crawler = new ConcurrentWebCrawler(SEED, 100, 1, 1000);
+        crawler.setFetcher(site);
+        crawler.setRobotsParser(new RobotsParser(site, RobotsParser.DEFAULT_AGENT, 60_000, 10));
+        crawler.setPolitenessDelay(0);
+        crawler.setExtractionMode(mode);
+        crawler.setMetrics(new CrawlMetrics(new SimpleMeterRegistry()));
+        crawler.setNearDuplicateDetector(detector);
+        Set<String> crawled = ConcurrentHashMap.newKeySet();
+        crawler.setResultListener(crawled::add);
+        crawler.crawl(SEED);
+        return crawled;
+    }
+
+    // A calendar whose every day and sort order shows the same empty page, next to a chain of real articles
+    private static FetchResponse serve(String url, Map<String, String> headers)
+    {
+        if (url.endsWith("/robots.txt")) {
+            return new FetchResponse(url, 404, Map.of(), new byte[0]);
+        }
+        StringBuilder html = new StringBuilder("<html><head><title>Trap</title></head><body>");
+        if (url.contains("/calendar/")) {
+            int day = Integer.parseInt(url.replaceAll(".*/calendar/(\\d+).*", "$1"));
+            html.append("<h1>Events</h1><p>").append(SimHashTest.words(new Random(99), 200)).append("</p>");
+            for (int next = day + 1; next <= day + 3; next++) {
+                for (String sort : new String[] {"date", "name"}) {
+                    html.append("<a href=\"/calendar/").append(next).append("?sort=").append(sort).append("\">x</a>");
+                }
+            }
+        } else if (url.contains("/article/")) {
+            int id = Integer.parseInt(url.substring(url.lastIndexOf('/') + 1));
+            html.append("<p>").append(SimHashTest.words(new Random(id), 200)).append("</p>");
+            if (id + 1 < ARTICLES) {
+                html.append("<a href=\"/article/").append(id + 1).append("\">next</a>");
+            }
+        } else {
+            html.append("<a href=\"/calendar/0?sort=date\">calendar</a><a href=\"/article/0\">articles</a>");
+        }
+        byte[] body = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+        return new FetchResponse(url, 200, Map.of("content-type", List.of("text/html; charset=utf-8")), body);
+    }
+}
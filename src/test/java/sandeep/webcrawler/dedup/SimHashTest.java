@@ -0,0 +1,70 @@
+package sandeep.webcrawler.dedup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SimHashTest
+{
+    @Test
+    public void smallEditsStayCloseAndUnrelatedTextsDoNot()
+    {
+        String base = words(new Random(1), 300);
+        String edited = base.replaceFirst("\\w+$", "changed");
+        String other = words(new Random(2), 300);
+
+        assertEquals(0, SimHash.distance(SimHash.of(base), SimHash.of(base.toUpperCase())));
+        assertTrue(SimHash.distance(SimHash.of(base), SimHash.of(edited)) <= SimHashIndex.MAX_DISTANCE);
+        assertTrue(SimHash.distance(SimHash.of(base), SimHash.of(other)) > 16);
+    }
+
+    @Test
+    public void bytesAndCharsGiveTheSameFingerprintForAscii()
+    {
+        String text = "Events for May 2024, sorted by date: " + words(new Random(3), 50);
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        SimHash.Builder fromBytes = new SimHash.Builder();
+        fromBytes.append(bytes, 0, bytes.length);
+
+        assertEquals(SimHash.of(text), fromBytes.build());
+        assertEquals(0, SimHash.of(" \n "));
+    }
+
+    @Test
+    public void indexFindsEveryFingerprintWithinThreeBits()
+    {
+        SimHashIndex index = new SimHashIndex();
+        Random random = new Random(4);
+        long[] stored = new long[1000];
+        for (int i = 0; i < stored.length; i++) {
+            stored[i] = random.nextLong();
+            assertTrue(index.addIfAbsent(stored[i]));
+        }
+        for (long fingerprint : stored) {
+            // Flip three bits in three different bands
+            long near = fingerprint ^ (1L << random.nextInt(16)) ^ (1L << 16 + random.nextInt(16))
+                    ^ (1L << 48 + random.nextInt(16));
+            assertFalse(index.addIfAbsent(near));
+            assertFalse(index.addIfAbsent(fingerprint));
+        }
+        assertEquals(stored.length, index.size());
+    }
+
+    static String words(Random random, int count)
+    {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int length = 3 + random.nextInt(6);
+            for (int c = 0; c < length; c++) {
+                text.append((char) ('a' + random.nextInt(26)));
+            }
+            text.append(' ');
+        }
+        return text.toString().trim();
+    }
+}
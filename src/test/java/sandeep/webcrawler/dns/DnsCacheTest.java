@@ -0,0 +1,189 @@
+package sandeep.webcrawler.dns;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import sandeep.webcrawler.ConcurrentWebCrawler;
+import sandeep.webcrawler.fetch.FetchResponse;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.metrics.CrawlMetrics;
+import sandeep.webcrawler.url.UrlCanonicalizer;
+
+public class DnsCacheTest
+{
+    private static final InetAddress[] LOCAL = {InetAddress.getLoopbackAddress()};
+
+    @Test
+    public void answersAreCachedUntilTheTtlPasses() throws Exception
+    {
+        AtomicInteger lookups = new AtomicInteger();
+        AtomicLong now = new AtomicLong(0);
+        DnsCache cache = new DnsCache(host -> {
+            lookups.incrementAndGet();
+            return LOCAL;
+        }, 1_000, 100, 10, now::get);
+
+        assertArrayEquals(LOCAL, cache.resolve("a.test"));
+        assertArrayEquals(LOCAL, cache.resolve("a.test"));
+        assertEquals(1, lookups.get());
+
+        now.set(1_000);
+        assertFalse(cache.isCached("a.test"));
+        cache.resolve("a.test");
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void failuresAreCachedForTheNegativeTtl() throws Exception
+    {
+        AtomicInteger lookups = new AtomicInteger();
+        AtomicLong now = new AtomicLong(0);
+        DnsCache cache = new DnsCache(host -> {
+            lookups.incrementAndGet();
+            throw new UnknownHostException(host);
+        }, 1_000, 100, 10, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                cache.resolve("gone.test");
+                fail("resolved a host that does not exist");
+            } catch (UnknownHostException expected) {
+                // cached failure
+            }
+        }
+        assertEquals(1, lookups.get());
+
+        now.set(100);
+        try {
+            cache.resolve("gone.test");
+            fail("resolved a host that does not exist");
+        } catch (UnknownHostException expected) {
+            assertEquals(2, lookups.get());
+        }
+    }
+
+    @Test
+    public void prefetchDoesNotBlockAndWaitersShareOneLookup() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger lookups = new AtomicInteger();
+        DnsCache cache = new DnsCache(host -> {
+            lookups.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new UnknownHostException(host);
+            }
+            return LOCAL;
+        }, 1_000, 100, 10);
+
+        long start = System.nanoTime();
+        cache.prefetch("slow.test");
+        cache.prefetch("slow.test");
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertFalse(cache.isCached("slow.test"));
+
+        release.countDown();
+        assertArrayEquals(LOCAL, cache.resolve("slow.test"));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void hostsAreResolvedWhenQueuedAndUnresolvableOnesAreNotFetched() throws Exception
+    {
+        Set<String> resolvedBeforeFetch = ConcurrentHashMap.newKeySet();
+        Set<String> resolved = ConcurrentHashMap.newKeySet();
+        DnsCache cache = new DnsCache(host -> {
+            resolved.add(host);
+            if (host.startsWith("gone.")) {
+                throw new UnknownHostException(host);
+            }
+            return LOCAL;
+        }, 60_000, 60_000, 100);
+
+        Set<String> fetched = ConcurrentHashMap.newKeySet();
+        Fetcher site = (url, headers) -> {
+            if (url.endsWith("/robots.txt")) {
+                return new FetchResponse(url, 404, Map.of(), new byte[0]);
+            }
+            fetched.add(url);
+            if (resolved.contains(UrlCanonicalizer.host(url))) {
+                resolvedBeforeFetch.add(url);
+            }
+            String html = "<html><body><a href=\"https://a.site.test/\">a</a>"
+                    + "<a href=\"https://gone.site.test/\">b</a></body></html>";
+            return new FetchResponse(url, 200, Map.of("content-type", List.of("text/html")),
+                    html.getBytes(StandardCharsets.UTF_8));
+        };
+        ConcurrentWebCrawler.builder("https://site.test/")
+                .fetcher(site)
+                .maxPages(10)
+                .politenessDelay(0)
+                .metrics(new CrawlMetrics(new SimpleMeterRegistry()))
+                .dnsCache(cache)
+                .build()
+                .crawl("https://site.test/");
+
+        assertEquals(Set.of("site.test", "a.site.test", "gone.site.test"), resolved);
+        assertEquals(Set.of("https://site.test/", "https://a.site.test/"), fetched);
+        assertEquals(fetched, resolvedBeforeFetch);
+    }
+
+    @Test
+    public void lookupStartsBeforeTheHostsRobotsTxtIsFetched() throws Exception
+    {
+        Set<String> lookedUp = ConcurrentHashMap.newKeySet();
+        DnsCache cache = new DnsCache(host -> {
+            lookedUp.add(host);
+            return LOCAL;
+        }, 60_000, 10_000, 100);
+
+        Set<String> robotsAfterLookup = ConcurrentHashMap.newKeySet();
+        Fetcher site = (url, headers) -> {
+            if (url.endsWith("/robots.txt")) {
+                String host = UrlCanonicalizer.host(url);
+                // The lookup runs on its own thread; give it a moment to start
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+                while (!lookedUp.contains(host) && System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+                if (lookedUp.contains(host)) {
+                    robotsAfterLookup.add(host);
+                }
+                return new FetchResponse(url, 404, Map.of(), new byte[0]);
+            }
+            String html = "<html><body><a href=\"https://a.site.test/\">a</a></body></html>";
+            return new FetchResponse(url, 200, Map.of("content-type", List.of("text/html")),
+                    html.getBytes(StandardCharsets.UTF_8));
+        };
+        ConcurrentWebCrawler.builder("https://site.test/")
+                .fetcher(site)
+                .maxPages(10)
+                .politenessDelay(0)
+                .metrics(new CrawlMetrics(new SimpleMeterRegistry()))
+                .dnsCache(cache)
+                .build()
+                .crawl("https://site.test/");
+
+        assertEquals(Set.of("site.test", "a.site.test"), robotsAfterLookup);
+    }
+}
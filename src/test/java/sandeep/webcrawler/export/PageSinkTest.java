@@ -0,0 +1,108 @@
+package sandeep.webcrawler.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import sandeep.webcrawler.export.ColumnarPageSink.Column;
+import sandeep.webcrawler.extract.PageSummary;
+
+public class PageSinkTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final PageSummary AWKWARD = new PageSummary(
+            "Say \"hi\", then\nleave", null,
+            List.of("A, B", "C|D"), List.of("https://example.com/x?a=1&b=\"2\""));
+
+    @Test
+    public void csvQuotesPerRfc4180()
+    {
+        StringWriter out = new StringWriter();
+        try (CsvPageSink sink = new CsvPageSink(out)) {
+            sink.write("https://example.com/plain", new PageSummary("Plain", "desc", List.of(), List.of()));
+            sink.write("https://example.com/awkward", AWKWARD);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+
+        assertEquals("URL,Title,Description,Headings\r\n"
+                + "https://example.com/plain,Plain,desc,\r\n"
+                + "https://example.com/awkward,\"Say \"\"hi\"\", then\nleave\",N/A,\"A, B|C|D\"\r\n",
+                out.toString());
+    }
+
+    @Test
+    public void jsonLinesEscapesStringsAndKeepsNulls() throws Exception
+    {
+        StringWriter out = new StringWriter();
+        try (JsonLinesPageSink sink = new JsonLinesPageSink(out)) {
+            sink.write("https://example.com/awkward", AWKWARD);
+            sink.write("https://example.com/ctl", new PageSummary("tab\there\u0001", "d", List.of(), List.of()));
+        }
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"url\":\"https://example.com/awkward\",\"title\":\"Say \\\"hi\\\", then\\nleave\","
+                + "\"description\":null,\"headings\":[\"A, B\",\"C|D\"],"
+                + "\"links\":[\"https://example.com/x?a=1&b=\\\"2\\\"\"]}", lines[0]);
+        assertTrue(lines[1], lines[1].contains("\"title\":\"tab\\there\\u0001\""));
+    }
+
+    @Test
+    public void columnarRoundTripsAcrossRowGroups() throws Exception
+    {
+        Path file = tmp.getRoot().toPath().resolve("pages.pgc");
+        try (ColumnarPageSink sink = new ColumnarPageSink(Files.newOutputStream(file), 100)) {
+            for (int i = 0; i < 250; i++) {
+                sink.write("https://example.com/" + i, i == 7 ? AWKWARD
+                        : new PageSummary("Page " + i, "Description " + i, List.of("h" + i),
+                        List.of("https://example.com/" + (i + 1), "https://example.com/" + (i + 2))));
+            }
+        }
+
+        ColumnarPageReader reader = new ColumnarPageReader(file);
+        List<String> urls = new ArrayList<>();
+        reader.scanStrings(Column.URL, urls::add);
+        assertEquals(250, urls.size());
+        assertEquals("https://example.com/249", urls.get(249));
+
+        List<String> descriptions = new ArrayList<>();
+        reader.scanStrings(Column.DESCRIPTION, descriptions::add);
+        assertNull(descriptions.get(7));
+        assertEquals("Description 8", descriptions.get(8));
+
+        List<List<String>> headings = new ArrayList<>();
+        reader.scanLists(Column.HEADINGS, headings::add);
+        assertEquals(AWKWARD.getHeadings(), headings.get(7));
+        assertEquals(List.of("h200"), headings.get(200));
+
+        List<List<String>> links = new ArrayList<>();
+        reader.scanLists(Column.LINKS, links::add);
+        assertEquals(2, links.get(249).size());
+    }
+
+    @Test
+    public void sinkIsChosenByExtension() throws Exception
+    {
+        Path dir = tmp.getRoot().toPath();
+        try (PageSink csv = PageSink.open(dir.resolve("a.csv"));
+             PageSink jsonl = PageSink.open(dir.resolve("a.jsonl"));
+             PageSink columnar = PageSink.open(dir.resolve("a.pgc"))) {
+            assertTrue(csv instanceof CsvPageSink);
+            assertTrue(jsonl instanceof JsonLinesPageSink);
+            assertTrue(columnar instanceof ColumnarPageSink);
+        }
+    }
+}
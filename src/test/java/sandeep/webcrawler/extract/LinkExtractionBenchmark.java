@@ -0,0 +1,94 @@
+package sandeep.webcrawler.extract;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import org.jsoup.Jsoup;
+import org.junit.Test;
+
+/**
+ * Latency and allocation of the Jsoup DOM path versus the streaming
+ * extractor on a large page. Skipped unless run with
+ * {@code -Dcrawler.bench=true}.
+ */
+public class LinkExtractionBenchmark
+{
+    private static final String BASE = "https://example.com/catalog/index.html";
+    private static final int ITERATIONS = 200;
+
+    @Test
+    public void streamingAllocatesLessAndRunsFasterThanDom()
+    {
+        assumeTrue(Boolean.getBoolean("crawler.bench"));
+
+        byte[] page = largePage(5_000).getBytes(StandardCharsets.UTF_8);
+        StreamingLinkExtractor streaming = new StreamingLinkExtractor();
+
+        Supplier<PageSummary> dom = () -> PageSummary.of(Jsoup.parse(new String(page, StandardCharsets.UTF_8), BASE));
+        Supplier<PageSummary> stream = () -> streaming.extract(page, "UTF-8", BASE);
+        assertEquals(dom.get().getLinks(), stream.get().getLinks());
+
+        Result domResult = measure(dom);
+        Result streamResult = measure(stream);
+        System.out.printf("page %,d KB%n", page.length / 1024);
+        System.out.printf("jsoup DOM : %8.3f ms/op %,12d bytes/op%n", domResult.millisPerOp, domResult.bytesPerOp);
+        System.out.printf("streaming : %8.3f ms/op %,12d bytes/op%n", streamResult.millisPerOp, streamResult.bytesPerOp);
+
+        assertTrue(streamResult.bytesPerOp < domResult.bytesPerOp);
+        assertTrue(streamResult.millisPerOp < domResult.millisPerOp);
+    }
+
+    private static Result measure(Supplier<PageSummary> extraction)
+    {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            extraction.get();
+        }
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int sink = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += extraction.get().getLinks().size();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        assertTrue(sink > 0);
+        return new Result(elapsed / 1e6 / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    static String largePage(int links)
+    {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html><head><title>Catalog</title>"
+                + "<meta name=\"description\" content=\"Product catalog\">"
+                + "<script>var data = {items: [1, 2, 3]};</script></head><body>");
+        for (int i = 0; i < links; i++) {
+            if (i % 50 == 0) {
+                html.append("<h2>Section ").append(i / 50).append("</h2>");
+            }
+            html.append("<div class=\"item\"><p>Item ").append(i)
+                    .append(" description text with <b>bold</b> &amp; <i>italic</i> words.</p>")
+                    .append("<a href=\"/product/").append(i).append("?ref=list\">Product ").append(i).append("</a></div>\n");
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    private static final class Result
+    {
+        final double millisPerOp;
+        final long bytesPerOp;
+
+        Result(double millisPerOp, long bytesPerOp)
+        {
+            this.millisPerOp = millisPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+}
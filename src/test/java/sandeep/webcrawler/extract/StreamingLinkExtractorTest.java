@@ -0,0 +1,71 @@
+package sandeep.webcrawler.extract;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.jsoup.Jsoup;
+import org.junit.Test;
+
+public class StreamingLinkExtractorTest
+{
+    private static final String BASE = "https://example.com/docs/index.html";
+
+    private static final String HTML = "<!DOCTYPE html>\n"
+            + "<HTML><head>\n"
+            + "  <meta charset=\"utf-8\">\n"
+            + "  <TITLE>  Caf&eacute; \n <menu> </TITLE>\n"
+            + "  <meta name=\"Description\" content=\"Tom &amp; Jerry's &quot;page&quot;\">\n"
+            + "  <style>a[href=\"/nope\"] { color: red }</style>\n"
+            + "  <script>document.write('<a href=\"/script-link\">x</a>');</script>\n"
+            + "</head><body>\n"
+            + "<!-- <a href=\"/commented\">hidden</a> -->\n"
+            + "<h1>Main <span>heading</span></h1>\n"
+            + "<p>1 < 2 and <a href=relative.html>unquoted</a>\n"
+            + "<a HREF='/abs?q=1&amp;r=2#frag' data-x=\"a>b\">single</a>\n"
+            + "<a name=\"anchor\">no href</a>\n"
+            + "<a href=\"  https://other.example/ünï  \">spaces</a>\n"
+            + "<h2>Second\n\n   heading</h2><h3>Third</h3>\n"
+            + "<a href=\"mailto:someone@example.com\">mail</a>\n"
+            + "</body></html>";
+
+    @Test
+    public void matchesJsoupDomExtraction()
+    {
+        PageSummary expected = PageSummary.of(Jsoup.parse(HTML, BASE));
+        PageSummary actual = new StreamingLinkExtractor().extract(HTML.getBytes(StandardCharsets.UTF_8), null, BASE);
+
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getHeadings(), actual.getHeadings());
+        assertEquals(expected.getLinks(), actual.getLinks());
+        assertEquals(List.of(
+                "https://example.com/docs/relative.html",
+                "https://example.com/abs?q=1&r=2#frag",
+                "https://other.example/ünï",
+                "mailto:someone@example.com"), actual.getLinks());
+    }
+
+    @Test
+    public void honoursBaseHref()
+    {
+        String html = "<head><base href=\"/v2/\"></head><a href=\"page\">p</a>";
+        PageSummary summary = new StreamingLinkExtractor().extract(html.getBytes(StandardCharsets.UTF_8), "UTF-8", BASE);
+
+        assertEquals(List.of("https://example.com/v2/page"), summary.getLinks());
+        assertEquals(Jsoup.parse(html, BASE).select("a").first().absUrl("href"), summary.getLinks().get(0));
+        assertNull(summary.getDescription());
+    }
+
+    @Test
+    public void decodesWithDeclaredCharset()
+    {
+        byte[] latin1 = "<title>naïve</title><a href=\"/été\">x</a>".getBytes(StandardCharsets.ISO_8859_1);
+        PageSummary summary = new StreamingLinkExtractor().extract(latin1, "ISO-8859-1", BASE);
+
+        assertEquals("naïve", summary.getTitle());
+        assertEquals("https://example.com/été", summary.getLinks().get(0));
+    }
+}
@@ -0,0 +1,248 @@
+package sandeep.webcrawler.fetch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.jsoup.HttpStatusException;
+import org.jsoup.nodes.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpClientFetcherTest
+{
+    private HttpServer server;
+    private String baseUrl;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<String> acceptEncoding = new AtomicReference<>();
+    // Bytes of /huge the server managed to write before the client hung up
+    private static final long HUGE_BYTES = 64L * 1024 * 1024;
+    private final AtomicLong hugeBytesSent = new AtomicLong();
+    private final CountDownLatch hugeDone = new CountDownLatch(1);
+
+    @Before
+    public void startServer() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/page", exchange -> respond(exchange, 200,
+                "<html><head><title>Café</title></head><body><a href=\"/next\">next</a></body></html>"));
+        server.createContext("/moved", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/page");
+            respond(exchange, 301, "");
+        });
+        server.createContext("/missing", exchange -> respond(exchange, 404, "<html>gone</html>"));
+        server.createContext("/gzip", exchange -> {
+            acceptEncoding.set(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write("<html><title>Zipped</title></html>".getBytes(StandardCharsets.UTF_8));
+            }
+            sendEncoded(exchange, "gzip", compressed.toByteArray());
+        });
+        server.createContext("/deflate", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream deflate = new DeflaterOutputStream(compressed)) {
+                deflate.write("<html><title>Deflated</title></html>".getBytes(StandardCharsets.UTF_8));
+            }
+            sendEncoded(exchange, "deflate", compressed.toByteArray());
+        });
+        server.createContext("/bomb", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(new byte[1024 * 1024]);
+            }
+            sendEncoded(exchange, "gzip", compressed.toByteArray());
+        });
+        server.createContext("/file.pdf", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/pdf");
+            exchange.sendResponseHeaders(200, 1024);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(new byte[1024]);
+            }
+        });
+        server.createContext("/huge", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/html");
+            // Chunked, so only the running total can give it away
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                byte[] chunk = new byte[16 * 1024];
+                while (hugeBytesSent.get() < HUGE_BYTES) {
+                    out.write(chunk);
+                    hugeBytesSent.addAndGet(chunk.length);
+                }
+            } catch (IOException e) {
+                // client hung up
+            } finally {
+                hugeDone.countDown();
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer()
+    {
+        server.stop(0);
+    }
+
+    @Test
+    public void fetchesAndParsesWithAbsoluteLinks() throws Exception
+    {
+        Document document = new HttpClientFetcher(2000).get(baseUrl + "/page");
+
+        assertEquals("Café", document.title());
+        assertEquals(baseUrl + "/next", document.selectFirst("a[href]").absUrl("href"));
+    }
+
+    @Test
+    public void followsRedirectsAndUsesFinalUrlAsBase() throws Exception
+    {
+        FetchResponse response = new HttpClientFetcher(2000).fetch(baseUrl + "/moved");
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(baseUrl + "/page", response.getUrl());
+    }
+
+    @Test
+    public void errorStatusIsReturnedNotThrown() throws Exception
+    {
+        FetchResponse response = new HttpClientFetcher(2000).fetch(baseUrl + "/missing");
+
+        assertEquals(404, response.getStatusCode());
+        assertFalse(response.isSuccess());
+    }
+
+    @Test(expected = HttpStatusException.class)
+    public void getRejectsErrorStatus() throws Exception
+    {
+        new HttpClientFetcher(2000).get(baseUrl + "/missing");
+    }
+
+    @Test
+    public void sequentialRequestsReuseOneConnection() throws Exception
+    {
+        HttpClientFetcher fetcher = new HttpClientFetcher(2000);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(fetcher.fetch(baseUrl + "/page").isSuccess());
+        }
+
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void gzipAndDeflateBodiesAreNegotiatedAndDecoded() throws Exception
+    {
+        HttpClientFetcher fetcher = new HttpClientFetcher(2000);
+        FetchResponse gzip = fetcher.fetch(baseUrl + "/gzip");
+
+        assertEquals(HttpClientFetcher.ACCEPT_ENCODING, acceptEncoding.get());
+        assertEquals("Zipped", gzip.parse().title());
+        assertEquals(null, gzip.header("content-encoding"));
+        assertEquals("Deflated", fetcher.fetch(baseUrl + "/deflate").parse().title());
+    }
+
+    @Test
+    public void nonTextResponsesAreRejectedBeforeTheBody() throws Exception
+    {
+        assertRejected(new HttpClientFetcher(2000), "/file.pdf");
+    }
+
+    @Test
+    public void bodiesOverTheLimitAreCutOff() throws Exception
+    {
+        HttpClientFetcher fetcher = new HttpClientFetcher(5000);
+        fetcher.setMaxBodyBytes(64 * 1024);
+
+        assertRejected(fetcher, "/huge");
+        assertTrue(hugeDone.await(10, TimeUnit.SECONDS));
+        assertTrue(hugeBytesSent.get() + " bytes sent", hugeBytesSent.get() < HUGE_BYTES);
+        // Decoded size counts too: 1 MB of zeros is only about 1 KB gzipped
+        assertRejected(fetcher, "/bomb");
+        // Pages under the limit still come through afterwards
+        assertTrue(fetcher.fetch(baseUrl + "/page").isSuccess());
+    }
+
+    @Test
+    public void knownLengthOverTheLimitIsNotDownloaded() throws Exception
+    {
+        HttpClientFetcher fetcher = new HttpClientFetcher(2000);
+        fetcher.setMaxBodyBytes(16);
+
+        assertRejected(fetcher, "/page");
+    }
+
+    @Test
+    public void jsoupFetcherRejectsBodiesOverTheLimitInsteadOfTruncating() throws Exception
+    {
+        JsoupFetcher fetcher = new JsoupFetcher(5000);
+        fetcher.setMaxBodyBytes(16);
+        assertRejected(fetcher, "/page");
+
+        fetcher.setMaxBodyBytes(64 * 1024);
+        assertRejected(fetcher, "/huge");
+        assertTrue(fetcher.fetch(baseUrl + "/page").isSuccess());
+    }
+
+    @Test
+    public void crawlableContentTypes()
+    {
+        assertTrue(HttpClientFetcher.isCrawlable("text/html; charset=UTF-8"));
+        assertTrue(HttpClientFetcher.isCrawlable("application/xhtml+xml"));
+        assertTrue(HttpClientFetcher.isCrawlable("application/xml"));
+        assertTrue(HttpClientFetcher.isCrawlable(null));
+        assertFalse(HttpClientFetcher.isCrawlable("image/png"));
+        assertFalse(HttpClientFetcher.isCrawlable("application/octet-stream"));
+    }
+
+    private void assertRejected(Fetcher fetcher, String path) throws IOException
+    {
+        try {
+            fetcher.fetch(baseUrl + path);
+            fail(path + " was downloaded");
+        } catch (ResponseRejectedException expected) {
+            // not crawled
+        }
+    }
+
+    private static void sendEncoded(HttpExchange exchange, String encoding, byte[] body) throws IOException
+    {
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+        exchange.getResponseHeaders().add("Content-Encoding", encoding);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException
+    {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package sandeep.webcrawler.frontier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BucketQueueTest
+{
+    @Test
+    public void pollsHighestPriorityFirstAndFifoWithinOne()
+    {
+        BucketQueue<String> queue = new BucketQueue<>();
+        queue.add("low", 0);
+        queue.add("high-1", 63);
+        queue.add("mid", 20);
+        queue.add("high-2", 63);
+
+        assertEquals(63, queue.highestPriority());
+        assertEquals("high-1", queue.poll());
+        assertEquals("high-2", queue.poll());
+        assertEquals("mid", queue.poll());
+        assertEquals("low", queue.poll());
+        assertNull(queue.poll());
+        assertEquals(-1, queue.highestPriority());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void removeAndLookupBelowAPriority()
+    {
+        BucketQueue<String> queue = new BucketQueue<>();
+        queue.add("a", 5);
+        queue.add("b", 40);
+
+        assertEquals(5, queue.highestPriorityAtOrBelow(39));
+        assertEquals(40, queue.highestPriorityAtOrBelow(63));
+        assertEquals(-1, queue.highestPriorityAtOrBelow(4));
+        assertTrue(queue.remove("b", 40));
+        assertFalse(queue.remove("b", 40));
+        assertEquals(5, queue.highestPriority());
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void scoresMapOntoAllBuckets()
+    {
+        assertEquals(0, BucketQueue.priorityOf(-1));
+        assertEquals(0, BucketQueue.priorityOf(Double.NaN));
+        assertEquals(32, BucketQueue.priorityOf(0.5));
+        assertEquals(63, BucketQueue.priorityOf(1));
+        assertEquals(63, BucketQueue.priorityOf(7));
+    }
+}
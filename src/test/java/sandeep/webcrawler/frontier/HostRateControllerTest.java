@@ -0,0 +1,105 @@
+package sandeep.webcrawler.frontier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class HostRateControllerTest
+{
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void healthyHostEarnsConcurrencyAndShorterGaps()
+    {
+        HostRateController controller = new HostRateController(500, host -> 0);
+        controller.setMinDelayMs(50);
+        controller.setMaxConcurrency(4);
+        assertEquals(500, controller.delayMs("a.example"));
+        assertEquals(1, controller.concurrency("a.example"));
+
+        for (int i = 0; i < 20; i++) {
+            controller.onResponse("a.example", 200, FAST, -1);
+        }
+        assertEquals(4, controller.concurrency("a.example"));
+        assertEquals(50, controller.delayMs("a.example"));
+        // Other hosts are unaffected
+        assertEquals(500, controller.delayMs("b.example"));
+    }
+
+    @Test
+    public void slowResponsesDoNotRaiseConcurrency()
+    {
+        HostRateController controller = new HostRateController(0, host -> 0);
+        controller.setMaxConcurrency(8);
+        controller.onResponse("a.example", 200, FAST, -1);
+        controller.onResponse("a.example", 200, FAST, -1);
+        int limit = controller.concurrency("a.example");
+
+        for (int i = 0; i < 10; i++) {
+            controller.onResponse("a.example", 200, TimeUnit.SECONDS.toNanos(1), -1);
+        }
+        assertTrue(controller.concurrency("a.example") <= limit);
+    }
+
+    @Test
+    public void overloadHalvesConcurrencyAndDoublesTheGap()
+    {
+        HostRateController controller = new HostRateController(200, host -> 0);
+        controller.setMaxConcurrency(8);
+        for (int i = 0; i < 40; i++) {
+            controller.onResponse("a.example", 200, FAST, -1);
+        }
+        assertEquals(8, controller.concurrency("a.example"));
+
+        controller.onResponse("a.example", 503, FAST, -1);
+        assertEquals(4, controller.concurrency("a.example"));
+        assertEquals(400, controller.delayMs("a.example"));
+
+        controller.onFailure("a.example");
+        controller.onResponse("a.example", 429, FAST, -1);
+        assertEquals(1, controller.concurrency("a.example"));
+        assertEquals(1600, controller.delayMs("a.example"));
+    }
+
+    @Test
+    public void backOffStartsAboveZeroAndHonoursRetryAfter()
+    {
+        HostRateController controller = new HostRateController(0, host -> 0);
+        controller.onResponse("a.example", 500, FAST, -1);
+        assertEquals(HostRateController.MIN_BACKOFF_MS, controller.delayMs("a.example"));
+
+        controller.onResponse("a.example", 429, FAST, 30_000);
+        assertEquals(30_000, controller.delayMs("a.example"));
+
+        controller.onResponse("a.example", 503, FAST, Long.MAX_VALUE);
+        assertEquals(HostRateController.MAX_RETRY_AFTER_MS, controller.delayMs("a.example"));
+    }
+
+    @Test
+    public void gapNeverDropsBelowCrawlDelay()
+    {
+        HostRateController controller = new HostRateController(500, host -> host.equals("slow.example") ? 2_000 : 0);
+        controller.setMinDelayMs(0);
+        for (int i = 0; i < 50; i++) {
+            controller.onResponse("slow.example", 200, FAST, -1);
+            controller.onResponse("fast.example", 200, FAST, -1);
+        }
+        assertEquals(2_000, controller.delayMs("slow.example"));
+        assertEquals(0, controller.delayMs("fast.example"));
+    }
+
+    @Test
+    public void parsesBothRetryAfterForms()
+    {
+        long now = 1_445_412_480_000L; // Wed, 21 Oct 2015 07:28:00 GMT
+        assertEquals(120_000, HostRateController.parseRetryAfter("120", now));
+        assertEquals(120_000, HostRateController.parseRetryAfter(" 120 ", now));
+        assertEquals(60_000, HostRateController.parseRetryAfter("Wed, 21 Oct 2015 07:29:00 GMT", now));
+        assertEquals(0, HostRateController.parseRetryAfter("Wed, 21 Oct 2015 07:00:00 GMT", now));
+        assertEquals(-1, HostRateController.parseRetryAfter("soon", now));
+        assertEquals(-1, HostRateController.parseRetryAfter(null, now));
+    }
+}
@@ -0,0 +1,190 @@
+package sandeep.webcrawler.frontier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import sandeep.webcrawler.scoring.UrlScorer;
+
+public class PolitenessFrontierTest
+{
+    @Test
+    public void readyHostIsServedWhileOtherHostWaits() throws Exception
+    {
+        PolitenessFrontier frontier = new PolitenessFrontier(10_000, host -> 0);
+        frontier.offer(new CrawlTask("https://a.example/1", 0));
+        frontier.offer(new CrawlTask("https://a.example/2", 0));
+        frontier.offer(new CrawlTask("https://b.example/1", 0));
+
+        CrawlTask first = frontier.poll(100, TimeUnit.MILLISECONDS);
+        assertEquals("https://a.example/1", first.getUrl());
+        frontier.complete(first);
+
+        // a.example is now inside its 10s window, b.example is not
+        assertEquals("https://b.example/1", frontier.poll(100, TimeUnit.MILLISECONDS).getUrl());
+        assertNull(frontier.poll(50, TimeUnit.MILLISECONDS));
+        assertEquals(1, frontier.size());
+    }
+
+    @Test
+    public void hostCrawlDelayIsHonoured() throws Exception
+    {
+        PolitenessFrontier frontier = new PolitenessFrontier(10_000, host -> 150);
+        frontier.offer(new CrawlTask("https://a.example/1", 0));
+        frontier.offer(new CrawlTask("https://a.example/2", 0));
+
+        CrawlTask first = frontier.poll(100, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        frontier.complete(first);
+
+        CrawlTask second = frontier.poll(1, TimeUnit.SECONDS);
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals("https://a.example/2", second.getUrl());
+        assertTrue("waited " + waitedMs + "ms", waitedMs >= 140);
+    }
+
+    @Test
+    public void perHostLimitCapsInFlightTasks() throws Exception
+    {
+        PolitenessFrontier frontier = new PolitenessFrontier(0, host -> 0);
+        frontier.setMaxInFlightPerHost(2);
+        for (int i = 0; i < 3; i++) {
+            frontier.offer(new CrawlTask("https://a.example/" + i, 0));
+        }
+
+        CrawlTask first = frontier.poll(100, TimeUnit.MILLISECONDS);
+        CrawlTask second = frontier.poll(100, TimeUnit.MILLISECONDS);
+        assertEquals("https://a.example/1", second.getUrl());
+        assertNull(frontier.poll(50, TimeUnit.MILLISECONDS));
+
+        frontier.complete(first);
+        assertEquals("https://a.example/2", frontier.poll(100, TimeUnit.MILLISECONDS).getUrl());
+    }
+
+    @Test
+    public void rateControllerBackOffDelaysTheHost() throws Exception
+    {
+        HostRateController controller = new HostRateController(0, host -> 0);
+        controller.setMaxConcurrency(2);
+        PolitenessFrontier frontier = new PolitenessFrontier(0, host -> 0);
+        frontier.setMaxInFlightPerHost(2);
+        frontier.setRateController(controller);
+        for (int i = 0; i < 3; i++) {
+            frontier.offer(new CrawlTask("https://a.example/" + i, 0));
+        }
+
+        // The controller starts each host at one request in flight
+        CrawlTask first = frontier.poll(100, TimeUnit.MILLISECONDS);
+        assertNull(frontier.poll(50, TimeUnit.MILLISECONDS));
+        controller.onResponse("a.example", 200, TimeUnit.MILLISECONDS.toNanos(5), -1);
+        frontier.complete(first);
+        CrawlTask second = frontier.poll(100, TimeUnit.MILLISECONDS);
+        assertEquals("https://a.example/1", second.getUrl());
+
+        controller.onResponse("a.example", 503, TimeUnit.MILLISECONDS.toNanos(5), 300);
+        long start = System.nanoTime();
+        frontier.complete(second);
+        CrawlTask third = frontier.poll(1, TimeUnit.SECONDS);
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals("https://a.example/2", third.getUrl());
+        assertTrue("waited " + waitedMs + "ms", waitedMs >= 290);
+    }
+
+    @Test
+    public void scorerPicksTheBestTaskOfTheBestReadyHost() throws Exception
+    {
+        PolitenessFrontier frontier = new PolitenessFrontier(0, host -> 0);
+        // Last digit of the URL, as tenths
+        frontier.setUrlScorer(task -> (task.getUrl().charAt(task.getUrl().length() - 1) - '0') / 10.0);
+        frontier.offer(new CrawlTask("https://a.example/1", 0));
+        frontier.offer(new CrawlTask("https://b.example/5", 0));
+        frontier.offer(new CrawlTask("https://a.example/9", 0));
+
+        CrawlTask first = frontier.poll(100, TimeUnit.MILLISECONDS);
+        assertEquals("https://a.example/9", first.getUrl());
+        // a.example is busy, so its remaining task waits behind b.example's
+        assertEquals("https://b.example/5", frontier.poll(100, TimeUnit.MILLISECONDS).getUrl());
+        frontier.complete(first);
+        assertEquals("https://a.example/1", frontier.poll(100, TimeUnit.MILLISECONDS).getUrl());
+    }
+
+    @Test
+    public void queuedTasksAreRescoredAsTheirScoreGrows() throws Exception
+    {
+        Map<String, Double> scores = new ConcurrentHashMap<>();
+        UrlScorer scorer = task -> scores.getOrDefault(task.getUrl(), 0.1);
+        PolitenessFrontier frontier = new PolitenessFrontier(0, host -> 0);
+        frontier.setUrlScorer(scorer);
+        for (int i = 1; i <= 6; i++) {
+            frontier.offer(new CrawlTask("https://a.example/" + i, 0));
+        }
+        scores.put("https://a.example/6", 0.9);
+
+        // Each poll re-scores the next two queued tasks of the host
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CrawlTask task = frontier.poll(100, TimeUnit.MILLISECONDS);
+            order.add(task.getUrl());
+            frontier.complete(task);
+        }
+        assertEquals(List.of("https://a.example/1", "https://a.example/4", "https://a.example/6"), order);
+    }
+
+    @Test
+    public void drainEmptiesEveryHostWithoutTouchingTasksInFlight() throws Exception
+    {
+        PolitenessFrontier frontier = new PolitenessFrontier(10_000, host -> 0);
+        frontier.offer(new CrawlTask("https://a.example/1", 0));
+        frontier.offer(new CrawlTask("https://a.example/2", 0));
+        frontier.offer(new CrawlTask("https://b.example/1", 0));
+        frontier.offer(new CrawlTask("https://c.example/1", 0));
+        CrawlTask inFlight = frontier.poll(100, TimeUnit.MILLISECONDS);
+
+        List<CrawlTask> drained = new ArrayList<>();
+        assertEquals(3, frontier.drainTo(drained));
+        assertEquals(3, drained.size());
+        assertEquals(0, frontier.size());
+        assertNull(frontier.poll(50, TimeUnit.MILLISECONDS));
+
+        // The host in flight is still spaced by its delay, the others are served at once
+        frontier.complete(inFlight);
+        frontier.offer(new CrawlTask(inFlight.getUrl() + "/next", 0));
+        frontier.offer(new CrawlTask("https://d.example/1", 0));
+        assertEquals("https://d.example/1", frontier.poll(100, TimeUnit.MILLISECONDS).getUrl());
+        assertNull(frontier.poll(50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shutdownWakesBlockedPollers() throws Exception
+    {
+        PolitenessFrontier frontier = new PolitenessFrontier(0, host -> 0);
+        ExecutorService pollers = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<CrawlTask>> polls = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                polls.add(pollers.submit(() -> frontier.poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS)));
+            }
+            Thread.sleep(50);
+            frontier.shutdown();
+
+            for (Future<CrawlTask> poll : polls) {
+                assertNull(poll.get(1, TimeUnit.SECONDS));
+            }
+            frontier.offer(new CrawlTask("https://a.example/1", 0));
+            assertNull(frontier.poll(1, TimeUnit.SECONDS));
+        } finally {
+            pollers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package sandeep.webcrawler.frontier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class RetryQueueTest
+{
+    @Test
+    public void backoffIsJitteredWithinDoublingBounds()
+    {
+        try (RetryQueue retries = new RetryQueue(new FifoFrontier(), 100, 1_000)) {
+            for (int i = 0; i < 100; i++) {
+                long first = retries.backoffMs(1);
+                long third = retries.backoffMs(3);
+                long capped = retries.backoffMs(10);
+                assertTrue(first + "ms", first >= 50 && first <= 100);
+                assertTrue(third + "ms", third >= 200 && third <= 400);
+                assertTrue(capped + "ms", capped >= 500 && capped <= 1_000);
+            }
+        }
+    }
+
+    @Test
+    public void hugeRetryAfterIsClamped()
+    {
+        try (RetryQueue retries = new RetryQueue(new FifoFrontier(), 100, 1_000)) {
+            // Retry-After: 86400
+            assertEquals(HostRateController.MAX_RETRY_AFTER_MS, retries.delayMs(1, 86_400_000));
+            assertEquals(5_000, retries.delayMs(1, 5_000));
+            long noHeader = retries.delayMs(1, -1);
+            assertTrue(noHeader + "ms", noHeader >= 50 && noHeader <= 100);
+        }
+    }
+
+    @Test
+    public void taskIsOfferedBackOnceDue() throws Exception
+    {
+        FifoFrontier frontier = new FifoFrontier();
+        try (RetryQueue retries = new RetryQueue(frontier, 1, 1)) {
+            CrawlTask failed = new CrawlTask("https://a.example/1", 2);
+            CrawlTask retry = failed.retry();
+            long start = System.nanoTime();
+            retries.schedule(retry, 150);
+
+            assertNull(frontier.poll(50, TimeUnit.MILLISECONDS));
+            CrawlTask offered = frontier.poll(1, TimeUnit.SECONDS);
+            long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertEquals("https://a.example/1", offered.getUrl());
+            assertEquals(2, offered.getDepth());
+            assertEquals(1, offered.getAttempt());
+            assertTrue(failed.isRetried());
+            assertTrue("waited " + waitedMs + "ms", waitedMs >= 140);
+        }
+    }
+}
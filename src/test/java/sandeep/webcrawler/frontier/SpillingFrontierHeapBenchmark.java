@@ -0,0 +1,72 @@
+package sandeep.webcrawler.frontier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Integration benchmark: queues 10M URLs through a disk-backed frontier and
+ * samples heap after GC. Skipped unless run with {@code -Dcrawler.bench=true}.
+ */
+public class SpillingFrontierHeapBenchmark
+{
+    private static final int URLS = Integer.getInteger("crawler.bench.urls", 10_000_000);
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void heapStaysFlatWithTenMillionQueuedUrls() throws Exception
+    {
+        assumeTrue(Boolean.getBoolean("crawler.bench"));
+
+        Path dir = tmp.newFolder("frontier").toPath();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baseline = usedHeapAfterGc(memory);
+        long peak = 0;
+        long start = System.nanoTime();
+
+        try (SpillingFrontier frontier = new SpillingFrontier(new FifoFrontier(), dir, 10_000)) {
+            for (int i = 0; i < URLS; i++) {
+                frontier.offer(new CrawlTask("https://host" + (i % 1000) + ".example.com/path/to/page?id=" + i, 3));
+                if (i % 1_000_000 == 0) {
+                    long used = usedHeapAfterGc(memory) - baseline;
+                    peak = Math.max(peak, used);
+                    System.out.printf("queued %,d  heap delta %,d KB%n", i, used / 1024);
+                }
+            }
+            assertEquals(URLS, frontier.size());
+            long enqueueMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < URLS; i++) {
+                frontier.poll(1, TimeUnit.SECONDS);
+                if (i % 1_000_000 == 0) {
+                    peak = Math.max(peak, usedHeapAfterGc(memory) - baseline);
+                }
+            }
+            long drainMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            System.out.printf("%,d URLs: enqueue %,d ms, drain %,d ms, peak heap delta %,d KB%n",
+                    URLS, enqueueMs, drainMs, peak / 1024);
+        }
+
+        // An on-heap queue of 10M tasks needs well over 1 GB; the spilling frontier a few MB
+        assertTrue("peak heap delta " + peak, peak < 64L << 20);
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory)
+    {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
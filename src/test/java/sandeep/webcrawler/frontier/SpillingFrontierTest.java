@@ -0,0 +1,56 @@
+package sandeep.webcrawler.frontier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SpillingFrontierTest
+{
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void keepsFifoOrderAcrossSpilledSegments() throws Exception
+    {
+        Path dir = tmp.newFolder("frontier").toPath();
+        FifoFrontier head = new FifoFrontier();
+        // Tiny segments so the test rolls over several files
+        try (SpillingFrontier frontier = new SpillingFrontier(head, dir, 10, 256)) {
+            for (int i = 0; i < 1_000; i++) {
+                frontier.offer(new CrawlTask("https://example.com/p/" + i, i % 7));
+            }
+            assertEquals(1_000, frontier.size());
+            assertEquals(10, head.size());
+            assertTrue(frontier.spilledCount() > 0);
+
+            for (int i = 0; i < 1_000; i++) {
+                CrawlTask task = frontier.poll(100, TimeUnit.MILLISECONDS);
+                assertEquals("https://example.com/p/" + i, task.getUrl());
+                assertEquals(i % 7, task.getDepth());
+                assertTrue("head grew to " + head.size(), head.size() <= 10);
+
+                // Interleave new work while the reader is catching up with the writer
+                if (i % 100 == 0) {
+                    frontier.offer(new CrawlTask("https://example.com/late/" + i, 0));
+                }
+            }
+            for (int i = 0; i < 1_000; i += 100) {
+                assertEquals("https://example.com/late/" + i, frontier.poll(100, TimeUnit.MILLISECONDS).getUrl());
+            }
+            assertNull(frontier.poll(10, TimeUnit.MILLISECONDS));
+            assertEquals(0, frontier.size());
+        }
+
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
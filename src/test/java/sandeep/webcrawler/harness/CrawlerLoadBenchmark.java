@@ -0,0 +1,191 @@
+package sandeep.webcrawler.harness;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import sandeep.webcrawler.ConcurrentWebCrawler;
+import sandeep.webcrawler.ExecutionMode;
+import sandeep.webcrawler.fetch.FetchResponse;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.fetch.HttpClientFetcher;
+import sandeep.webcrawler.metrics.CrawlMetrics;
+import sandeep.webcrawler.schedule.FairWorkerPool;
+
+/**
+ * End-to-end load test: crawls a generated site with each execution engine
+ * at several thread counts (fetch threads for the pipelined engine) and
+ * prints pages/sec, p99 fetch latency and peak heap. Skipped unless run with {@code -Dcrawler.bench=true}; the site shape
+ * can be changed with {@code crawler.bench.fanout}, {@code .depth},
+ * {@code .pageBytes}, {@code .latencyMs} and {@code .errorRate}.
+ */
+public class CrawlerLoadBenchmark
+{
+    private static final int FAN_OUT = Integer.getInteger("crawler.bench.fanout", 10);
+    private static final int DEPTH = Integer.getInteger("crawler.bench.depth", 3);
+    private static final int PAGE_BYTES = Integer.getInteger("crawler.bench.pageBytes", 16 * 1024);
+    private static final long LATENCY_MS = Long.getLong("crawler.bench.latencyMs", 20);
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("crawler.bench.errorRate", "0.01"));
+
+    private static SyntheticWebServer site;
+
+    @BeforeClass
+    public static void startSite() throws IOException
+    {
+        assumeTrue(Boolean.getBoolean("crawler.bench"));
+        site = new SyntheticWebServer();
+        site.setFanOut(FAN_OUT);
+        site.setDepth(DEPTH);
+        site.setPageBytes(PAGE_BYTES);
+        site.setLatencyMs(LATENCY_MS);
+        site.setErrorRate(ERROR_RATE);
+        site.setRobotsTxt("User-agent: *\nDisallow: /private/\n");
+        site.start();
+        System.out.printf("site: %,d pages, fan-out %d, depth %d, %,d bytes/page, %d ms latency, %.1f%% errors%n",
+                site.getPageCount(), FAN_OUT, DEPTH, PAGE_BYTES, LATENCY_MS, ERROR_RATE * 100);
+    }
+
+    @AfterClass
+    public static void stopSite()
+    {
+        if (site != null) {
+            site.close();
+        }
+    }
+
+    @Test
+    public void platformThreads() throws Exception
+    {
+        for (int threads : new int[] {1, 4, 16}) {
+            run("platform", threads, crawler -> crawler.setExecutionMode(ExecutionMode.PLATFORM));
+        }
+    }
+
+    @Test
+    public void virtualThreads() throws Exception
+    {
+        for (int concurrency : new int[] {4, 16, 64}) {
+            run("virtual", concurrency, crawler -> {
+                crawler.setExecutionMode(ExecutionMode.VIRTUAL);
+                crawler.setMaxConcurrency(concurrency);
+            });
+        }
+    }
+
+    @Test
+    public void pipelined() throws Exception
+    {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int fetchThreads : new int[] {4, 16, 64}) {
+            run("pipelined", fetchThreads, crawler -> {
+                crawler.setExecutionMode(ExecutionMode.PIPELINED);
+                crawler.setParseThreads(cores);
+            });
+        }
+    }
+
+    @Test
+    public void sharedWorkerPool() throws Exception
+    {
+        for (int threads : new int[] {4, 16}) {
+            try (FairWorkerPool pool = new FairWorkerPool(threads)) {
+                run("shared pool", threads, crawler -> crawler.setWorkerPool(pool));
+            }
+        }
+    }
+
+    private interface Setup
+    {
+        void apply(ConcurrentWebCrawler crawler);
+    }
+
+    private static void run(String engine, int threads, Setup setup) throws Exception
+    {
+        int requestsBefore = site.getPageRequests();
+        ConcurrentWebCrawler crawler = new ConcurrentWebCrawler(site.getSeedUrl(),
+                site.getPageCount() + 1, threads, DEPTH);
+        TimingFetcher fetcher = new TimingFetcher(new HttpClientFetcher(10_000), site.getPageCount() + 16);
+        crawler.setFetcher(fetcher);
+        crawler.setMaxPerHost(threads);
+        crawler.setPolitenessDelay(0);
+        crawler.setMetrics(new CrawlMetrics(new SimpleMeterRegistry()));
+        AtomicInteger pages = new AtomicInteger();
+        crawler.setResultListener(url -> pages.incrementAndGet());
+        setup.apply(crawler);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, 20, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        try {
+            crawler.crawl(site.getSeedUrl());
+        } finally {
+            sampler.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-12s %3d threads: %,6d pages in %6.2f s = %,8.1f pages/s, p99 fetch %6.1f ms, peak heap +%,d KB%n",
+                engine, threads, pages.get(), seconds, pages.get() / seconds,
+                fetcher.percentileMillis(0.99), Math.max(0, peak.get() - baseline) / 1024);
+        assertEquals(site.getPageRequests() - requestsBefore, pages.get());
+    }
+
+    // Records the wall time of every page fetch
+    private static final class TimingFetcher implements Fetcher
+    {
+        private final Fetcher delegate;
+        private final long[] nanos;
+        private final AtomicInteger count = new AtomicInteger();
+
+        TimingFetcher(Fetcher delegate, int capacity)
+        {
+            this.delegate = delegate;
+            this.nanos = new long[capacity];
+        }
+
+        @Override
+        public FetchResponse fetch(String url, Map<String, String> requestHeaders) throws IOException
+        {
+            long start = System.nanoTime();
+            try {
+                return delegate.fetch(url, requestHeaders);
+            } finally {
+                int i = count.getAndIncrement();
+                if (i < nanos.length) {
+                    nanos[i] = System.nanoTime() - start;
+                }
+            }
+        }
+
+        double percentileMillis(double p)
+        {
+            int n = Math.min(count.get(), nanos.length);
+            if (n == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(nanos, n);
+            Arrays.sort(sorted);
+            return sorted[Math.min(n - 1, (int) Math.ceil(p * n) - 1)] / 1e6;
+        }
+    }
+}
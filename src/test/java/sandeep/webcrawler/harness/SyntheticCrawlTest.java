@@ -0,0 +1,135 @@
+package sandeep.webcrawler.harness;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import sandeep.webcrawler.ConcurrentWebCrawler;
+import sandeep.webcrawler.ExecutionMode;
+import sandeep.webcrawler.metrics.CrawlMetrics;
+
+/**
+ * End-to-end crawls of a generated site: every reachable page is fetched
+ * exactly once and robots.txt is honoured.
+ */
+public class SyntheticCrawlTest
+{
+    private static final int NO_DEPTH_LIMIT = 100;
+
+    @Test
+    public void crawlsEveryReachablePageOnce() throws Exception
+    {
+        try (SyntheticWebServer site = new SyntheticWebServer()) {
+            site.setFanOut(4);
+            site.setDepth(3);
+            site.setPageBytes(2048);
+            site.setErrorRate(0.05);
+            site.start();
+
+            List<String> crawled = crawl(site, ExecutionMode.PLATFORM);
+
+            Set<Integer> expected = reachable(site, Set.of());
+            assertEquals(expected.size(), crawled.size());
+            assertEquals(expected.size(), new HashSet<>(crawled).size());
+            assertEquals(expected.size(), site.getPageRequests());
+        }
+    }
+
+    @Test
+    public void pipelinedCrawlFinishesOnlyAfterTheLastPageIsParsed() throws Exception
+    {
+        try (SyntheticWebServer site = new SyntheticWebServer()) {
+            site.setFanOut(6);
+            site.setDepth(3);
+            site.setPageBytes(4096);
+            site.setLatencyMs(2);
+            site.start();
+
+            List<String> crawled = crawl(site, ExecutionMode.PIPELINED);
+
+            assertEquals(site.getPageCount(), crawled.size());
+            assertEquals(site.getPageCount(), new HashSet<>(crawled).size());
+        }
+    }
+
+    @Test
+    public void disallowedSubtreeIsNeverRequested() throws Exception
+    {
+        try (SyntheticWebServer site = new SyntheticWebServer()) {
+            site.setFanOut(4);
+            site.setDepth(3);
+            site.setPageBytes(1024);
+            site.setRobotsTxt("User-agent: *\nDisallow: /p/2$\nDisallow: /p/9$\n");
+            site.start();
+
+            List<String> crawled = crawl(site, ExecutionMode.VIRTUAL);
+
+            assertFalse(site.getRequestsByPath().containsKey("/p/2"));
+            assertFalse(site.getRequestsByPath().containsKey("/p/9"));
+            assertTrue(crawled.contains(site.pageUrl(3)));
+            assertEquals(reachable(site, Set.of(2, 9)).size(), crawled.size());
+            assertEquals(1, site.getRequestsByPath().get("/robots.txt").get());
+        }
+    }
+
+    @Test
+    public void throttledPagesAreRetriedAfterBackingOff() throws Exception
+    {
+        try (SyntheticWebServer site = new SyntheticWebServer()) {
+            site.setFanOut(3);
+            site.setDepth(2);
+            site.setPageBytes(1024);
+            site.setThrottledPages("0", 1, 5);
+            site.start();
+
+            List<String> crawled = crawl(site, ExecutionMode.PLATFORM);
+
+            assertEquals(site.getPageCount(), crawled.size());
+            assertEquals(site.getPageCount(), new HashSet<>(crawled).size());
+            assertEquals(2, site.getRequestsByPath().get("/p/1").get());
+            assertEquals(2, site.getRequestsByPath().get("/p/5").get());
+            assertEquals(site.getPageCount() + 2, site.getPageRequests());
+        }
+    }
+
+    private static List<String> crawl(SyntheticWebServer site, ExecutionMode mode)
+    {
+        ConcurrentWebCrawler crawler = new ConcurrentWebCrawler(site.getSeedUrl(),
+                site.getPageCount() + 1, 4, NO_DEPTH_LIMIT);
+        crawler.setExecutionMode(mode);
+        crawler.setMaxPerHost(4);
+        crawler.setPolitenessDelay(0);
+        crawler.setMetrics(new CrawlMetrics(new SimpleMeterRegistry()));
+        List<String> crawled = new CopyOnWriteArrayList<>();
+        crawler.setResultListener(crawled::add);
+        crawler.crawl(site.getSeedUrl());
+        return crawled;
+    }
+
+    // Pages the crawler should reach from the seed, following the site's own link function
+    private static Set<Integer> reachable(SyntheticWebServer site, Set<Integer> disallowed)
+    {
+        Set<Integer> seen = new HashSet<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        seen.add(0);
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            for (int next : site.outlinks(queue.poll())) {
+                if (!disallowed.contains(next) && seen.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return seen;
+    }
+}
@@ -0,0 +1,271 @@
+package sandeep.webcrawler.harness;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves a generated site graph on loopback addresses for end-to-end crawl
+ * tests. Pages form a tree: page 0 is the root, and each page below
+ * {@code depth} links to {@code fanOut} children plus a few already-known
+ * pages, so the seen-set has real duplicates to reject. Host k of
+ * {@code hosts} listens on 127.0.0.(k+1), serves the pages whose id is k
+ * modulo hosts, and sleeps for its configured latency before answering.
+ *
+ * Everything is derived from the page id, so two servers with the same
+ * settings serve byte-identical sites.
+ *
+ * <pre>
+ * try (SyntheticWebServer site = new SyntheticWebServer()) {
+ *     site.setFanOut(10);
+ *     site.setDepth(3);
+ *     site.start();
+ *     crawler.crawl(site.getSeedUrl());
+ * }
+ * </pre>
+ */
+public class SyntheticWebServer implements Closeable
+{
+    private int fanOut = 5;
+    private int depth = 3;
+    private int pageBytes = 8 * 1024;
+    private int hosts = 1;
+    private long[] latencyMs = {0};
+    private double errorRate = 0;
+    private int extraLinksPerPage = 2;
+    private String robotsTxt = null;
+    private final Set<Integer> throttledPages = ConcurrentHashMap.newKeySet();
+    private String retryAfter = null;
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final List<String> origins = new ArrayList<>();
+    private ExecutorService executor;
+    private final AtomicInteger pageRequests = new AtomicInteger();
+    private final AtomicInteger errorResponses = new AtomicInteger();
+    private final Map<String, AtomicInteger> requestsByPath = new ConcurrentHashMap<>();
+
+    public void setFanOut(int fanOut) { this.fanOut = fanOut; }
+
+    // Levels below the root; pages at this depth have no children
+    public void setDepth(int depth) { this.depth = depth; }
+
+    // Approximate body size; links and markup are padded with text up to it
+    public void setPageBytes(int pageBytes) { this.pageBytes = pageBytes; }
+
+    public void setHosts(int hosts) { this.hosts = hosts; }
+
+    // One value for every host, or one per host
+    public void setLatencyMs(long... latencyMs) { this.latencyMs = latencyMs; }
+
+    // Fraction of pages (chosen by id, so repeatable) that answer 500
+    public void setErrorRate(double errorRate) { this.errorRate = errorRate; }
+
+    public void setExtraLinksPerPage(int extraLinksPerPage) { this.extraLinksPerPage = extraLinksPerPage; }
+
+    // Served at /robots.txt on every host; null answers 404
+    public void setRobotsTxt(String robotsTxt) { this.robotsTxt = robotsTxt; }
+
+    // These pages answer 503, with the given Retry-After unless null, the first time they are requested
+    public void setThrottledPages(String retryAfter, int... ids)
+    {
+        this.retryAfter = retryAfter;
+        for (int id : ids) {
+            throttledPages.add(id);
+        }
+    }
+
+    public void start() throws IOException
+    {
+        // Handlers sleep to simulate latency; virtual threads keep that from capping concurrency
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int k = 0; k < hosts; k++) {
+            InetAddress address = InetAddress.getByAddress(new byte[] {127, 0, 0, (byte) (k + 1)});
+            HttpServer server = HttpServer.create(new InetSocketAddress(address, 0), 1024);
+            int host = k;
+            server.createContext("/", exchange -> handle(exchange, host));
+            server.setExecutor(executor);
+            server.start();
+            servers.add(server);
+            origins.add("http://127.0.0." + (k + 1) + ":" + server.getAddress().getPort());
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        servers.forEach(server -> server.stop(0));
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public String getSeedUrl() { return pageUrl(0); }
+
+    /** Number of pages in the graph, reachable or not. */
+    public int getPageCount()
+    {
+        int total = 0;
+        int level = 1;
+        for (int d = 0; d <= depth; d++) {
+            total += level;
+            level *= fanOut;
+        }
+        return total;
+    }
+
+    /** Pages that answer 500. */
+    public int getErrorPageCount()
+    {
+        int errors = 0;
+        for (int id = 0; id < getPageCount(); id++) {
+            if (isError(id)) {
+                errors++;
+            }
+        }
+        return errors;
+    }
+
+    public int getPageRequests() { return pageRequests.get(); }
+
+    public int getErrorResponses() { return errorResponses.get(); }
+
+    // How often each path was requested, across all hosts
+    public Map<String, AtomicInteger> getRequestsByPath() { return requestsByPath; }
+
+    /**
+     * Ids of the pages a page links to: its children, then links back to
+     * lower ids, which the crawler has always seen already. Error pages link
+     * nowhere.
+     */
+    public List<Integer> outlinks(int id)
+    {
+        List<Integer> links = new ArrayList<>();
+        if (isError(id)) {
+            return links;
+        }
+        long firstChild = (long) id * fanOut + 1;
+        for (int c = 0; c < fanOut && firstChild + c < getPageCount(); c++) {
+            links.add((int) (firstChild + c));
+        }
+        for (int e = 0; e < extraLinksPerPage && id > 0; e++) {
+            links.add((int) ((id * 31L + e * 17L) % id));
+        }
+        return links;
+    }
+
+    public String pageUrl(int id)
+    {
+        return origins.get(id % hosts) + "/p/" + id;
+    }
+
+    private void handle(HttpExchange exchange, int host) throws IOException
+    {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            requestsByPath.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            long latency = latencyMs[Math.min(host, latencyMs.length - 1)];
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+
+            if (path.equals("/robots.txt")) {
+                if (robotsTxt == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else {
+                    respond(exchange, 200, "text/plain", robotsTxt);
+                }
+                return;
+            }
+
+            int id = pageId(path);
+            if (id < 0 || id >= getPageCount() || id % hosts != host) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            pageRequests.incrementAndGet();
+            if (throttledPages.remove(id)) {
+                if (retryAfter != null) {
+                    exchange.getResponseHeaders().add("Retry-After", retryAfter);
+                }
+                respond(exchange, 503, "text/html", "<html><title>Slow down</title></html>");
+                return;
+            }
+            if (isError(id)) {
+                errorResponses.incrementAndGet();
+                respond(exchange, 500, "text/html", "<html><title>Server error</title></html>");
+                return;
+            }
+            respond(exchange, 200, "text/html; charset=utf-8", page(id));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int pageId(String path)
+    {
+        if (!path.startsWith("/p/")) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(path.substring(3));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Stable per id, independent of request order
+    private boolean isError(int id)
+    {
+        if (errorRate <= 0 || id == 0) {
+            return false;
+        }
+        long h = id * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (h & 0xFFFF) < errorRate * 0x10000;
+    }
+
+    private String page(int id)
+    {
+        StringBuilder html = new StringBuilder(pageBytes + 256);
+        html.append("<!DOCTYPE html><html><head><title>Page ").append(id).append("</title>")
+                .append("<meta name=\"description\" content=\"Synthetic page ").append(id).append("\"></head><body>")
+                .append("<h1>Page ").append(id).append("</h1><ul>");
+
+        for (int target : outlinks(id)) {
+            html.append("<li><a href=\"").append(pageUrl(target)).append("\">page ").append(target).append("</a></li>");
+        }
+        html.append("</ul>");
+
+        int paragraph = 0;
+        while (html.length() < pageBytes) {
+            html.append("<p>Paragraph ").append(paragraph++)
+                    .append(" of synthetic page ").append(id)
+                    .append(": lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor.</p>");
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException
+    {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package sandeep.webcrawler.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import sandeep.webcrawler.frontier.CrawlTask;
+import sandeep.webcrawler.frontier.FifoFrontier;
+import sandeep.webcrawler.seen.FingerprintSeenSet;
+import sandeep.webcrawler.seen.SeenSet;
+
+public class CrawlMetricsTest
+{
+    @Test
+    public void fetchesArePerHostUpToTheTagLimit()
+    {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CrawlMetrics metrics = new CrawlMetrics(registry, 2);
+
+        metrics.recordFetch("a.test", 200, TimeUnit.MILLISECONDS.toNanos(10), 1000);
+        metrics.recordFetch("a.test", 404, TimeUnit.MILLISECONDS.toNanos(20), 500);
+        metrics.recordFetch("b.test", 200, TimeUnit.MILLISECONDS.toNanos(30), 100);
+        metrics.recordFetch("c.test", 200, TimeUnit.MILLISECONDS.toNanos(40), 100);
+        metrics.recordFetch("d.test", 503, TimeUnit.MILLISECONDS.toNanos(50), 100);
+
+        assertEquals(1, registry.get("crawler.fetch").tags("host", "a.test", "status", "2xx").timer().count());
+        assertEquals(1, registry.get("crawler.fetch").tags("host", "a.test", "status", "4xx").timer().count());
+        assertEquals(1, registry.get("crawler.fetch").tags("host", "other", "status", "2xx").timer().count());
+        assertEquals(1, registry.get("crawler.fetch").tags("host", "other", "status", "5xx").timer().count());
+        assertEquals(1800, registry.get("crawler.response.size").summary().totalAmount(), 0.0);
+    }
+
+    @Test
+    public void pagesAndErrorsAreCountedByTag()
+    {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CrawlMetrics metrics = new CrawlMetrics(registry);
+
+        metrics.pageCrawled("fetched");
+        metrics.pageCrawled("fetched");
+        metrics.pageCrawled("unchanged");
+        metrics.retryScheduled();
+        metrics.error(new SocketTimeoutException());
+        metrics.error(new SocketTimeoutException());
+        metrics.error(new IOException());
+        metrics.recordParse("DOM", 1_000_000);
+
+        assertEquals(2, registry.get("crawler.pages").tag("outcome", "fetched").counter().count(), 0.0);
+        assertEquals(1, registry.get("crawler.pages").tag("outcome", "unchanged").counter().count(), 0.0);
+        assertEquals(3, registry.get("crawler.pages").counters().stream().mapToDouble(Counter::count).sum(), 0.0);
+        assertEquals(1, registry.get("crawler.retries").counter().count(), 0.0);
+        assertEquals(2, registry.get("crawler.errors").tag("exception", "SocketTimeoutException").counter().count(), 0.0);
+        assertEquals(1, registry.get("crawler.errors").tag("exception", "IOException").counter().count(), 0.0);
+        assertNotNull(registry.get("crawler.parse").tag("mode", "DOM").timer());
+    }
+
+    @Test
+    public void sizeGaugesSumRunningCrawls()
+    {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CrawlMetrics metrics = new CrawlMetrics(registry);
+
+        FifoFrontier first = new FifoFrontier();
+        first.offer(new CrawlTask("http://a.test/1", 0));
+        first.offer(new CrawlTask("http://a.test/2", 0));
+        SeenSet firstSeen = new FingerprintSeenSet(16);
+        firstSeen.addIfAbsent("http://a.test/1");
+
+        FifoFrontier second = new FifoFrontier();
+        second.offer(new CrawlTask("http://b.test/1", 0));
+        SeenSet secondSeen = new FingerprintSeenSet(16);
+
+        CrawlMetrics.Watch a = metrics.watch(first, firstSeen);
+        CrawlMetrics.Watch b = metrics.watch(second, secondSeen);
+        assertEquals(3, registry.get("crawler.frontier.size").gauge().value(), 0.0);
+        assertEquals(1, registry.get("crawler.seen.size").gauge().value(), 0.0);
+        assertEquals(2, registry.get("crawler.crawls.active").gauge().value(), 0.0);
+        b.close();
+        assertEquals(2, registry.get("crawler.frontier.size").gauge().value(), 0.0);
+        a.close();
+        assertEquals(0, registry.get("crawler.crawls.active").gauge().value(), 0.0);
+    }
+}
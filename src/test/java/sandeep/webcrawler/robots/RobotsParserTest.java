@@ -0,0 +1,178 @@
+package sandeep.webcrawler.robots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import sandeep.webcrawler.fetch.FetchResponse;
+import sandeep.webcrawler.fetch.Fetcher;
+
+public class RobotsParserTest
+{
+    private static Fetcher serving(int status, String body, AtomicInteger fetches, List<String> urls)
+    {
+        return (url, headers) -> {
+            fetches.incrementAndGet();
+            urls.add(url);
+            return new FetchResponse(url, status, Map.of(), body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    @Test
+    public void concurrentLookupsShareOneFetch() throws Exception
+    {
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Fetcher slow = (url, headers) -> {
+            fetches.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new FetchResponse(url, 200, Map.of(),
+                    "User-agent: *\nDisallow: /private\n".getBytes(StandardCharsets.UTF_8));
+        };
+        RobotsParser robots = new RobotsParser(slow, "webcrawler", 60_000, 100);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> robots.isAllowed("http://example.com/private/x")));
+        }
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<Boolean> result : results) {
+            assertFalse(result.get(5, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    public void robotsUrlKeepsSchemeAndPort()
+    {
+        AtomicInteger fetches = new AtomicInteger();
+        List<String> urls = new ArrayList<>();
+        RobotsParser robots = new RobotsParser(serving(200, "", fetches, urls), "webcrawler", 60_000, 100);
+
+        assertTrue(robots.isAllowed("http://Example.com:8080/a?b=c"));
+        assertEquals(List.of("http://example.com:8080/robots.txt"), urls);
+    }
+
+    @Test
+    public void eachPortOfAHostHasItsOwnRobotsTxt()
+    {
+        List<String> urls = new ArrayList<>();
+        RobotsParser robots = new RobotsParser((url, headers) -> {
+            urls.add(url);
+            String body = url.contains(":8080/") ? "User-agent: *\nDisallow: /\n" : "";
+            return new FetchResponse(url, 200, Map.of(), body.getBytes(StandardCharsets.UTF_8));
+        }, "webcrawler", 60_000, 100);
+
+        assertTrue(robots.isAllowed("http://two.test/page"));
+        assertFalse(robots.isAllowed("http://two.test:8080/page"));
+        // The default port written out is the same origin
+        assertTrue(robots.isAllowed("http://two.test:80/other"));
+        assertEquals(List.of("http://two.test/robots.txt", "http://two.test:8080/robots.txt"), urls);
+    }
+
+    @Test
+    public void crawlDelayOfAnHttpOnlyHostNeverTriesHttps()
+    {
+        List<String> urls = new ArrayList<>();
+        RobotsParser robots = new RobotsParser((url, headers) -> {
+            urls.add(url);
+            if (url.startsWith("https:")) {
+                throw new IOException("no TLS here");
+            }
+            return new FetchResponse(url, 200, Map.of(),
+                    "User-agent: *\nCrawl-delay: 2\n".getBytes(StandardCharsets.UTF_8));
+        }, "webcrawler", 60_000, 100);
+
+        // Not loaded yet: the default, without a fetch
+        assertEquals(0, robots.getCrawlDelay("plain.test"));
+        assertTrue(urls.isEmpty());
+
+        assertTrue(robots.isAllowed("http://plain.test/page"));
+        assertEquals(2_000, robots.getCrawlDelay("plain.test"));
+        assertEquals(2_000, robots.getCrawlDelay("Plain.test"));
+        assertEquals(List.of("http://plain.test/robots.txt"), urls);
+    }
+
+    @Test
+    public void entriesExpireAfterTtl()
+    {
+        AtomicLong now = new AtomicLong(1_000);
+        AtomicInteger fetches = new AtomicInteger();
+        RobotsParser robots = new RobotsParser(serving(200, "", fetches, new ArrayList<>()),
+                "webcrawler", 1_000, 100, now::get);
+
+        robots.isAllowed("http://a.test/");
+        robots.isAllowed("http://a.test/other");
+        assertEquals(1, fetches.get());
+
+        now.addAndGet(1_001);
+        robots.isAllowed("http://a.test/");
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void serverErrorsDisallowAndClientErrorsAllow()
+    {
+        AtomicInteger fetches = new AtomicInteger();
+        RobotsParser unavailable = new RobotsParser(serving(503, "", fetches, new ArrayList<>()),
+                "webcrawler", 60_000, 100);
+        assertFalse(unavailable.isAllowed("http://down.test/page"));
+
+        RobotsParser missing = new RobotsParser(serving(404, "Disallow: /", fetches, new ArrayList<>()),
+                "webcrawler", 60_000, 100);
+        assertTrue(missing.isAllowed("http://missing.test/page"));
+
+        RobotsParser unreachable = new RobotsParser((url, headers) -> {
+            throw new IOException("connection refused");
+        }, "webcrawler", 60_000, 100);
+        assertTrue(unreachable.isAllowed("http://gone.test/page"));
+        assertFalse(unreachable.isAllowed("not a url"));
+    }
+
+    @Test
+    public void leastRecentlyUsedHostsAreEvicted()
+    {
+        AtomicLong now = new AtomicLong(10_000);
+        AtomicInteger fetches = new AtomicInteger();
+        RobotsParser robots = new RobotsParser(serving(200, "", fetches, new ArrayList<>()),
+                "webcrawler", 3_600_000, 10, now::get);
+
+        for (int i = 0; i < 10; i++) {
+            robots.isAllowed("http://host" + i + ".test/");
+            now.addAndGet(5_000);
+        }
+        // host0 is touched again, so host1 becomes the oldest
+        robots.isAllowed("http://host0.test/");
+        now.addAndGet(5_000);
+        robots.isAllowed("http://host10.test/");
+
+        assertTrue(robots.cachedHosts() <= 10);
+        int before = fetches.get();
+        robots.isAllowed("http://host0.test/");
+        assertEquals(before, fetches.get());
+        robots.isAllowed("http://host1.test/");
+        assertEquals(before + 1, fetches.get());
+    }
+}
@@ -0,0 +1,81 @@
+package sandeep.webcrawler.robots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RobotsRulesTest
+{
+    @Test
+    public void longestMatchWinsAndAllowWinsTies()
+    {
+        RobotsRules rules = RobotsRules.parse(
+                "User-agent: *\n"
+                + "Disallow: /private\n"
+                + "Allow: /private/public\n"
+                + "Disallow: /tie\n"
+                + "Allow: /tie\n", "webcrawler");
+
+        assertTrue(rules.isAllowed("/"));
+        assertFalse(rules.isAllowed("/private"));
+        assertFalse(rules.isAllowed("/private/x"));
+        assertTrue(rules.isAllowed("/private/public/page"));
+        assertTrue(rules.isAllowed("/tie"));
+    }
+
+    @Test
+    public void wildcardsAndEndAnchors()
+    {
+        RobotsRules rules = RobotsRules.parse(
+                "User-agent: *\n"
+                + "Disallow: /*.php$\n"
+                + "Disallow: /*?session=\n"
+                + "Disallow: /a*b*c\n", "webcrawler");
+
+        assertFalse(rules.isAllowed("/index.php"));
+        assertTrue(rules.isAllowed("/index.php5"));
+        assertTrue(rules.isAllowed("/index.php?x=1"));
+        assertFalse(rules.isAllowed("/shop?session=42"));
+        assertTrue(rules.isAllowed("/shop?id=42"));
+        assertFalse(rules.isAllowed("/a-bb-cc"));
+        assertTrue(rules.isAllowed("/a-cc-bb"));
+    }
+
+    @Test
+    public void agentGroupReplacesWildcardGroup()
+    {
+        String txt = "User-agent: *\n"
+                + "Disallow: /\n"
+                + "\n"
+                + "User-agent: OtherBot\n"
+                + "User-agent: WebCrawler\n"
+                + "Disallow: /admin # staff only\n"
+                + "Crawl-delay: 1.5\n";
+
+        RobotsRules ours = RobotsRules.parse(txt, "webcrawler");
+        assertTrue(ours.isAllowed("/page"));
+        assertFalse(ours.isAllowed("/admin/users"));
+        assertEquals(1500, ours.getCrawlDelayMs());
+
+        RobotsRules others = RobotsRules.parse(txt, "somebot");
+        assertFalse(others.isAllowed("/page"));
+        assertEquals(0, others.getCrawlDelayMs());
+    }
+
+    @Test
+    public void emptyDisallowAndUnknownLinesAllowEverything()
+    {
+        RobotsRules rules = RobotsRules.parse(
+                "Sitemap: https://example.com/sitemap.xml\n"
+                + "User-agent: *\n"
+                + "Disallow:\n"
+                + "garbage line\n", "webcrawler");
+
+        assertTrue(rules.isAllowed("/anything"));
+        assertTrue(RobotsRules.ALLOW_ALL.isAllowed("/x"));
+        assertFalse(RobotsRules.DISALLOW_ALL.isAllowed("/"));
+        assertFalse(RobotsRules.DISALLOW_ALL.isAllowed(""));
+    }
+}
@@ -0,0 +1,121 @@
+package sandeep.webcrawler.schedule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class FairWorkerPoolTest
+{
+    // Job that does a fixed number of steps and records the order it ran in
+    private static FairWorkerPool.Job counted(String name, int steps, List<String> log)
+    {
+        AtomicInteger left = new AtomicInteger(steps);
+        return () -> {
+            if (left.getAndDecrement() <= 0) {
+                return FairWorkerPool.Step.DONE;
+            }
+            log.add(name);
+            return FairWorkerPool.Step.WORKED;
+        };
+    }
+
+    private static void awaitQuietly(CountDownLatch latch)
+    {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void jobsTakeTurnsSoASmallJobIsNotStarved() throws Exception
+    {
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch bothSubmitted = new CountDownLatch(1);
+        FairWorkerPool.Job bigSteps = counted("big", 10_000, log);
+        try (FairWorkerPool pool = new FairWorkerPool(1)) {
+            // The worker may start on the big job before the small one is submitted; hold it until then
+            CompletableFuture<Void> big = pool.submit(() -> {
+                awaitQuietly(bothSubmitted);
+                return bigSteps.step();
+            }, 1);
+            CompletableFuture<Void> small = pool.submit(counted("small", 10, log), 1);
+            bothSubmitted.countDown();
+
+            small.get(5, TimeUnit.SECONDS);
+            int smallFinishedAt = log.lastIndexOf("small");
+            // Round robin: the small job's ten steps interleave with at most one big step each
+            assertTrue("small job finished at step " + smallFinishedAt, smallFinishedAt < 40);
+
+            big.get(10, TimeUnit.SECONDS);
+            assertEquals(10_010, log.size());
+        }
+    }
+
+    @Test
+    public void parallelismCapIsRespected() throws Exception
+    {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxSeen = new AtomicInteger();
+        AtomicInteger left = new AtomicInteger(200);
+        try (FairWorkerPool pool = new FairWorkerPool(8)) {
+            CompletableFuture<Void> done = pool.submit(() -> {
+                if (left.getAndDecrement() <= 0) {
+                    return FairWorkerPool.Step.DONE;
+                }
+                maxSeen.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return FairWorkerPool.Step.WORKED;
+            }, 2);
+
+            done.get(10, TimeUnit.SECONDS);
+            assertTrue("max parallel " + maxSeen.get(), maxSeen.get() <= 2);
+            assertEquals(0, pool.activeJobs());
+        }
+    }
+
+    @Test
+    public void idleJobKeepsItsPlaceUntilItHasWork() throws Exception
+    {
+        AtomicInteger polls = new AtomicInteger();
+        try (FairWorkerPool pool = new FairWorkerPool(2)) {
+            CompletableFuture<Void> done = pool.submit(
+                    () -> polls.incrementAndGet() < 5 ? FairWorkerPool.Step.IDLE : FairWorkerPool.Step.DONE, 1);
+            done.get(5, TimeUnit.SECONDS);
+            assertTrue(polls.get() >= 5);
+        }
+    }
+
+    @Test
+    public void failingStepCompletesTheJobExceptionally() throws Exception
+    {
+        try (FairWorkerPool pool = new FairWorkerPool(1)) {
+            CompletableFuture<Void> done = pool.submit(() -> {
+                throw new IllegalStateException("boom");
+            }, 1);
+            try {
+                done.get(5, TimeUnit.SECONDS);
+                fail("expected failure");
+            } catch (ExecutionException e) {
+                assertEquals("boom", e.getCause().getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package sandeep.webcrawler.schedule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class OutstandingWorkTest
+{
+    @Test
+    public void completesOnlyWhenTheLastTaskAndEverythingItSpawnedIsDone() throws Exception
+    {
+        AtomicInteger doneCalls = new AtomicInteger();
+        OutstandingWork work = new OutstandingWork(doneCalls::incrementAndGet);
+        work.register(); // coordinator
+        work.register(); // seed
+        work.arrive();
+        assertFalse(work.isDone());
+
+        // The seed spawns two children before finishing
+        work.register(2);
+        work.arrive();
+        assertFalse(work.isDone());
+        work.arrive();
+        work.arrive();
+
+        assertTrue(work.isDone());
+        assertEquals(1, doneCalls.get());
+        assertEquals(0, work.pending());
+    }
+
+    @Test
+    public void treeOfTasksOnManyThreadsFinishesExactlyOnce() throws Exception
+    {
+        AtomicInteger doneCalls = new AtomicInteger();
+        AtomicInteger executed = new AtomicInteger();
+        OutstandingWork work = new OutstandingWork(doneCalls::incrementAndGet);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            work.register();
+            pool.execute(new Node(pool, work, executed, 0));
+            assertTrue(work.await(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        // A full 4-ary tree of depth 6
+        assertEquals(5461, executed.get());
+        assertEquals(1, doneCalls.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void registeringAfterCompletionFails()
+    {
+        OutstandingWork work = new OutstandingWork(() -> { });
+        work.register();
+        work.arrive();
+        work.register();
+    }
+
+    private record Node(ExecutorService pool, OutstandingWork work, AtomicInteger executed, int depth)
+            implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            executed.incrementAndGet();
+            if (depth < 6) {
+                work.register(4);
+                for (int i = 0; i < 4; i++) {
+                    pool.execute(new Node(pool, work, executed, depth + 1));
+                }
+            }
+            work.arrive();
+        }
+    }
+}
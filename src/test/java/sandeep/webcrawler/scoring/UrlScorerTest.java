@@ -0,0 +1,204 @@
+package sandeep.webcrawler.scoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import sandeep.webcrawler.ConcurrentWebCrawler;
+import sandeep.webcrawler.fetch.FetchResponse;
+import sandeep.webcrawler.fetch.Fetcher;
+import sandeep.webcrawler.frontier.CrawlTask;
+import sandeep.webcrawler.frontier.FrontierOrder;
+import sandeep.webcrawler.metrics.CrawlMetrics;
+import sandeep.webcrawler.robots.RobotsParser;
+
+public class UrlScorerTest
+{
+    private static final String SEED = "https://shop.test/";
+
+    @Test
+    public void depthAndPatternScores()
+    {
+        assertEquals(1.0, new DepthScorer().score(new CrawlTask(SEED, 0)), 1e-9);
+        assertEquals(0.25, new DepthScorer().score(new CrawlTask(SEED, 3)), 1e-9);
+
+        PatternScorer patterns = new PatternScorer()
+                .addRule("/product/", 0.9)
+                .addRule("/p", 0.2);
+        assertEquals(0.9, patterns.score(new CrawlTask(SEED + "product/1", 1)), 1e-9);
+        assertEquals(0.2, patterns.score(new CrawlTask(SEED + "page/2", 1)), 1e-9);
+        assertEquals(0.5, patterns.score(new CrawlTask(SEED + "about", 1)), 1e-9);
+    }
+
+    @Test
+    public void inlinkScoreGrowsWithLinksAndSaturates()
+    {
+        InlinkScorer scorer = new InlinkScorer(16);
+        CrawlTask hub = new CrawlTask(SEED + "hub", 1);
+        assertEquals(0.0, scorer.score(hub), 1e-9);
+
+        scorer.onLink(hub.getUrl());
+        double once = scorer.score(hub);
+        for (int i = 0; i < 4; i++) {
+            scorer.onLink(hub.getUrl());
+        }
+        assertEquals(5, scorer.inlinks(hub.getUrl()));
+        assertTrue(scorer.score(hub) > once);
+        for (int i = 0; i < 100; i++) {
+            scorer.onLink(hub.getUrl());
+        }
+        assertEquals(1.0, scorer.score(hub), 1e-9);
+        assertEquals(0, scorer.inlinks(SEED + "other"));
+    }
+
+    @Test
+    public void sitemapIsFetchedOncePerHost() throws Exception
+    {
+        AtomicInteger sitemapFetches = new AtomicInteger();
+        Fetcher site = (url, headers) -> {
+            sitemapFetches.incrementAndGet();
+            String xml = "<?xml version=\"1.0\"?><urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"
+                    + "<url><loc>https://shop.test/product/1</loc><priority>0.9</priority></url>"
+                    + "<url><loc>https://shop.test/search?q=a&amp;page=2</loc><priority>0.1</priority></url>"
+                    + "<url><loc>https://shop.test/no-priority</loc></url>"
+                    + "</urlset>";
+            return new FetchResponse(url, 200, Map.of(), xml.getBytes(StandardCharsets.UTF_8));
+        };
+        SitemapScorer scorer = new SitemapScorer(site);
+
+        // The first score only starts the fetch
+        scorer.score(new CrawlTask(SEED + "product/1", 1));
+        scorer.whenLoaded("shop.test").get(5, TimeUnit.SECONDS);
+        assertEquals(0.9, scorer.score(new CrawlTask(SEED + "product/1", 1)), 1e-6);
+        // Listed URLs are matched in canonical form, with sorted query parameters
+        assertEquals(0.1, scorer.score(new CrawlTask(SEED + "search?page=2&q=a", 1)), 1e-6);
+        assertEquals(0.5, scorer.score(new CrawlTask(SEED + "no-priority", 1)), 1e-6);
+        assertEquals(0.5, scorer.score(new CrawlTask(SEED + "unlisted", 1)), 1e-6);
+        assertEquals(1, sitemapFetches.get());
+    }
+
+    @Test
+    public void scoringNeverWaitsForTheSitemap() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        Fetcher slow = (url, headers) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new FetchResponse(url, 404, Map.of(), new byte[0]);
+        };
+        SitemapScorer scorer = new SitemapScorer(slow);
+        try {
+            long start = System.nanoTime();
+            assertEquals(0.5, scorer.score(new CrawlTask(SEED + "product/1", 1)), 1e-6);
+            assertEquals(0.5, scorer.score(new CrawlTask(SEED + "product/2", 1)), 1e-6);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+        } finally {
+            release.countDown();
+        }
+        assertTrue(scorer.whenLoaded("shop.test").get(5, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    public void weightedScoreIsTheWeightedMean()
+    {
+        WeightedScorer scorer = new WeightedScorer()
+                .add(task -> 1.0, 3)
+                .add(task -> 0.0, 1);
+        assertEquals(0.75, scorer.score(new CrawlTask(SEED, 0)), 1e-9);
+    }
+
+    @Test
+    public void bestFirstSpendsThePageBudgetOnHighValuePages()
+    {
+        Set<String> fifo = crawl(FrontierOrder.FIFO);
+        Set<String> bestFirst = crawl(FrontierOrder.BEST_FIRST);
+
+        assertEquals(15, fifo.size());
+        assertEquals(15, bestFirst.size());
+        // Breadth-first fills the budget with the tag pages listed first
+        assertEquals(0, products(fifo));
+        assertEquals(10, products(bestFirst));
+    }
+
+    @Test
+    public void urlsLeftOverOnceTheBudgetIsSpentDoNotWaitOutTheHostDelay()
+    {
+        AtomicInteger fetches = new AtomicInteger();
+        Fetcher site = (url, headers) -> {
+            if (!url.endsWith("/robots.txt") && !url.endsWith("/sitemap.xml")) {
+                fetches.incrementAndGet();
+            }
+            return serve(url, headers);
+        };
+        long start = System.nanoTime();
+        Set<String> crawled = crawl(FrontierOrder.BEST_FIRST, site, 100);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(15, crawled.size());
+        assertEquals(15, fetches.get());
+        // 15 fetches one delay apart; dropping the other 40-odd one by one took another delay each
+        assertTrue("took " + elapsedMs + "ms", elapsedMs < 3_000);
+    }
+
+    private static long products(Set<String> crawled)
+    {
+        return crawled.stream().filter(url -> url.contains("/product/")).count();
+    }
+
+    private static Set<String> crawl(FrontierOrder order)
+    {
+        return crawl(order, UrlScorerTest::serve, 0);
+    }
+
+    private static Set<String> crawl(FrontierOrder order, Fetcher site, long politenessDelayMs)
+    {
+        ConcurrentWebCrawler crawler = new ConcurrentWebCrawler(SEED, 15, 1, 5);
+        crawler.setFetcher(site);
+        crawler.setRobotsParser(new RobotsParser(site, RobotsParser.DEFAULT_AGENT, 60_000, 10));
+        crawler.setPolitenessDelay(politenessDelayMs);
+        crawler.setMinPolitenessDelay(politenessDelayMs);
+        crawler.setMetrics(new CrawlMetrics(new SimpleMeterRegistry()));
+        crawler.setFrontierOrder(order);
+        crawler.setUrlPatterns(PatternScorer.of(Map.of("/product/", 0.9)));
+        Set<String> crawled = ConcurrentHashMap.newKeySet();
+        crawler.setResultListener(crawled::add);
+        crawler.crawl(SEED);
+        return crawled;
+    }
+
+    // The home page lists 40 tag pages before 10 product pages; tag pages only lead to more tags
+    private static FetchResponse serve(String url, Map<String, String> headers)
+    {
+        if (url.endsWith("/robots.txt") || url.endsWith("/sitemap.xml")) {
+            return new FetchResponse(url, 404, Map.of(), new byte[0]);
+        }
+        StringBuilder html = new StringBuilder("<html><head><title>Shop</title></head><body>");
+        if (url.contains("/tag/")) {
+            int id = Integer.parseInt(url.substring(url.lastIndexOf('/') + 1));
+            html.append("<a href=\"/tag/").append(id + 100).append("\">more</a>");
+        } else if (url.equals(SEED)) {
+            for (int i = 0; i < 40; i++) {
+                html.append("<a href=\"/tag/").append(i).append("\">tag</a>");
+            }
+            for (int i = 0; i < 10; i++) {
+                html.append("<a href=\"/product/").append(i).append("\">product</a>");
+            }
+        }
+        byte[] body = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+        return new FetchResponse(url, 200, Map.of("content-type", List.of("text/html; charset=utf-8")), body);
+    }
+}
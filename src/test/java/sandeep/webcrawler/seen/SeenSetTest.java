@@ -0,0 +1,104 @@
+package sandeep.webcrawler.seen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+public class SeenSetTest
+{
+    @Test
+    public void fingerprintSetGrowsPastInitialCapacity()
+    {
+        FingerprintSeenSet seen = new FingerprintSeenSet(16, 4);
+        for (int i = 0; i < 50_000; i++) {
+            assertTrue(seen.addIfAbsent("https://example.com/page/" + i));
+        }
+        for (int i = 0; i < 50_000; i++) {
+            assertTrue(seen.contains("https://example.com/page/" + i));
+            assertFalse(seen.addIfAbsent("https://example.com/page/" + i));
+        }
+        assertFalse(seen.contains("https://example.com/page/50000"));
+        assertEquals(50_000, seen.size());
+    }
+
+    @Test
+    public void concurrentAddIfAbsentAcceptsEachUrlOnce() throws Exception
+    {
+        FingerprintSeenSet seen = new FingerprintSeenSet();
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    if (seen.addIfAbsent("https://example.com/" + i)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(20_000, accepted.get());
+        assertEquals(20_000, seen.size());
+    }
+
+    @Test
+    public void bloomFilterStaysNearTargetFalsePositiveRate()
+    {
+        BloomSeenSet seen = BloomSeenSet.forExpected(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            seen.addIfAbsent("https://example.com/a/" + i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(seen.contains("https://example.com/a/" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (seen.contains("https://example.com/b/" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 2_000);
+    }
+
+    @Test
+    public void concurrentBloomAddAcceptsEachUrlAtMostOnce() throws Exception
+    {
+        BloomSeenSet seen = BloomSeenSet.forExpected(20_000, 0.001);
+        AtomicIntegerArray accepted = new AtomicIntegerArray(20_000);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    if (seen.addIfAbsent("https://example.com/" + i)) {
+                        accepted.incrementAndGet(i);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue("accepted " + accepted.get(i) + " times: " + i, accepted.get(i) <= 1);
+        }
+    }
+}
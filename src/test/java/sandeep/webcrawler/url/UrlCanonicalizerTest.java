@@ -0,0 +1,52 @@
+package sandeep.webcrawler.url;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class UrlCanonicalizerTest
+{
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+
+    @Test
+    public void variantsOfOnePageShareASpelling()
+    {
+        String canonical = "https://example.com/a/b?x=1&y=2";
+        assertEquals(canonical, canonicalizer.canonicalize("HTTPS://Example.COM:443/a/b?y=2&x=1#section"));
+        assertEquals(canonical, canonicalizer.canonicalize("https://user:pw@example.com./a/b?x=1&&y=2&"));
+        assertEquals(canonical, canonicalizer.canonicalize("  https://example.com/a/b?x=1&JSESSIONID=abc&y=2 "));
+        assertEquals("https://example.com/a/b", canonicalizer.canonicalize("https://example.com/a/b;jsessionid=0AF3?"));
+        assertEquals("http://example.com/", canonicalizer.canonicalize("http://example.com:80"));
+        assertEquals("http://example.com/?q=1", canonicalizer.canonicalize("http://example.com?q=1"));
+    }
+
+    @Test
+    public void canonicalUrlIsReturnedAsIs()
+    {
+        String url = "https://example.com:8443/path/page.html?a=1&b=2";
+        assertSame(url, canonicalizer.canonicalize(url));
+    }
+
+    @Test
+    public void nonHttpAndMalformedUrlsAreRejected()
+    {
+        assertNull(canonicalizer.canonicalize("mailto:someone@example.com"));
+        assertNull(canonicalizer.canonicalize("javascript:void(0)"));
+        assertNull(canonicalizer.canonicalize("ftp://example.com/file"));
+        assertNull(canonicalizer.canonicalize("https:///path"));
+        assertNull(canonicalizer.canonicalize("https://example.com:99999/"));
+        assertNull(canonicalizer.canonicalize("https://example.com:http/"));
+        assertNull(canonicalizer.canonicalize(null));
+    }
+
+    @Test
+    public void hostIsParsedWithoutAUri()
+    {
+        assertEquals("example.com", UrlCanonicalizer.host("https://user@EXAMPLE.com:8080/x?y#z"));
+        assertEquals("[::1]", UrlCanonicalizer.host("http://[::1]:8080/"));
+        assertEquals("example.com", UrlCanonicalizer.host("http://example.com"));
+        assertEquals("", UrlCanonicalizer.host("not a url"));
+    }
+}
@@ -0,0 +1,43 @@
+package sandeep.webcrawler.url;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class UrlFilterTest
+{
+    private final UrlFilter filter = new UrlFilter("https://www.example.com/start");
+
+    @Test
+    public void subdomainsAndParentDomainMatchButLookalikesDoNot()
+    {
+        assertTrue(filter.isSameDomain("https://www.example.com/a"));
+        assertTrue(filter.isSameDomain("https://example.com/a"));
+        assertTrue(filter.isSameDomain("https://docs.www.example.com/a"));
+        assertFalse(filter.isSameDomain("https://ample.com/a"));
+        assertFalse(filter.isSameDomain("https://notwww.example.com/a"));
+        assertFalse(filter.isSameDomain("https://www.example.com.evil.net/a"));
+    }
+
+    @Test
+    public void onlyTheLastPathSegmentsExtensionIsChecked()
+    {
+        assertFalse(filter.isValidUrl("https://www.example.com/report.PDF"));
+        assertFalse(filter.isValidUrl("https://www.example.com/img/logo.png?v=3"));
+        assertTrue(filter.isValidUrl("https://www.example.com/how-to-convert-png.html"));
+        assertTrue(filter.isValidUrl("https://www.example.com/files.png/index"));
+        assertTrue(filter.isValidUrl("https://www.example.com/page#top"));
+    }
+
+    @Test
+    public void acceptedLinksAreCanonical()
+    {
+        assertEquals("https://www.example.com/a?b=1&c=2",
+                filter.canonicalize("https://WWW.example.com/a?c=2&b=1#frag"));
+        assertNull(filter.canonicalize("https://other.org/a"));
+        assertNull(filter.canonicalize("mailto:me@www.example.com"));
+    }
+}